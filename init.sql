@@ -6,6 +6,9 @@ CREATE DATABASE IF NOT EXISTS test
 USE rpg;
 
 DROP TABLE IF EXISTS player;
+-- Таблица пересоздаётся без индексов и столбца version, поэтому историю миграций тоже сбрасываем:
+-- при следующем старте приложение примет схему за версию 1 и заново применит остальные миграции.
+DROP TABLE IF EXISTS flyway_schema_history;
 
 CREATE TABLE player
 (
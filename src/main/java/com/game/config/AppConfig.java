@@ -1,86 +1,268 @@
-package com.game.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
-import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
-import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.orm.jpa.JpaTransactionManager;
-import org.springframework.orm.jpa.JpaVendorAdapter;
-import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
-import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.annotation.EnableTransactionManagement;
-
-import javax.persistence.EntityManagerFactory;
-import javax.sql.DataSource;
-import java.util.Properties;
-
-import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
-
-@Configuration
-@EnableTransactionManagement
-@ComponentScan("com.game")
-@EnableJpaRepositories(basePackages = "com.game.repository")
-public class AppConfig {
-
-    @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
-        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
-        em.setPackagesToScan("com.game.entity");
-
-        JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
-        em.setJpaVendorAdapter(vendorAdapter);
-        em.setJpaProperties(additionalProperties());
-
-        return em;
-    }
-
-    @Profile("prod")
-    @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
-    }
-
-    @Profile("dev")
-    @Bean(name = "dataSource")
-    public DataSource dataSourceForTests() {
-
-        return new EmbeddedDatabaseBuilder()
-                .generateUniqueName(true)
-                .setType(H2)
-                .setScriptEncoding("UTF-8")
-                .ignoreFailedDrops(true)
-                .addScript("test.sql")
-                .build();
-    }
-
-    @Bean
-    public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
-        JpaTransactionManager transactionManager = new JpaTransactionManager();
-        transactionManager.setEntityManagerFactory(emf);
-
-        return transactionManager;
-    }
-
-    @Bean
-    public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
-        return new PersistenceExceptionTranslationPostProcessor();
-    }
-
-    private Properties additionalProperties() {
-        Properties properties = new Properties();
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
-
-        return properties;
-    }
+package com.game.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+@Configuration
+@EnableTransactionManagement
+@EnableScheduling
+// com.game.reactive - отдельное приложение со своей конфигурацией (ReactiveConfig).
+@ComponentScan(value = "com.game", excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.game\\.reactive\\..*"))
+@EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource("classpath:application.properties")
+public class AppConfig {
+
+    private final Environment env;
+
+    public AppConfig(Environment env) {
+        this.env = env;
+    }
+
+    // Миграции схемы (src/main/resources/db/migration) применяются к основной БД до старта Hibernate.
+    // Существующая база без истории миграций (созданная через init.sql) принимается за версию 1.
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(@Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        return Flyway.configure()
+                .dataSource(primaryDataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/" + vendor(primaryDataSource))
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    // Каталог миграций под СУБД (h2 или mysql) - по имени продукта из метаданных соединения:
+    // Flyway, в отличие от Spring Boot, плейсхолдер {vendor} в locations не подставляет.
+    private static String vendor(DataSource dataSource) {
+        try {
+            String product = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+            return product.toLowerCase(Locale.ROOT);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot determine the database vendor", e);
+        }
+    }
+
+    @Bean
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.game.entity");
+
+        JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        em.setJpaVendorAdapter(vendorAdapter);
+        em.setJpaProperties(additionalProperties());
+
+        return em;
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    // Фильтр регистрируется в MyWebAppInit через DelegatingFilterProxy по имени бина.
+    @Bean
+    public CompressionFilter compressionFilter() {
+        return new CompressionFilter(
+                env.getProperty("compression.enabled", Boolean.class, true),
+                env.getProperty("compression.minSize", Integer.class, 2048),
+                env.getProperty("compression.level", Integer.class, Deflater.DEFAULT_COMPRESSION),
+                env.getProperty("compression.mimeTypes", String[].class, new String[]{"application/json"}),
+                env.getProperty("compression.poolSize", Integer.class, 64));
+    }
+
+    // Потоки, на которых PlayerController обрабатывает запросы. Чтения и записи - в разных пулах,
+    // чтобы волна медленных записей не задерживала чтения (и наоборот).
+    @Bean(destroyMethod = "shutdown")
+    public RequestExecutor playerReadExecutor() {
+        return requestExecutor("player-reads", "async.reads");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RequestExecutor playerWriteExecutor() {
+        return requestExecutor("player-writes", "async.writes");
+    }
+
+    private RequestExecutor requestExecutor(String name, String prefix) {
+        return new RequestExecutor(
+                name,
+                env.getProperty("async.enabled", Boolean.class, true),
+                env.getProperty("async.virtualThreads", Boolean.class, false),
+                env.getProperty(prefix + ".threads", Integer.class, 10),
+                env.getProperty(prefix + ".queueCapacity", Integer.class, 1000),
+                env.getProperty("async.timeoutMillis", Long.class, 10000L));
+    }
+
+    @Profile("prod")
+    @Bean
+    public DataSource primaryDataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+        return mysqlDataSource(ReadWriteRoutingDataSource.PRIMARY, env.getRequiredProperty("db.url"), connectionPoolMetrics);
+    }
+
+    @Profile("prod")
+    @Bean
+    public ReplicaDataSources replicaDataSources(ConnectionPoolMetrics connectionPoolMetrics) {
+        ReplicaDataSources replicas = new ReplicaDataSources();
+        String[] urls = env.getProperty("db.replicas.urls", String[].class, new String[0]);
+        for (String url : urls) {
+            if (!url.trim().isEmpty()) {
+                String name = "replica-" + (replicas.getDataSources().size() + 1);
+                replicas.add(name, mysqlDataSource(name, url.trim(), connectionPoolMetrics));
+            }
+        }
+        return replicas;
+    }
+
+    @Profile("dev")
+    @Bean(name = "primaryDataSource")
+    public DataSource primaryDataSourceForTests(ConnectionPoolMetrics connectionPoolMetrics) {
+        if (env.getProperty("pool.dev.enabled", Boolean.class, false)) {
+            return h2DataSource(ReadWriteRoutingDataSource.PRIMARY, connectionPoolMetrics);
+        }
+
+        return new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .setScriptEncoding("UTF-8")
+                .ignoreFailedDrops(true)
+                .addScript("test.sql")
+                .build();
+    }
+
+    // Реплики в dev - отдельные H2-базы с теми же начальными данными (записи в них не реплицируются).
+    @Profile("dev")
+    @Bean(name = "replicaDataSources")
+    public ReplicaDataSources replicaDataSourcesForTests(ConnectionPoolMetrics connectionPoolMetrics) {
+        ReplicaDataSources replicas = new ReplicaDataSources();
+        int count = env.getProperty("db.dev.replicas", Integer.class, 0);
+        for (int i = 1; i <= count; i++) {
+            String name = "replica-" + i;
+            replicas.add(name, h2DataSource(name, connectionPoolMetrics));
+        }
+        return replicas;
+    }
+
+    // Пулы закрывают бины primaryDataSource и replicaDataSources, поэтому destroyMethod здесь отключён.
+    @Primary
+    @Bean(destroyMethod = "")
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaDataSources replicaDataSources,
+                                 ConnectionPoolMetrics connectionPoolMetrics) {
+        // Физическое соединение берётся только к первому запросу, так что транзакция, отвеченная
+        // из кэша, пул не трогает.
+        if (replicaDataSources.isEmpty()) {
+            return new LazyConnectionDataSourceProxy(primaryDataSource);
+        }
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(
+                primaryDataSource,
+                replicaDataSources,
+                env.getProperty("db.replicas.selection", ReadWriteRoutingDataSource.ReplicaSelection.class,
+                        ReadWriteRoutingDataSource.ReplicaSelection.ROUND_ROBIN),
+                new ReadYourWritesTracker(env.getProperty("db.replicas.readYourWritesMillis", Long.class, 0L)),
+                connectionPoolMetrics);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager();
+        transactionManager.setEntityManagerFactory(emf);
+
+        return transactionManager;
+    }
+
+    @Bean
+    public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
+        return new PersistenceExceptionTranslationPostProcessor();
+    }
+
+    private DataSource mysqlDataSource(String poolName, String url, ConnectionPoolMetrics connectionPoolMetrics) {
+        HikariConfig config = poolConfig(poolName, connectionPoolMetrics);
+        config.setDriverClassName(env.getRequiredProperty("db.driverClassName"));
+        config.setJdbcUrl(url);
+        config.setUsername(env.getProperty("db.username"));
+        config.setPassword(env.getProperty("db.password"));
+        return new HikariDataSource(config);
+    }
+
+    // Та же схема, что и у EmbeddedDatabaseBuilder, только соединения выдаёт пул.
+    private DataSource h2DataSource(String poolName, ConnectionPoolMetrics connectionPoolMetrics) {
+        HikariConfig config = poolConfig(poolName, connectionPoolMetrics);
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        HikariDataSource dataSource = new HikariDataSource(config);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.setIgnoreFailedDrops(true);
+        DatabasePopulatorUtils.execute(populator, dataSource);
+        return dataSource;
+    }
+
+    private HikariConfig poolConfig(String poolName, ConnectionPoolMetrics connectionPoolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setMinimumIdle(env.getProperty("pool.minimumIdle", Integer.class, 5));
+        config.setMaximumPoolSize(env.getProperty("pool.maximumPoolSize", Integer.class, 20));
+        config.setConnectionTimeout(env.getProperty("pool.connectionTimeoutMillis", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("pool.idleTimeoutMillis", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("pool.maxLifetimeMillis", Long.class, 1800000L));
+        config.setValidationTimeout(env.getProperty("pool.validationTimeoutMillis", Long.class, 1000L));
+        config.setLeakDetectionThreshold(env.getProperty("pool.leakDetectionThresholdMillis", Long.class, 0L));
+        String connectionTestQuery = env.getProperty("pool.connectionTestQuery");
+        if (connectionTestQuery != null && !connectionTestQuery.isEmpty()) {
+            config.setConnectionTestQuery(connectionTestQuery);
+        }
+        config.setMetricsTrackerFactory(connectionPoolMetrics);
+        return config;
+    }
+
+    private Properties additionalProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+
+        return properties;
+    }
 }
\ No newline at end of file
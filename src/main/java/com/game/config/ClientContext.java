@@ -0,0 +1,22 @@
+package com.game.config;
+
+// Идентификатор клиента, от имени которого обрабатывается текущий запрос.
+// Заполняется в ClientContextFilter и нужен, например, для read-your-writes при чтении с реплик.
+public final class ClientContext {
+    private static final ThreadLocal<String> CLIENT_ID = new ThreadLocal<>();
+
+    private ClientContext() {
+    }
+
+    public static String getClientId() {
+        return CLIENT_ID.get();
+    }
+
+    public static void setClientId(String clientId) {
+        CLIENT_ID.set(clientId);
+    }
+
+    public static void clear() {
+        CLIENT_ID.remove();
+    }
+}
@@ -0,0 +1,30 @@
+package com.game.config;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+// Клиент определяется по заголовку X-Client-Id, а если его нет - по адресу, с которого пришёл запрос.
+public class ClientContextFilter implements Filter {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String clientId = ((HttpServletRequest) request).getHeader(CLIENT_ID_HEADER);
+        if (clientId == null || clientId.isEmpty()) {
+            clientId = request.getRemoteAddr();
+        }
+
+        ClientContext.setClientId(clientId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ClientContext.clear();
+        }
+    }
+}
@@ -0,0 +1,625 @@
+package com.game.config;
+
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Сжатие ответов gzip или deflate - что клиент предпочёл в Accept-Encoding (при равенстве gzip).
+// Сжимаются только ответы с типами из compression.mimeTypes и не меньше compression.minSize байт:
+// пока ответ меньше порога, он копится в буфере, и если так и не дорос - уходит как есть, с Content-Length.
+// Deflater-ы и буферы берутся из пулов и возвращаются в них после ответа.
+// Для подбора порога копится статистика по размерам ответов: степень сжатия и процессорное время (/rest/metrics/compression).
+public class CompressionFilter implements Filter {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    private static final int CHUNK_SIZE = 8192;
+    // Заголовок gzip (RFC 1952) без имени файла и времени, как у GZIPOutputStream.
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+    // Верхние границы корзин по размеру ответа до сжатия (в байтах); последняя корзина - всё, что больше.
+    static final int[] SIZE_BUCKETS_BYTES = {512, 1024, 2048, 4096, 8192, 16384, 65536, 262144, 1048576};
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final Set<String> mimeTypes = new HashSet<>();
+    private final BlockingQueue<Deflater> gzipDeflaters;
+    private final BlockingQueue<Deflater> deflateDeflaters;
+    private final BlockingQueue<byte[]> buffers;
+    private final int bufferSize;
+
+    private final SizeBucket[] buckets = new SizeBucket[SIZE_BUCKETS_BYTES.length + 1];
+    private final LongAdder skippedSmall = new LongAdder();
+    private final LongAdder skippedType = new LongAdder();
+    private final LongAdder gzipResponses = new LongAdder();
+    private final LongAdder deflateResponses = new LongAdder();
+
+    public CompressionFilter(boolean enabled, int minSize, int level, String[] mimeTypes, int poolSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        for (String mimeType : mimeTypes) {
+            if (!mimeType.trim().isEmpty()) {
+                this.mimeTypes.add(mimeType.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.gzipDeflaters = new ArrayBlockingQueue<>(poolSize);
+        this.deflateDeflaters = new ArrayBlockingQueue<>(poolSize);
+        // На ответ берётся не больше двух буферов: под ещё не сжатое начало и под сжатые данные.
+        this.buffers = new ArrayBlockingQueue<>(2 * poolSize);
+        this.bufferSize = Math.max(minSize, CHUNK_SIZE);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new SizeBucket();
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String encoding = enabled && !"HEAD".equals(httpRequest.getMethod()) ? negotiate(httpRequest.getHeaders("Accept-Encoding")) : null;
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // При асинхронной обработке Spring MVC пишет ответ в повторном (ASYNC) проходе через фильтры
+        // в тот же ответ, что был передан в startAsync - то есть в уже созданную обёртку.
+        CompressingResponse compressingResponse = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        boolean wrapped = compressingResponse == null;
+        if (wrapped) {
+            compressingResponse = new CompressingResponse((HttpServletResponse) response, encoding);
+        }
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapped ? compressingResponse : response);
+            completed = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Дописывать будет следующий проход; слушатель вернёт ресурсы в пулы, если его не будет.
+                if (wrapped) {
+                    request.getAsyncContext().addListener(new ReleasingListener(compressingResponse));
+                }
+            } else if (completed) {
+                compressingResponse.finish();
+            } else {
+                compressingResponse.release();
+            }
+        }
+    }
+
+    //   Выбор кодировки по Accept-Encoding: gzip или deflate с наибольшим q > 0, при равенстве - gzip.
+    // "*" относится к тем из них, что не названы явно. null - сжимать нельзя.
+    static String negotiate(Enumeration<String> acceptEncodings) {
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        while (acceptEncodings != null && acceptEncodings.hasMoreElements()) {
+            for (String item : acceptEncodings.nextElement().split(",")) {
+                String[] parts = item.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                double q = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            q = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException nfe) {
+                            q = 0;
+                        }
+                    }
+                }
+                if (name.equals(GZIP) || name.equals("x-gzip")) {
+                    gzip = q;
+                } else if (name.equals(DEFLATE)) {
+                    deflate = q;
+                } else if (name.equals("*")) {
+                    any = q;
+                }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    public CompressionStatistics getStatistics() {
+        List<CompressionStatistics.SizeBucket> sizes = new ArrayList<>();
+        for (int i = 0; i < buckets.length; i++) {
+            sizes.add(buckets[i].snapshot(i < SIZE_BUCKETS_BYTES.length ? SIZE_BUCKETS_BYTES[i] : null));
+        }
+        return new CompressionStatistics(enabled, minSize, level,
+                gzipResponses.sum(), deflateResponses.sum(), skippedSmall.sum(), skippedType.sum(),
+                gzipDeflaters.size() + deflateDeflaters.size(), buffers.size(), sizes);
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+        return mimeTypes.contains(mimeType) || mimeType.endsWith("+json") && mimeTypes.contains("application/json");
+    }
+
+    private Deflater acquireDeflater(boolean gzip) {
+        Deflater deflater = (gzip ? gzipDeflaters : deflateDeflaters).poll();
+        // gzip - "сырой" deflate со своими заголовком и CRC, deflate в HTTP - формат zlib (RFC 1950).
+        return deflater != null ? deflater : new Deflater(level, gzip);
+    }
+
+    private void releaseDeflater(Deflater deflater, boolean gzip) {
+        deflater.reset();
+        if (!(gzip ? gzipDeflaters : deflateDeflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private byte[] acquireBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        if (buffer != null) {
+            buffers.offer(buffer);
+        }
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void record(String encoding, long bytesIn, long bytesOut, long cpuNanos) {
+        (GZIP.equals(encoding) ? gzipResponses : deflateResponses).increment();
+        int bucket = 0;
+        while (bucket < SIZE_BUCKETS_BYTES.length && bytesIn > SIZE_BUCKETS_BYTES[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].add(bytesIn, bytesOut, cpuNanos);
+    }
+
+    private static class SizeBucket {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+
+        void add(long in, long out, long cpu) {
+            responses.increment();
+            bytesIn.add(in);
+            bytesOut.add(out);
+            cpuNanos.add(cpu);
+        }
+
+        CompressionStatistics.SizeBucket snapshot(Integer upToBytes) {
+            long count = responses.sum();
+            long in = bytesIn.sum();
+            return new CompressionStatistics.SizeBucket(upToBytes, count, in, bytesOut.sum(),
+                    in == 0 ? 0 : (double) bytesOut.sum() / in,
+                    count == 0 ? 0 : cpuNanos.sum() / 1000.0 / count);
+        }
+    }
+
+    private static class ReleasingListener implements AsyncListener {
+        private final CompressingResponse response;
+
+        ReleasingListener(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            response.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private enum State {
+        // Ответ копится в буфере, пока не станет ясно, сжимать ли его.
+        BUFFERING,
+        // Не сжимается - пишется прямо в ответ.
+        PASS_THROUGH,
+        COMPRESSING,
+        FINISHED
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private final boolean gzip;
+        private final CompressingStream stream = new CompressingStream();
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+            this.gzip = GZIP.equals(encoding);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // Длину знает только фильтр: у сжатого ответа её нет, у несжатого она передаётся как есть.
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (stream.state == State.PASS_THROUGH) {
+                super.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            stream.restart(false);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+            stream.restart(true);
+        }
+
+        // Тело ошибки и редиректа - дело контейнера, сжимать там нечего.
+        @Override
+        public void sendError(int sc) throws IOException {
+            stream.abandon();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stream.abandon();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stream.abandon();
+            super.sendRedirect(location);
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+
+        // Ответ не дописан (исключение) или уже закрыт: ресурсы возвращаются в пулы без записи.
+        void release() {
+            stream.release();
+        }
+
+        private class CompressingStream extends ServletOutputStream {
+            private State state = State.BUFFERING;
+            private byte[] pending;
+            private int pendingCount;
+            private ServletOutputStream out;
+            private Deflater deflater;
+            private byte[] chunk;
+            private final CRC32 crc = new CRC32();
+            private long bytesIn;
+            private long bytesOut;
+            private long cpuNanos;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                switch (state) {
+                    case BUFFERING:
+                        if (pending == null) {
+                            if (!isCompressible(getContentType()) || getStatus() == HttpServletResponse.SC_NO_CONTENT
+                                    || getStatus() == HttpServletResponse.SC_NOT_MODIFIED || containsHeader("Content-Encoding")) {
+                                skippedType.increment();
+                                passThrough();
+                                out.write(b, off, len);
+                                return;
+                            }
+                            pending = acquireBuffer();
+                        }
+                        if (pendingCount + len < minSize) {
+                            System.arraycopy(b, off, pending, pendingCount, len);
+                            pendingCount += len;
+                            return;
+                        }
+                        startCompressing();
+                        deflate(b, off, len);
+                        return;
+                    case PASS_THROUGH:
+                        out().write(b, off, len);
+                        return;
+                    case COMPRESSING:
+                        deflate(b, off, len);
+                        return;
+                    default:
+                        throw new IOException("Response is already finished!");
+                }
+            }
+
+            //   Пока ответ не дорос до порога, flush ничего не отправляет: конвертеры сообщений сбрасывают поток
+            // в конце каждого ответа, и иначе порог бы не работал. Задержка - не больше compression.minSize байт.
+            @Override
+            public void flush() throws IOException {
+                if (state == State.PASS_THROUGH) {
+                    out().flush();
+                } else if (state == State.COMPRESSING) {
+                    long started = cpuTime();
+                    int written;
+                    do {
+                        written = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                        writeChunk(written);
+                    } while (written == chunk.length);
+                    cpuNanos += cpuTime() - started;
+                    out.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                return out == null || out.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            //   Тело сброшено до отправки. Сжатие начинается заново, если заголовки остались (resetBuffer),
+            // а после reset( ) - и решение, сжимать ли, принимается заново.
+            void restart(boolean headersReset) {
+                if (state == State.COMPRESSING && !headersReset) {
+                    deflater.reset();
+                    bytesIn = 0;
+                    bytesOut = 0;
+                    if (gzip) {
+                        crc.reset();
+                        try {
+                            out.write(GZIP_HEADER);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        bytesOut += GZIP_HEADER.length;
+                    }
+                } else if (state != State.FINISHED) {
+                    release();
+                    state = State.BUFFERING;
+                    pendingCount = 0;
+                    out = null;
+                }
+            }
+
+            void abandon() {
+                release();
+                state = State.PASS_THROUGH;
+                out = null;
+            }
+
+            private ServletOutputStream out() throws IOException {
+                if (out == null) {
+                    out = getResponse().getOutputStream();
+                }
+                return out;
+            }
+
+            private void passThrough() throws IOException {
+                state = State.PASS_THROUGH;
+                if (contentLength >= 0) {
+                    CompressingResponse.super.setContentLengthLong(contentLength);
+                }
+                out = getResponse().getOutputStream();
+            }
+
+            private void startCompressing() throws IOException {
+                state = State.COMPRESSING;
+                CompressingResponse.super.setHeader("Content-Encoding", encoding);
+                CompressingResponse.super.addHeader("Vary", "Accept-Encoding");
+                // Сильный ETag обещает те же байты, что и без сжатия, - у сжатого ответа он становится слабым.
+                String eTag = getHeader("ETag");
+                if (eTag != null && eTag.startsWith("\"")) {
+                    CompressingResponse.super.setHeader("ETag", "W/" + eTag);
+                }
+                out = getResponse().getOutputStream();
+                deflater = acquireDeflater(gzip);
+                chunk = acquireBuffer();
+                if (gzip) {
+                    crc.reset();
+                    out.write(GZIP_HEADER);
+                    bytesOut += GZIP_HEADER.length;
+                }
+                byte[] buffered = pending;
+                int count = pendingCount;
+                pending = null;
+                deflate(buffered, 0, count);
+                releaseBuffer(buffered);
+            }
+
+            private void deflate(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return;
+                }
+                long started = cpuTime();
+                if (gzip) {
+                    crc.update(b, off, len);
+                }
+                bytesIn += len;
+                deflater.setInput(b, off, len);
+                while (!deflater.needsInput()) {
+                    writeChunk(deflater.deflate(chunk, 0, chunk.length, Deflater.NO_FLUSH));
+                }
+                cpuNanos += cpuTime() - started;
+            }
+
+            private void writeChunk(int length) throws IOException {
+                if (length > 0) {
+                    out.write(chunk, 0, length);
+                    bytesOut += length;
+                }
+            }
+
+            void finish() throws IOException {
+                try {
+                    if (state == State.BUFFERING) {
+                        if (pendingCount > 0) {
+                            skippedSmall.increment();
+                            state = State.PASS_THROUGH;
+                            CompressingResponse.super.setContentLengthLong(pendingCount);
+                            getResponse().getOutputStream().write(pending, 0, pendingCount);
+                        } else if (contentLength >= 0) {
+                            CompressingResponse.super.setContentLengthLong(contentLength);
+                        }
+                    } else if (state == State.COMPRESSING) {
+                        long started = cpuTime();
+                        deflater.finish();
+                        while (!deflater.finished()) {
+                            writeChunk(deflater.deflate(chunk, 0, chunk.length));
+                        }
+                        if (gzip) {
+                            writeTrailer();
+                        }
+                        cpuNanos += cpuTime() - started;
+                        out.flush();
+                        record(encoding, bytesIn, bytesOut, cpuNanos);
+                    }
+                } finally {
+                    release();
+                }
+            }
+
+            // CRC32 и длина несжатых данных (по модулю 2^32), little-endian - как в GZIPOutputStream.
+            private void writeTrailer() throws IOException {
+                long crcValue = crc.getValue();
+                long size = bytesIn;
+                for (int i = 0; i < 4; i++) {
+                    chunk[i] = (byte) (crcValue >> (8 * i));
+                    chunk[4 + i] = (byte) (size >> (8 * i));
+                }
+                writeChunk(8);
+            }
+
+            void release() {
+                state = State.FINISHED;
+                releaseBuffer(pending);
+                pending = null;
+                releaseBuffer(chunk);
+                chunk = null;
+                if (deflater != null) {
+                    releaseDeflater(deflater, gzip);
+                    deflater = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.game.config;
+
+import java.util.List;
+
+// Снимок статистики сжатия ответов (отдаётся как JSON через /rest/metrics/compression).
+// sizes - сжатые ответы по размеру до сжатия: сколько их, во сколько раз они уменьшились и сколько процессорного
+// времени в среднем ушло на один ответ. По ним видно, с какого размера сжатие окупается, - это и есть compression.minSize.
+public class CompressionStatistics {
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final long gzipResponses;
+    private final long deflateResponses;
+    private final long skippedBelowMinSize;
+    private final long skippedByContentType;
+    private final int pooledDeflaters;
+    private final int pooledBuffers;
+    private final List<SizeBucket> sizes;
+
+    public CompressionStatistics(boolean enabled, int minSize, int level,
+                                 long gzipResponses, long deflateResponses,
+                                 long skippedBelowMinSize, long skippedByContentType,
+                                 int pooledDeflaters, int pooledBuffers,
+                                 List<SizeBucket> sizes) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        this.gzipResponses = gzipResponses;
+        this.deflateResponses = deflateResponses;
+        this.skippedBelowMinSize = skippedBelowMinSize;
+        this.skippedByContentType = skippedByContentType;
+        this.pooledDeflaters = pooledDeflaters;
+        this.pooledBuffers = pooledBuffers;
+        this.sizes = sizes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getGzipResponses() {
+        return gzipResponses;
+    }
+
+    public long getDeflateResponses() {
+        return deflateResponses;
+    }
+
+    public long getSkippedBelowMinSize() {
+        return skippedBelowMinSize;
+    }
+
+    public long getSkippedByContentType() {
+        return skippedByContentType;
+    }
+
+    public int getPooledDeflaters() {
+        return pooledDeflaters;
+    }
+
+    public int getPooledBuffers() {
+        return pooledBuffers;
+    }
+
+    public List<SizeBucket> getSizes() {
+        return sizes;
+    }
+
+    // upToBytes - верхняя граница корзины (null - без границы), ratio - сжатый размер к исходному.
+    public static class SizeBucket {
+        private final Integer upToBytes;
+        private final long responses;
+        private final long bytesIn;
+        private final long bytesOut;
+        private final double ratio;
+        private final double meanCpuMicros;
+
+        public SizeBucket(Integer upToBytes, long responses, long bytesIn, long bytesOut, double ratio, double meanCpuMicros) {
+            this.upToBytes = upToBytes;
+            this.responses = responses;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.ratio = ratio;
+            this.meanCpuMicros = meanCpuMicros;
+        }
+
+        public Integer getUpToBytes() {
+            return upToBytes;
+        }
+
+        public long getResponses() {
+            return responses;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public double getMeanCpuMicros() {
+            return meanCpuMicros;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.game.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Собирает статистику по всем пулам соединений, созданным в AppConfig.
+// Hikari сам вызывает create(...) для каждого пула, которому назначена эта фабрика.
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    // Верхние границы корзин гистограммы времени получения соединения (в миллисекундах).
+    static final double[] ACQUIRE_BUCKETS_MILLIS = {0.1, 0.5, 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+    private final Map<String, PoolTracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    public List<ConnectionPoolStatistics> getStatistics() {
+        List<ConnectionPoolStatistics> result = new ArrayList<>();
+        trackers.forEach((poolName, tracker) -> result.add(tracker.snapshot(poolName)));
+        return result;
+    }
+
+    public int getActiveConnections(String poolName) {
+        PoolTracker tracker = trackers.get(poolName);
+        return tracker == null ? 0 : tracker.poolStats.getActiveConnections();
+    }
+
+    static class PoolTracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final AtomicLongArray acquireBuckets = new AtomicLongArray(ACQUIRE_BUCKETS_MILLIS.length + 1);
+        private final LongAdder acquireCount = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder created = new LongAdder();
+
+        PoolTracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            double millis = elapsedAcquiredNanos / 1_000_000.0;
+            int bucket = 0;
+            while (bucket < ACQUIRE_BUCKETS_MILLIS.length && millis > ACQUIRE_BUCKETS_MILLIS[bucket]) {
+                bucket++;
+            }
+            acquireBuckets.incrementAndGet(bucket);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        ConnectionPoolStatistics snapshot(String poolName) {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < ACQUIRE_BUCKETS_MILLIS.length; i++) {
+                histogram.put("<=" + ACQUIRE_BUCKETS_MILLIS[i] + "ms", acquireBuckets.get(i));
+            }
+            histogram.put(">" + ACQUIRE_BUCKETS_MILLIS[ACQUIRE_BUCKETS_MILLIS.length - 1] + "ms",
+                    acquireBuckets.get(ACQUIRE_BUCKETS_MILLIS.length));
+
+            long count = acquireCount.sum();
+            return new ConnectionPoolStatistics(
+                    poolName,
+                    poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getPendingThreads(),
+                    poolStats.getMaxConnections(),
+                    created.sum(),
+                    timeouts.sum(),
+                    count,
+                    count == 0 ? 0 : acquireNanos.sum() / count / 1_000_000.0,
+                    histogram);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.config;
+
+import java.util.Map;
+
+// Снимок состояния одного пула соединений (отдаётся как JSON через /rest/metrics/pools).
+public class ConnectionPoolStatistics {
+    private final String poolName;
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiting;
+    private final int maximum;
+    private final long connectionsCreated;
+    private final long acquireTimeouts;
+    private final long acquireCount;
+    private final double acquireMeanMillis;
+    private final Map<String, Long> acquireHistogram;
+
+    public ConnectionPoolStatistics(String poolName,
+                                    int active, int idle, int total, int waiting, int maximum,
+                                    long connectionsCreated, long acquireTimeouts,
+                                    long acquireCount, double acquireMeanMillis,
+                                    Map<String, Long> acquireHistogram) {
+        this.poolName = poolName;
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiting = waiting;
+        this.maximum = maximum;
+        this.connectionsCreated = connectionsCreated;
+        this.acquireTimeouts = acquireTimeouts;
+        this.acquireCount = acquireCount;
+        this.acquireMeanMillis = acquireMeanMillis;
+        this.acquireHistogram = acquireHistogram;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    public long getConnectionsCreated() {
+        return connectionsCreated;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public double getAcquireMeanMillis() {
+        return acquireMeanMillis;
+    }
+
+    public Map<String, Long> getAcquireHistogram() {
+        return acquireHistogram;
+    }
+}
@@ -1,7 +1,10 @@
 package com.game.config;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -10,7 +13,8 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
         super.onStartup(servletContext);
-        servletContext.setInitParameter("spring.profiles.active", "prod");
+        // Дополнительные профили (например, columnar) можно включить через -Dspring.profiles.active=prod,columnar
+        servletContext.setInitParameter("spring.profiles.active", System.getProperty("spring.profiles.active", "prod"));
     }
 
     @Override
@@ -28,4 +32,19 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    //   По умолчанию и так true, но на этом держится PlayerController (DeferredResult): без асинхронной поддержки
+    // у сервлета и фильтров запрос упадёт. Фильтры при этом вызываются и при повторной (ASYNC) диспетчеризации.
+    @Override
+    protected boolean isAsyncSupported() {
+        return true;
+    }
+
+    @Override
+    protected Filter[] getServletFilters() {
+        // Сжатие - бин из AppConfig (настройки и статистика), прокси находит его при первом запросе.
+        // ResourceUrlEncodingFilter подменяет в encodeURL (<c:url> в index.jsp) адреса статики на адреса с хэшем.
+        return new Filter[]{new ClientContextFilter(), new DelegatingFilterProxy("compressionFilter"),
+                new ResourceUrlEncodingFilter()};
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package com.game.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Запись Player и List<Player> в JSON прямо в поток ответа - без ObjectMapper, рефлексии и промежуточных объектов.
+// Имена полей закодированы заранее, числа и строки пишутся в буфер байт за байтом.
+// Вывод побайтно совпадает с тем, что пишет Jackson-конвертер из WebConfig: поля в порядке объявления,
+// birthday - миллисекунды, null - null, те же escape-последовательности.
+// Игрок, у которого геттеры подставили бы значения по умолчанию (см. Player.areLazyFieldsSet), пишется через ObjectMapper.
+// Чтение JSON остаётся за Jackson-конвертером: canRead всегда false, а если read всё же вызван - тело не читается,
+// и клиент получает 400, как на любое тело, которое не удалось разобрать.
+public class PlayerJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    private static final int BUFFER_SIZE = 8192;
+    // Запас места на один ensure(): escape-последовательность из 6 байт или число (до 20 знаков).
+    private static final int MAX_CHUNK = 20;
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] TITLE = ascii(",\"title\":");
+    private static final byte[] RACE = ascii(",\"race\":");
+    private static final byte[] PROFESSION = ascii(",\"profession\":");
+    private static final byte[] EXPERIENCE = ascii(",\"experience\":");
+    private static final byte[] LEVEL = ascii(",\"level\":");
+    private static final byte[] UNTIL_NEXT_LEVEL = ascii(",\"untilNextLevel\":");
+    private static final byte[] BIRTHDAY = ascii(",\"birthday\":");
+    private static final byte[] BANNED = ascii(",\"banned\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[][] RACES = quoted(Race.values());
+    private static final byte[][] PROFESSIONS = quoted(Profession.values());
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // Буфер на поток, как BufferRecycler у Jackson: запрос не выделяет новый.
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final ObjectMapper objectMapper;
+
+    public PlayerJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Player.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    // type - объявленный тип тела (из ResponseEntity<...>), clazz - класс самого значения.
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (type == null || type == clazz) {
+            return clazz == Player.class;
+        }
+        if (type == Player.class) {
+            return clazz == Player.class;
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            return parameterized.getRawType() instanceof Class
+                    && List.class.isAssignableFrom((Class<?>) parameterized.getRawType())
+                    && parameterized.getActualTypeArguments()[0] == Player.class
+                    && List.class.isAssignableFrom(clazz);
+        }
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        JsonBuffer json = new JsonBuffer(outputMessage.getBody());
+        if (value instanceof Player) {
+            writePlayer(json, (Player) value);
+        } else {
+            List<?> players = (List<?>) value;
+            json.put((byte) '[');
+            for (int i = 0; i < players.size(); i++) {
+                if (i > 0) {
+                    json.put((byte) ',');
+                }
+                writePlayer(json, (Player) players.get(i));
+            }
+            json.put((byte) ']');
+        }
+        json.flush();
+    }
+
+    private void writePlayer(JsonBuffer json, Player player) throws IOException {
+        if (player == null) {
+            json.put(NULL);
+            return;
+        }
+        if (!player.areLazyFieldsSet()) {
+            json.put(objectMapper.writeValueAsBytes(player));
+            return;
+        }
+        json.put(ID);
+        json.number(player.getId());
+        json.put(NAME);
+        json.string(player.getName());
+        json.put(TITLE);
+        json.string(player.getTitle());
+        json.put(RACE);
+        json.put(player.getRace() == null ? NULL : RACES[player.getRace().ordinal()]);
+        json.put(PROFESSION);
+        json.put(player.getProfession() == null ? NULL : PROFESSIONS[player.getProfession().ordinal()]);
+        json.put(EXPERIENCE);
+        json.number(player.getExperience().longValue());
+        json.put(LEVEL);
+        json.number(player.getLevel().longValue());
+        json.put(UNTIL_NEXT_LEVEL);
+        json.number(player.getUntilNextLevel().longValue());
+        json.put(BIRTHDAY);
+        json.number(player.getBirthday().getTime());
+        json.put(BANNED);
+        json.put(player.getBanned() == null ? NULL : player.getBanned() ? TRUE : FALSE);
+        json.put((byte) '}');
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Players are read by the Jackson converter!", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Players are read by the Jackson converter!", inputMessage);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] quoted(Enum<?>[] values) {
+        byte[][] result = new byte[values.length][];
+        for (Enum<?> value : values) {
+            result[value.ordinal()] = ascii('"' + value.name() + '"');
+        }
+        return result;
+    }
+
+    private static class JsonBuffer {
+        private final OutputStream out;
+        private final byte[] buffer = BUFFERS.get();
+        private int position;
+
+        JsonBuffer(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length) {
+                drain();
+                out.write(bytes);
+                return;
+            }
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void number(Long value) throws IOException {
+            if (value == null) {
+                put(NULL);
+            } else {
+                number(value.longValue());
+            }
+        }
+
+        void number(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                put(ascii(Long.toString(value)));
+                return;
+            }
+            ensure(MAX_CHUNK);
+            if (value < 0) {
+                buffer[position++] = '-';
+                value = -value;
+            }
+            int start = position;
+            do {
+                buffer[position++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = position - 1; i < j; i++, j--) {
+                byte digit = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = digit;
+            }
+        }
+
+        // UTF-8; экранируются, как у Jackson, кавычка, \, управляющие символы (< 0x20) и суррогаты.
+        void string(String value) throws IOException {
+            if (value == null) {
+                put(NULL);
+                return;
+            }
+            put((byte) '"');
+            for (int i = 0; i < value.length(); i++) {
+                ensure(MAX_CHUNK);
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        buffer[position++] = (byte) c;
+                    } else {
+                        escape(c);
+                    }
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (!Character.isSurrogate(c)) {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    // Как UTF8JsonGenerator: символы вне BMP - двумя escape-последовательностями, по одной на каждую половину суррогатной пары.
+                    unicodeEscape(c);
+                }
+            }
+            put((byte) '"');
+        }
+
+        private void escape(char c) {
+            switch (c) {
+                case '"':
+                case '\\':
+                    shortEscape((byte) c);
+                    return;
+                case '\b':
+                    shortEscape((byte) 'b');
+                    return;
+                case '\t':
+                    shortEscape((byte) 't');
+                    return;
+                case '\n':
+                    shortEscape((byte) 'n');
+                    return;
+                case '\f':
+                    shortEscape((byte) 'f');
+                    return;
+                case '\r':
+                    shortEscape((byte) 'r');
+                    return;
+                default:
+                    unicodeEscape(c);
+            }
+        }
+
+        private void shortEscape(byte c) {
+            buffer[position++] = '\\';
+            buffer[position++] = c;
+        }
+
+        private void unicodeEscape(char c) {
+            buffer[position++] = '\\';
+            buffer[position++] = 'u';
+            buffer[position++] = HEX[c >> 12];
+            buffer[position++] = HEX[(c >> 8) & 0xF];
+            buffer[position++] = HEX[(c >> 4) & 0xF];
+            buffer[position++] = HEX[c & 0xF];
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.game.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Пишущие транзакции идут в основную БД, read-only (у PlayerService это все методы, кроме insert/update/deleteById) - на реплики.
+// Должен быть обёрнут в LazyConnectionDataSourceProxy: флаг readOnly выставляется уже после того,
+// как JpaTransactionManager запросил соединение, а реальное соединение нужно брать только к первому запросу.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    public enum ReplicaSelection {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private final List<String> replicaNames;
+    private final ReplicaSelection replicaSelection;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary,
+                                      ReplicaDataSources replicas,
+                                      ReplicaSelection replicaSelection,
+                                      ReadYourWritesTracker readYourWritesTracker,
+                                      ConnectionPoolMetrics connectionPoolMetrics) {
+        this.replicaNames = new ArrayList<>(replicas.getDataSources().keySet());
+        this.replicaSelection = replicaSelection;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+
+        Map<Object, Object> targets = new HashMap<>(replicas.getDataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String clientId = ClientContext.getClientId();
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaNames.isEmpty() || readYourWritesTracker.hasRecentWrite(clientId)) {
+                return PRIMARY;
+            }
+            return selectReplica();
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            readYourWritesTracker.registerWrite(clientId);
+            if (clientId != null && readYourWritesTracker.isEnabled()
+                    && TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Отсчёт окна ведём от момента коммита, а не от начала транзакции.
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWritesTracker.registerWrite(clientId);
+                    }
+                });
+            }
+        }
+        return PRIMARY;
+    }
+
+    private String selectReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicaNames.size());
+        if (replicaSelection == ReplicaSelection.ROUND_ROBIN) {
+            return replicaNames.get(start);
+        }
+
+        String selected = null;
+        int minActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicaNames.size(); i++) {
+            String name = replicaNames.get((start + i) % replicaNames.size());
+            int active = connectionPoolMetrics.getActiveConnections(name);
+            if (active < minActive) {
+                minActive = active;
+                selected = name;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,51 @@
+package com.game.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Помнит, когда клиент в последний раз что-то записал в основную БД.
+// Пока не прошло windowMillis, его чтения идут в основную БД, а не на реплику, которая могла ещё не догнать.
+public class ReadYourWritesTracker {
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long windowMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    public void registerWrite(String clientId) {
+        if (!isEnabled() || clientId == null) {
+            return;
+        }
+        if (lastWrites.size() > CLEANUP_THRESHOLD) {
+            removeExpired();
+        }
+        lastWrites.put(clientId, System.currentTimeMillis());
+    }
+
+    public boolean hasRecentWrite(String clientId) {
+        if (!isEnabled() || clientId == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(clientId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastWrite > windowMillis) {
+            lastWrites.remove(clientId, lastWrite);
+            return false;
+        }
+        return true;
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        lastWrites.entrySet().removeIf(entry -> now - entry.getValue() > windowMillis);
+    }
+}
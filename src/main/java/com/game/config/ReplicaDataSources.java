@@ -0,0 +1,32 @@
+package com.game.config;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Набор реплик (имя пула -> DataSource), куда уходят read-only транзакции.
+public class ReplicaDataSources implements AutoCloseable {
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+
+    public void add(String name, DataSource dataSource) {
+        dataSources.put(name, dataSource);
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    public boolean isEmpty() {
+        return dataSources.isEmpty();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+}
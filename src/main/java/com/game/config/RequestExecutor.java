@@ -0,0 +1,219 @@
+package com.game.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//   Выполняет обработку запросов на своём пуле потоков с ограниченной очередью, а поток контейнера сразу
+// возвращается в пул (см. PlayerController). Если очередь полна или ответ не готов за timeoutMillis - 503.
+//   Задача, не дождавшаяся потока до таймаута, не выполняется вовсе. Уже начатая - доводится до конца
+// (прерывать JDBC-вызов небезопасно), но её результат клиенту не отправляется.
+//   enabled = false - задача выполняется сразу в потоке контейнера, как без этого класса.
+//   virtualThreads = true (JDK 21+, пока экспериментально - см. async.virtualThreads) - пула нет: каждая задача
+// сразу получает свой виртуальный поток, а queueCapacity ограничивает число задач в работе. Задачи тогда ждут
+// не поток, а соединение, и число одновременных обращений к БД ограничивает пул соединений (его ожидание
+// не занимает поток ОС, пока драйвер и пул не держат монитор).
+public class RequestExecutor {
+
+    // Верхние границы корзин гистограммы ожидания в очереди (в миллисекундах).
+    static final double[] WAIT_BUCKETS_MILLIS = {0.1, 0.5, 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 5000};
+
+    private final String name;
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+    private final ExecutorService executor;
+    // Пул потоков; null, если у каждой задачи свой виртуальный поток.
+    private final ThreadPoolExecutor threadPool;
+    // С виртуальными потоками - сколько ещё задач можно принять; null с пулом (там это ограничивает очередь).
+    private final Semaphore inFlightPermits;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLongArray waitBuckets = new AtomicLongArray(WAIT_BUCKETS_MILLIS.length + 1);
+
+    public RequestExecutor(String name, boolean enabled, boolean virtualThreads, int threads, int queueCapacity,
+                           long timeoutMillis) {
+        this.name = name;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.virtualThreads = virtualThreads;
+        if (virtualThreads) {
+            this.threadPool = null;
+            this.executor = VirtualThreads.newThreadPerTaskExecutor(name + "-virtual-");
+            this.inFlightPermits = new Semaphore(queueCapacity);
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.threadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = threadPool;
+        this.inFlightPermits = null;
+    }
+
+    public <T> DeferredResult<T> submit(Callable<T> task) {
+        return submit(task, timeoutMillis);
+    }
+
+    // Со своим таймаутом; timeoutMillis <= 0 - без таймаута (для выгрузки и загрузки, которые идут сколько идут).
+    public <T> DeferredResult<T> submit(Callable<T> task, long timeoutMillis) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis > 0 ? timeoutMillis : -1,
+                () -> new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        if (!enabled) {
+            complete(result, task);
+            return result;
+        }
+
+        if (inFlightPermits != null && !inFlightPermits.tryAcquire()) {
+            rejected.increment();
+            result.setErrorResult(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+            return result;
+        }
+        String clientId = ClientContext.getClientId();
+        long queuedAt = System.nanoTime();
+        // Кто первым выставит флаг - задача, начиная работу, или таймаут, пока она ещё ждёт, - тот её и учитывает.
+        AtomicBoolean taskStarted = new AtomicBoolean();
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                if (!taskStarted.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    long startedAt = System.nanoTime();
+                    recordWait(startedAt - queuedAt);
+                    if (result.isSetOrExpired()) {
+                        skipped.increment();
+                        return;
+                    }
+                    started.increment();
+                    ClientContext.setClientId(clientId);
+                    try {
+                        complete(result, task);
+                    } finally {
+                        ClientContext.clear();
+                        runNanos.add(System.nanoTime() - startedAt);
+                    }
+                } finally {
+                    releaseInFlight();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releaseInFlight();
+            rejected.increment();
+            result.setErrorResult(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+            return result;
+        }
+        submitted.increment();
+        result.onTimeout(() -> {
+            timedOut.increment();
+            // Ещё в очереди (или виртуальный поток ещё не запущен) - убирается и не выполняется.
+            // Уже начатая задача выполняется до конца и считается в started, а не в skipped.
+            if (taskStarted.compareAndSet(false, true)) {
+                skipped.increment();
+                // Задача, проигравшая флаг, место не освобождает (даже если её поток уже запущен) - это делается здесь.
+                future.cancel(false);
+                releaseInFlight();
+                if (threadPool != null) {
+                    threadPool.purge();
+                }
+            }
+        });
+        return result;
+    }
+
+    private void releaseInFlight() {
+        if (inFlightPermits != null) {
+            inFlightPermits.release();
+        }
+    }
+
+    private static <T> void complete(DeferredResult<T> result, Callable<T> task) {
+        try {
+            result.setResult(task.call());
+        } catch (Exception e) {
+            // Исключение обрабатывается так же, как брошенное из метода контроллера.
+            result.setErrorResult(e);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulate(nanos);
+        double millis = nanos / 1_000_000.0;
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MILLIS.length && millis > WAIT_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        waitBuckets.incrementAndGet(bucket);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RequestExecutorStatistics getStatistics() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long dequeued = 0;
+        for (int i = 0; i < WAIT_BUCKETS_MILLIS.length; i++) {
+            histogram.put("<=" + WAIT_BUCKETS_MILLIS[i] + "ms", waitBuckets.get(i));
+            dequeued += waitBuckets.get(i);
+        }
+        histogram.put(">" + WAIT_BUCKETS_MILLIS[WAIT_BUCKETS_MILLIS.length - 1] + "ms",
+                waitBuckets.get(WAIT_BUCKETS_MILLIS.length));
+        dequeued += waitBuckets.get(WAIT_BUCKETS_MILLIS.length);
+
+        long startedCount = started.sum();
+        return new RequestExecutorStatistics(
+                name,
+                enabled,
+                virtualThreads,
+                // С виртуальными потоками потоков столько, сколько задач в работе, и очереди нет.
+                threadPool != null ? threadPool.getMaximumPoolSize() : queueCapacity,
+                threadPool != null ? threadPool.getActiveCount() : queueCapacity - inFlightPermits.availablePermits(),
+                threadPool != null ? threadPool.getQueue().size() : 0,
+                queueCapacity,
+                submitted.sum(),
+                rejected.sum(),
+                timedOut.sum(),
+                skipped.sum(),
+                dequeued == 0 ? 0 : waitNanos.sum() / dequeued / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                startedCount == 0 ? 0 : runNanos.sum() / startedCount / 1_000_000.0,
+                histogram);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
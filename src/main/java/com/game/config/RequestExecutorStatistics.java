@@ -0,0 +1,108 @@
+package com.game.config;
+
+import java.util.Map;
+
+// Снимок состояния пула потоков RequestExecutor (отдаётся как JSON через /rest/metrics/executors).
+// queued - сколько запросов сейчас ждут потока, waitHistogram - сколько ждали выполненные (в миллисекундах).
+// skipped - запросы, у которых таймаут истёк раньше, чем нашёлся поток: они так и не выполнялись.
+// virtualThreads - у каждого запроса свой виртуальный поток: threads тогда - сколько запросов может быть в работе,
+// active - сколько их сейчас (включая ждущих соединения), queued всегда 0.
+public class RequestExecutorStatistics {
+    private final String name;
+    private final boolean enabled;
+    private final boolean virtualThreads;
+    private final int threads;
+    private final int active;
+    private final int queued;
+    private final int queueCapacity;
+    private final long submitted;
+    private final long rejected;
+    private final long timedOut;
+    private final long skipped;
+    private final double waitMeanMillis;
+    private final double waitMaxMillis;
+    private final double runMeanMillis;
+    private final Map<String, Long> waitHistogram;
+
+    public RequestExecutorStatistics(String name, boolean enabled, boolean virtualThreads,
+                                     int threads, int active, int queued, int queueCapacity,
+                                     long submitted, long rejected, long timedOut, long skipped,
+                                     double waitMeanMillis, double waitMaxMillis, double runMeanMillis,
+                                     Map<String, Long> waitHistogram) {
+        this.name = name;
+        this.enabled = enabled;
+        this.virtualThreads = virtualThreads;
+        this.threads = threads;
+        this.active = active;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.submitted = submitted;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+        this.skipped = skipped;
+        this.waitMeanMillis = waitMeanMillis;
+        this.waitMaxMillis = waitMaxMillis;
+        this.runMeanMillis = runMeanMillis;
+        this.waitHistogram = waitHistogram;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public double getWaitMeanMillis() {
+        return waitMeanMillis;
+    }
+
+    public double getWaitMaxMillis() {
+        return waitMaxMillis;
+    }
+
+    public double getRunMeanMillis() {
+        return runMeanMillis;
+    }
+
+    public Map<String, Long> getWaitHistogram() {
+        return waitHistogram;
+    }
+}
@@ -0,0 +1,79 @@
+package com.game.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+//   Виртуальные потоки (JDK 21+). Проект компилируется в байткод Java 8 (его читают Spring 5.2 и Hibernate 5.4),
+// поэтому Thread.ofVirtual( ) и Executors.newThreadPerTaskExecutor( ) вызываются через рефлексию.
+//   На более старой JDK isSupported( ) - false, а остальные методы бросают IllegalStateException.
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        Method isVirtual = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            isVirtual = Thread.class.getMethod("isVirtual");
+            // На JDK 19-20 это preview API: методы есть, но без --enable-preview бросают исключение.
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    // Потоки с именами prefix0, prefix1, ...
+    public static ThreadFactory factory(String prefix) {
+        Object builder = invoke(OF_VIRTUAL, null);
+        return (ThreadFactory) invoke(BUILDER_FACTORY, invoke(BUILDER_NAME, builder, prefix, 0L));
+    }
+
+    // Каждая задача - в новом виртуальном потоке, очереди нет.
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null, factory(prefix));
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        return isSupported() && (Boolean) invoke(IS_VIRTUAL, thread);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Виртуальные потоки есть только в JDK 21+, а это " + System.getProperty("java.version"));
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
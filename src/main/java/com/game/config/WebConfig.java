@@ -2,24 +2,34 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
-@ComponentScan("com.game")
+// com.game.reactive - отдельное приложение со своей конфигурацией (ReactiveConfig).
+@ComponentScan(value = "com.game", excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.game\\.reactive\\..*"))
 public class WebConfig implements WebMvcConfigurer {
 
 
@@ -37,16 +47,51 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/").setViewName("index");
     }
 
+    // Адреса статики содержат хэш содержимого (/resources/scripts-<md5>.js - их подставляет <c:url> в index.jsp
+    // через ResourceUrlEncodingFilter), поэтому браузер может хранить файлы год и не перепроверять их.
+    // Клиенту, принимающему gzip, отдаётся сжатый при сборке вариант (файл .gz рядом с исходным, см. pom.xml).
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        EncodedResourceResolver encodedResourceResolver = new EncodedResourceResolver();
+        encodedResourceResolver.setContentCodings(Collections.singletonList("gzip"));
+        registry.addResourceHandler("/resources/**")
+                .addResourceLocations("/resources/")
+                .setCacheControl(immutable(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()))
+                .resourceChain(true)
+                .addResolver(encodedResourceResolver)
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // В Spring 5.2 у CacheControl ещё нет immutable().
+    private static CacheControl immutable(CacheControl cacheControl) {
+        return new CacheControl() {
+            @Override
+            public String getHeaderValue() {
+                return cacheControl.getHeaderValue() + ", immutable";
+            }
+        };
     }
 
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
         MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        onlyFields(converter.getObjectMapper());
+        // Ответы с Player и List<Player> пишет он, остальное (и всё чтение) - Jackson.
+        converters.add(new PlayerJsonHttpMessageConverter(converter.getObjectMapper()));
         converters.add(converter);
+
+        // Двоичные форматы - те же объекты, что и в JSON, по Accept и Content-Type:
+        // application/x-jackson-smile и application/cbor. Без них (или с */*) остаётся JSON - он в списке раньше.
+        MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter();
+        onlyFields(smileConverter.getObjectMapper());
+        converters.add(smileConverter);
+        MappingJackson2CborHttpMessageConverter cborConverter = new MappingJackson2CborHttpMessageConverter();
+        onlyFields(cborConverter.getObjectMapper());
+        converters.add(cborConverter);
+    }
+
+    private static void onlyFields(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.game.controller;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.Leaderboard;
+import com.game.service.LeaderboardEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//   Таблицы лидеров по опыту. Таблица выбирается параметрами race или profession (не обоими сразу, без них - общая),
+// excludeBanned=true - без забаненных игроков. При равном опыте выше игрок с меньшим id.
+@RestController
+@RequestMapping( "/rest/leaderboard")
+public class LeaderboardController {
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final Leaderboard leaderboard;
+
+    @Autowired
+    public LeaderboardController( Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    // Места с from (с 1) по from + size - 1; в заголовке X-Total-Count - сколько всего игроков в таблице.
+    @GetMapping
+    public ResponseEntity< List< LeaderboardEntry>> getRange(
+            @RequestParam( value = "race", required = false) Race race,
+            @RequestParam( value = "profession", required = false) Profession profession,
+            @RequestParam( value = "excludeBanned", required = false, defaultValue = "false") boolean excludeBanned,
+            @RequestParam( value = "from", required = false, defaultValue = "1") long from,
+            @RequestParam( value = "size", required = false, defaultValue = "50") int size
+    ) {
+        if ( ( race != null && profession != null) || from < 1 || size < 1 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+        }
+        HttpHeaders headers = new HttpHeaders( );
+        headers.set( TOTAL_COUNT_HEADER, String.valueOf( leaderboard.size( race, profession, excludeBanned)));
+        return new ResponseEntity<>( leaderboard.range( race, profession, excludeBanned, from, size), headers, HttpStatus.OK);
+    }
+
+    // Место игрока; 404 - игрока нет или он не попадает в выбранную таблицу.
+    @GetMapping( "/players/{id}")
+    public ResponseEntity< LeaderboardEntry> getRank(
+            @PathVariable( value = "id") Long id,
+            @RequestParam( value = "race", required = false) Race race,
+            @RequestParam( value = "profession", required = false) Profession profession,
+            @RequestParam( value = "excludeBanned", required = false, defaultValue = "false") boolean excludeBanned
+    ) {
+        if ( id == null || id <= 0 || ( race != null && profession != null)) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+        }
+        LeaderboardEntry entry = leaderboard.find( id, race, profession, excludeBanned);
+        return new ResponseEntity<>( entry, entry == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.controller;
+
+import com.game.config.CompressionFilter;
+import com.game.config.CompressionStatistics;
+import com.game.config.ConnectionPoolMetrics;
+import com.game.config.ConnectionPoolStatistics;
+import com.game.config.RequestExecutor;
+import com.game.config.RequestExecutorStatistics;
+import com.game.service.CacheStatistics;
+import com.game.service.ExperienceBufferStatistics;
+import com.game.service.ExperienceEventBuffer;
+import com.game.service.MeasuredCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping( "/rest/metrics")
+public class MetricsController {
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final List< MeasuredCache> caches;
+    private final ExperienceEventBuffer experienceEventBuffer;
+    private final CompressionFilter compressionFilter;
+    private final List< RequestExecutor> requestExecutors;
+
+    @Autowired
+    public MetricsController( ConnectionPoolMetrics connectionPoolMetrics, List< MeasuredCache> caches,
+                              ExperienceEventBuffer experienceEventBuffer, CompressionFilter compressionFilter,
+                              List< RequestExecutor> requestExecutors) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.caches = caches;
+        this.experienceEventBuffer = experienceEventBuffer;
+        this.compressionFilter = compressionFilter;
+        this.requestExecutors = requestExecutors;
+    }
+
+    // Текущее состояние пулов соединений: active, idle, waiting и гистограмма времени получения соединения.
+    @GetMapping( "/pools")
+    public ResponseEntity< List< ConnectionPoolStatistics>> getPoolStatistics( ) {
+        return new ResponseEntity<>( connectionPoolMetrics.getStatistics( ), HttpStatus.OK);
+    }
+
+    // Размер, попадания/промахи и число сбросов по каждому кэшу.
+    @GetMapping( "/caches")
+    public ResponseEntity< List< CacheStatistics>> getCacheStatistics( ) {
+        List< CacheStatistics> statistics = new ArrayList<>( );
+        for ( MeasuredCache cache : caches) {
+            statistics.add( cache.getStatistics( ));
+        }
+        return new ResponseEntity<>( statistics, HttpStatus.OK);
+    }
+
+    // Буфер начислений опыта: сколько игроков ждут записи, сколько событий принято/отклонено, сколько строк записано.
+    @GetMapping( "/experience-buffer")
+    public ResponseEntity< ExperienceBufferStatistics> getExperienceBufferStatistics( ) {
+        return new ResponseEntity<>( experienceEventBuffer.getStatistics( ), HttpStatus.OK);
+    }
+
+    // Сжатие ответов: сколько сжато и пропущено, степень сжатия и процессорное время по размерам ответов.
+    @GetMapping( "/compression")
+    public ResponseEntity< CompressionStatistics> getCompressionStatistics( ) {
+        return new ResponseEntity<>( compressionFilter.getStatistics( ), HttpStatus.OK);
+    }
+
+    // Пулы потоков PlayerController: занятые потоки, глубина очереди, время ожидания в ней, отказы и таймауты.
+    @GetMapping( "/executors")
+    public ResponseEntity< List< RequestExecutorStatistics>> getExecutorStatistics( ) {
+        List< RequestExecutorStatistics> statistics = new ArrayList<>( );
+        for ( RequestExecutor executor : requestExecutors) {
+            statistics.add( executor.getStatistics( ));
+        }
+        return new ResponseEntity<>( statistics, HttpStatus.OK);
+    }
+}
@@ -1,34 +1,72 @@
 package com.game.controller;
 
+import com.game.config.RequestExecutor;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.service.BulkInsertResult;
+import com.game.service.ExperienceEvent;
+import com.game.service.ExperienceEventBuffer;
+import com.game.service.PlayerCursor;
+import com.game.service.PlayerFacets;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerImportResult;
+import com.game.service.PlayerNotFoundException;
+import com.game.service.PlayerSearchResult;
 import com.game.service.PlayerService;
+import com.game.service.PlayerVersionMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.util.List;
 
 @RestController
 @RequestMapping( "/rest")
 public class PlayerController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private Connection conn;
     private final PlayerService playerService;
+    private final ExperienceEventBuffer experienceEventBuffer;
+    private final int exportFlushEveryRows;
+    //   Запросы к БД выполняются на этих пулах (чтения и записи - отдельно), а поток контейнера сразу освобождается.
+    // Очередь полна или ответа нет дольше async.timeoutMillis - 503. Состояние пулов - GET /rest/metrics/executors.
+    private final RequestExecutor playerReadExecutor;
+    private final RequestExecutor playerWriteExecutor;
 
     @Autowired
-    public PlayerController( PlayerService playerService) {
+    public PlayerController(
+            PlayerService playerService,
+            ExperienceEventBuffer experienceEventBuffer,
+            @Value( "${export.flushEveryRows:1000}") int exportFlushEveryRows,
+            @Qualifier( "playerReadExecutor") RequestExecutor playerReadExecutor,
+            @Qualifier( "playerWriteExecutor") RequestExecutor playerWriteExecutor) {
         this.playerService = playerService;
+        this.experienceEventBuffer = experienceEventBuffer;
+        this.exportFlushEveryRows = exportFlushEveryRows;
+        this.playerReadExecutor = playerReadExecutor;
+        this.playerWriteExecutor = playerWriteExecutor;
     }
 
     // 1. Get players list
     @GetMapping( "/players")
-    public ResponseEntity< List< Player>> getPlayersWithCriterions(
+    public DeferredResult< ResponseEntity< List< Player>>> getPlayersWithCriterions(
             @RequestParam( value = "name", required = false) String name,
             @RequestParam( value = "title", required = false) String title,
             @RequestParam( value = "race", required = false) String race,
@@ -42,41 +80,208 @@ public class PlayerController {
             @RequestParam( value = "maxExperience", required = false) Integer maxExperience,
             @RequestParam( value = "minLevel", required = false) Integer minLevel,
             @RequestParam( value = "maxLevel", required = false) Integer maxLevel,
+            // name и title без учёта регистра, "ё" = "е" и "й" = "и" (в keyset-режиме не поддерживается)
+            @RequestParam( value = "ignoreCase", required = false) Boolean ignoreCase,
 
             // Обрати внимание. 4. Если параметр order не указан – нужно использовать значение PlayerOrder.ID.
             @RequestParam( value = "order", required = false/*, defaultValue = "PlayerOrder.ID"*/) PlayerOrder order,
             // Обрати внимание. 5. Если параметр pageNumber не указан – нужно использовать значение 0.
             @RequestParam( value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
             // Обрати внимание. 6. Если параметр pageSize не указан – нужно использовать значение 3.
-            @RequestParam( value = "pageSize", required = false, defaultValue = "3") Integer pageSize
+            @RequestParam( value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+            //   Keyset-режим: если параметр передан (для первой страницы - пустым), pageNumber игнорируется,
+            // а страница начинается сразу после позиции из токена. Токен следующей страницы - в заголовке X-Next-Cursor.
+            @RequestParam( value = "cursor", required = false) String cursor
     ) {
+        return playerReadExecutor.submit( ( ) -> {
+            String orderFieldName = ( order == null) ?
+                    PlayerOrder.ID.getFieldName( ) :
+                    order.getFieldName( );
 
-        PageRequest pageRequest = PageRequest.of(
-                pageNumber,
-                pageSize,
-                Sort.by( ( order == null) ?
-                        PlayerOrder.ID.getFieldName( ) :
-                        order.getFieldName( ) )
-        );
-        List< Player> playerList = playerService.findAllWithCriterions(
+            if ( cursor != null) {
+                return getPlayersAfterCursor(
+                        name, title,
+                        race, profession,
+                        banned,
+                        after, before,
+                        minExperience, maxExperience,
+                        minLevel, maxLevel,
+                        orderFieldName, cursor, pageSize);
+            }
+
+            PageRequest pageRequest = PageRequest.of(
+                    pageNumber,
+                    pageSize,
+                    sortBy( order)
+            );
+            List< Player> playerList = playerService.findAllWithCriterions(
+                    name, title,
+                    race, profession,
+                    banned,
+                    after, before,
+                    minExperience, maxExperience,
+                    minLevel, maxLevel,
+                    ignoreCase,
+                    pageRequest
+            );
+
+            HttpStatus httpStatus = HttpStatus.OK;
+            // Страница не изменилась (If-None-Match) - 304 без тела.
+            HttpHeaders headers = new HttpHeaders( );
+            headers.setETag( PlayerETags.of( playerList, -1));
+            ResponseEntity< List< Player>> responseEntity = new ResponseEntity( playerList, headers, httpStatus);
+
+            return responseEntity;
+        });
+    }
+
+    // При равных значениях поля сортировки порядок задаёт id - иначе страницы могут пересекаться.
+    private static Sort sortBy( PlayerOrder order) {
+        if ( order == null || order == PlayerOrder.ID) {
+            return Sort.by( PlayerOrder.ID.getFieldName( ));
+        }
+        return Sort.by( order.getFieldName( )).and( Sort.by( PlayerOrder.ID.getFieldName( )));
+    }
+
+    private ResponseEntity< List< Player>> getPlayersAfterCursor(
+            String name, String title,
+            String race, String profession,
+            Boolean banned,
+            Long after, Long before,
+            Integer minExperience, Integer maxExperience,
+            Integer minLevel, Integer maxLevel,
+            String orderFieldName, String cursor, Integer pageSize) {
+        if ( pageSize <= 0) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+        }
+
+        PlayerCursor playerCursor = null;
+        if ( !cursor.isEmpty( )) {
+            try {
+                playerCursor = PlayerCursor.decode( cursor);
+            } catch ( IllegalArgumentException e) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            // Токен выдан для другой сортировки - продолжить с него нельзя.
+            if ( !playerCursor.getFieldName( ).equals( orderFieldName)) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        List< Player> playerList = playerService.findAllWithCriterionsAfter(
                 name, title,
                 race, profession,
                 banned,
                 after, before,
                 minExperience, maxExperience,
                 minLevel, maxLevel,
-                pageRequest
+                orderFieldName, playerCursor, pageSize
         );
 
-        HttpStatus httpStatus = HttpStatus.OK;
-        ResponseEntity< List< Player>> responseEntity = new ResponseEntity( playerList, httpStatus);
+        HttpHeaders headers = new HttpHeaders( );
+        headers.setETag( PlayerETags.of( playerList, -1));
+        // Неполная страница - последняя, токена для продолжения нет.
+        if ( playerList.size( ) == pageSize) {
+            Player last = playerList.get( playerList.size( ) - 1);
+            headers.set( NEXT_CURSOR_HEADER, PlayerCursor.after( last, orderFieldName).encode( ));
+        }
+        return new ResponseEntity<>( playerList, headers, HttpStatus.OK);
+    }
+
+    // 1a. Search: players page and total count in one request
+    //   Фильтры - те же, что у GET /rest/players (поля PlayerFilter).
+    //   Если клиент уже знает общее количество (например, листает страницы одного и того же поиска),
+    // он передаёт его в total, и count не выполняется.
+    @GetMapping( "/players/search")
+    public DeferredResult< ResponseEntity< PlayerSearchResult>> search(
+            PlayerFilter filter,
+            @RequestParam( value = "order", required = false) PlayerOrder order,
+            @RequestParam( value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+            @RequestParam( value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+            @RequestParam( value = "total", required = false) Long total
+    ) {
+        return playerReadExecutor.submit( ( ) -> {
+            if ( pageNumber < 0 || pageSize <= 0) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            PageRequest pageRequest = PageRequest.of( pageNumber, pageSize, sortBy( order));
+
+            PlayerSearchResult result = playerService.search( filter, pageRequest, total);
+            HttpHeaders headers = new HttpHeaders( );
+            headers.setETag( PlayerETags.of( result.getItems( ), result.getTotal( )));
+            return new ResponseEntity<>( result, headers, HttpStatus.OK);
+        });
+    }
+
+    // 2a. Facets: counts per race, profession, banned and level / experience histograms
+    //   Фильтры - те же, что у GET /rest/players/count (поля PlayerFilter), всё считается одним запросом.
+    //   levelBucketSize и experienceBucketSize - ширина корзин гистограмм (по умолчанию - из facets.*).
+    @GetMapping( "/players/facets")
+    public DeferredResult< ResponseEntity< PlayerFacets>> getFacets(
+            PlayerFilter filter,
+            @RequestParam( value = "levelBucketSize", required = false) Integer levelBucketSize,
+            @RequestParam( value = "experienceBucketSize", required = false) Integer experienceBucketSize
+    ) {
+        return playerReadExecutor.submit( ( ) -> {
+            try {
+                return new ResponseEntity<>( playerService.facets( filter, levelBucketSize, experienceBucketSize), HttpStatus.OK);
+            } catch ( IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+                // Вторым приходит IllegalArgumentException из PlayerSpecification (неизвестные race или profession).
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    // 1b. Export: all players matching the filter as NDJSON or CSV
+    //   Фильтры - те же, что у GET /rest/players (поля PlayerFilter), порядок - order (при равенстве - по id).
+    //   Строки идут из курсора БД прямо в ответ, каждые export.flushEveryRows строк ответ сбрасывается клиенту:
+    // память не зависит от числа выгружаемых игроков.
+    @GetMapping( "/players/export")
+    public DeferredResult< ResponseEntity< Void>> export(
+            PlayerFilter filter,
+            @RequestParam( value = "order", required = false) PlayerOrder order,
+            @RequestParam( value = "format", required = false, defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) {
+        //   Выгрузка идёт сколько идёт, поэтому без таймаута. Тело пишется прямо в response,
+        // так что и результат - пустой (null): Spring больше ничего не пишет.
+        return playerReadExecutor.submit( ( ) -> {
+            PlayerFileFormat exportFormat = PlayerFileFormat.of( format);
+            if ( exportFormat == null) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            response.setContentType( exportFormat.getContentType( ));
+            response.setHeader( HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"players." + exportFormat.getExtension( ) + "\"");
+
+            PlayerExportWriter writer = PlayerExportWriter.of( exportFormat, response.getOutputStream( ));
+            long[] written = { 0};
+            try {
+                playerService.export( filter, sortBy( order), player -> {
+                    writer.write( player);
+                    if ( ++written[ 0] % exportFlushEveryRows == 0) {
+                        flush( writer);
+                    }
+                });
+            } catch ( UncheckedIOException uioe) {
+                // Клиент закрыл соединение - дописывать некому.
+                throw uioe.getCause( );
+            }
+            writer.flush( );
+            return null;
+        }, 0);
+    }
 
-        return responseEntity;
+    private static void flush( PlayerExportWriter writer) {
+        try {
+            writer.flush( );
+        } catch ( IOException e) {
+            throw new UncheckedIOException( e);
+        }
     }
 
     // 2. Get players count
     @RequestMapping( "/players/count")
-    public ResponseEntity< Long> getCountWithCriterions(
+    public DeferredResult< ResponseEntity< Long>> getCountWithCriterions(
             @RequestParam( value = "name", required = false) String name,
             @RequestParam( value = "title", required = false) String title,
             // @RequestParam( value = "race", required = false) Race race,
@@ -89,132 +294,292 @@ public class PlayerController {
             @RequestParam( value = "minExperience", required = false) Integer minExperience,
             @RequestParam( value = "maxExperience", required = false) Integer maxExperience,
             @RequestParam( value = "minLevel", required = false) Integer minLevel,
-            @RequestParam( value = "maxLevel", required = false) Integer maxLevel
+            @RequestParam( value = "maxLevel", required = false) Integer maxLevel,
+            @RequestParam( value = "ignoreCase", required = false) Boolean ignoreCase
     ) {
-        Long count = playerService.countWithCriterions(
-                name, title,
-                race, profession,
-                banned,
-                after, before,
-                minExperience, maxExperience,
-                minLevel, maxLevel
-        );
-        HttpStatus httpStatus = HttpStatus.OK;
-        ResponseEntity< Long> responseEntity = new ResponseEntity( count, httpStatus);
+        return playerReadExecutor.submit( ( ) -> {
+            Long count = playerService.countWithCriterions(
+                    name, title,
+                    race, profession,
+                    banned,
+                    after, before,
+                    minExperience, maxExperience,
+                    minLevel, maxLevel,
+                    ignoreCase
+            );
+            HttpStatus httpStatus = HttpStatus.OK;
+            ResponseEntity< Long> responseEntity = new ResponseEntity( count, httpStatus);
 
-        return responseEntity;
+            return responseEntity;
+        });
     }
 
     // 3. Create player
     @PostMapping( "/players")
-    public ResponseEntity< Player> create (
+    public DeferredResult< ResponseEntity< Player>> create (
             @RequestBody Player player
     ) {
-        ResponseEntity< Player> responseEntity;
-        HttpStatus httpStatus;
-        // System.out.println( "public ResponseEntity< Player> create");
-        // System.out.println( "player = " + player);
-        try {
-            playerService.insert( player);
-            httpStatus = HttpStatus.OK;
-        } catch ( RuntimeException re) {
-            httpStatus = HttpStatus.BAD_REQUEST;
+        return playerWriteExecutor.submit( ( ) -> {
+            ResponseEntity< Player> responseEntity;
+            HttpStatus httpStatus;
+            // System.out.println( "public ResponseEntity< Player> create");
+            // System.out.println( "player = " + player);
+            try {
+                playerService.insert( player);
+                httpStatus = HttpStatus.OK;
+            } catch ( RuntimeException re) {
+                httpStatus = HttpStatus.BAD_REQUEST;
+            }
+
+            responseEntity = new ResponseEntity< Player>( player, httpStatus);
+            return responseEntity;
+        });
+    }
+
+    // 3a. Create players in bulk
+    @PostMapping( "/players/bulk")
+    public DeferredResult< ResponseEntity< BulkInsertResult>> createAll(
+            @RequestBody List< Player> players
+    ) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( players == null || players.isEmpty( )) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            // Ошибки отдельных игроков не валят весь запрос - они перечислены в результате.
+            return new ResponseEntity<>( playerService.insertAll( players), HttpStatus.OK);
+        });
+    }
+
+    // 3b. Bulk ban / unban / grant experience / delete by filter
+    //   Фильтры - те же, что у GET /rest/players. Каждая операция - один UPDATE или DELETE, ответ - число затронутых игроков.
+    //   Фильтр без условий (то есть "все игроки") не принимается - для этого нужно явно указать, например, minExperience=0.
+    @PostMapping( "/players/bulk/ban")
+    public DeferredResult< ResponseEntity< Long>> banAll( PlayerFilter filter) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( filter.isEmpty( )) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>( ( long) playerService.setBannedWhere( filter, true), HttpStatus.OK);
+        });
+    }
+
+    @PostMapping( "/players/bulk/unban")
+    public DeferredResult< ResponseEntity< Long>> unbanAll( PlayerFilter filter) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( filter.isEmpty( )) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>( ( long) playerService.setBannedWhere( filter, false), HttpStatus.OK);
+        });
+    }
+
+    @PostMapping( "/players/bulk/experience")
+    public DeferredResult< ResponseEntity< Long>> addExperienceAll(
+            PlayerFilter filter,
+            @RequestParam( value = "amount") Integer amount
+    ) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( filter.isEmpty( )) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            try {
+                return new ResponseEntity<>( ( long) playerService.addExperienceWhere( filter, amount), HttpStatus.OK);
+            } catch ( IllegalArgumentException iae) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    @DeleteMapping( "/players/bulk")
+    public DeferredResult< ResponseEntity< Long>> deleteAll( PlayerFilter filter) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( filter.isEmpty( )) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>( ( long) playerService.deleteWhere( filter), HttpStatus.OK);
+        });
+    }
+
+    // 3c. Experience events from game servers
+    //   Начисления не пишутся сразу, а копятся в ExperienceEventBuffer и попадают в БД в течение experience.buffer.flushIntervalMillis.
+    //   Ответ - число принятых событий (202 Accepted). Если буфер полон, принимается только начало списка,
+    // ответ - 503 с Retry-After, а события начиная с номера, равного числу принятых, нужно прислать повторно.
+    //   Ошибка в любом событии (нет playerId, amount не от 1 до MAX_EXPERIENCE) - 400, ничего не принимается.
+    //   БД здесь не нужна, поэтому запрос обрабатывается сразу, в потоке контейнера.
+    @PostMapping( "/players/experience-events")
+    public ResponseEntity< Integer> addExperienceEvents(
+            @RequestBody List< ExperienceEvent> events
+    ) {
+        if ( events == null || events.isEmpty( ) || !events.stream( ).allMatch( ExperienceEventBuffer::isValid)) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+        }
+        int accepted = experienceEventBuffer.offer( events);
+        if ( accepted < events.size( )) {
+            HttpHeaders headers = new HttpHeaders( );
+            headers.set( HttpHeaders.RETRY_AFTER, String.valueOf( experienceEventBuffer.getRetryAfterSeconds( )));
+            return new ResponseEntity<>( accepted, headers, HttpStatus.SERVICE_UNAVAILABLE);
         }
+        return new ResponseEntity<>( accepted, HttpStatus.ACCEPTED);
+    }
 
-        responseEntity = new ResponseEntity< Player>( player, httpStatus);
-        return responseEntity;
+    // 3d. Import players from NDJSON or CSV (the same formats as GET /rest/players/export)
+    //   Тело читается потоком, записи проверяются и пишутся пакетами по import.chunkSize (каждый - своя транзакция).
+    //   Ответ - PlayerImportResult: отклонённые записи с текстом ошибки и committedRecords.
+    // Если импорт прервался (ошибка чтения тела или записи в БД) - 500 с тем же результатом;
+    // повторный запрос с тем же файлом и skip = committedRecords продолжит с места остановки.
+    @PostMapping( "/players/import")
+    public DeferredResult< ResponseEntity< PlayerImportResult>> importPlayers(
+            @RequestParam( value = "format", required = false, defaultValue = "ndjson") String format,
+            @RequestParam( value = "skip", required = false, defaultValue = "0") Long skip,
+            InputStream body
+    ) {
+        // Как и выгрузка - без таймаута.
+        return playerWriteExecutor.submit( ( ) -> {
+            PlayerFileFormat importFormat = PlayerFileFormat.of( format);
+            if ( importFormat == null || skip < 0) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            PlayerImportReader< ?> reader;
+            try {
+                reader = PlayerImportReader.of( importFormat, body);
+            } catch ( IllegalArgumentException iae) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            PlayerImportResult result = playerService.importPlayers( reader, skip);
+            return new ResponseEntity<>( result, result.isComplete( ) ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR);
+        }, 0);
     }
 
     // 4. Get player
     @GetMapping( "/players/{id}")
-    public ResponseEntity< Player> getPlayerById(
+    public DeferredResult< ResponseEntity< Player>> getPlayerById(
             @PathVariable( "id") Long id
             // @RequestParam( value = "id") Long id
     ) {
-        //   Ели поступит запрос, где вместо id целого и положительного поступит что-то иное,
-        // то входа в метод не произойдёт, но возникнет исключение (которое можно-было обработать и самостоятельно,
-        // но для данного задания это не нужно - Spring сам сделает так, как надо) и выставится HttpStatus.BAD_REQUEST.
-        //   Смотри:
-        // Обрати внимание.
-        // 7. Не валидным считается id, если он:
-        // 7.1. не числовой
-        // 7.2. не целое число
-
-        ResponseEntity< Player> responseEntity;
-        Player player = null;
-        HttpStatus httpStatus;
-
-        if ( id <= 0) {
+        return playerReadExecutor.submit( ( ) -> {
+            //   Ели поступит запрос, где вместо id целого и положительного поступит что-то иное,
+            // то входа в метод не произойдёт, но возникнет исключение (которое можно-было обработать и самостоятельно,
+            // но для данного задания это не нужно - Spring сам сделает так, как надо) и выставится HttpStatus.BAD_REQUEST.
+            //   Смотри:
             // Обрати внимание.
             // 7. Не валидным считается id, если он:
-            // 7.3. не положительный
-            httpStatus = HttpStatus.BAD_REQUEST;
-        } else {
-            player = playerService.findById( id);
+            // 7.1. не числовой
+            // 7.2. не целое число
 
-            if ( player != null) {
-                httpStatus = HttpStatus.OK;
+            ResponseEntity< Player> responseEntity;
+            Player player = null;
+            HttpStatus httpStatus;
+            HttpHeaders headers = new HttpHeaders( );
+
+            if ( id <= 0) {
+                // Обрати внимание.
+                // 7. Не валидным считается id, если он:
+                // 7.3. не положительный
+                httpStatus = HttpStatus.BAD_REQUEST;
             } else {
-                httpStatus = HttpStatus.NOT_FOUND;
+                //   Игрок обычно берётся из кэша по id, и для 304 (If-None-Match совпал с версией) БД не нужна вовсе.
+                player = playerService.findById( id);
+
+                if ( player != null) {
+                    httpStatus = HttpStatus.OK;
+                    headers.setETag( PlayerETags.of( player));
+                } else {
+                    httpStatus = HttpStatus.NOT_FOUND;
+                }
             }
-        }
-        responseEntity = new ResponseEntity< Player>( player, httpStatus);
-        return responseEntity;
+            responseEntity = new ResponseEntity< Player>( player, headers, httpStatus);
+            return responseEntity;
+        });
     }
 
     // 5. Update player
+    //   If-Match с ETag из GET /rest/players/{id}: игрок изменяется, только если с тех пор его никто не изменил,
+    // иначе - 412. Без If-Match одновременное изменение тем же игроком - 409.
     @PostMapping( "/players/{id}")
-    public ResponseEntity< Player> update(
+    public DeferredResult< ResponseEntity< Player>> update(
             @PathVariable( "id") Long id,
             //@RequestParam( value = "id") Long id,
+            @RequestHeader( value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody Player player
     ) {
-        ResponseEntity< Player> responseEntity;
-        HttpStatus httpStatus;
-
-        if ( id <= 0) {
-            // Обрати внимание. 7. Не валидным считается id, если он:
-            // 7.3. не положительный
-            httpStatus = HttpStatus.BAD_REQUEST;
-        } else {
-            try {
-                player = playerService.update( id, player);
-                httpStatus = HttpStatus.OK;
-            } catch ( RuntimeException re) {
-                if ( re.getMessage().contains( "Player with id is equal")) {
+        return playerWriteExecutor.submit( ( ) -> {
+            ResponseEntity< Player> responseEntity;
+            HttpStatus httpStatus;
+            HttpHeaders headers = new HttpHeaders( );
+            Player updatedPlayer = player;
+
+            if ( id <= 0) {
+                // Обрати внимание. 7. Не валидным считается id, если он:
+                // 7.3. не положительный
+                httpStatus = HttpStatus.BAD_REQUEST;
+            } else {
+                try {
+                    updatedPlayer = playerService.update( id, player, PlayerETags.versions( ifMatch));
+                    httpStatus = HttpStatus.OK;
+                    headers.setETag( PlayerETags.of( updatedPlayer));
+                } catch ( PlayerNotFoundException pnfe) {
                     httpStatus = HttpStatus.NOT_FOUND;
-                } else {
+                } catch ( PlayerVersionMismatchException pvme) {
+                    httpStatus = HttpStatus.PRECONDITION_FAILED;
+                } catch ( OptimisticLockingFailureException olfe) {
+                    httpStatus = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+                } catch ( RuntimeException re) {
                     httpStatus = HttpStatus.BAD_REQUEST;
                 }
             }
-        }
-        responseEntity = new ResponseEntity< Player>( player, httpStatus);
-        return responseEntity;
+            responseEntity = new ResponseEntity< Player>( updatedPlayer, headers, httpStatus);
+            return responseEntity;
+        });
+    }
+
+    // 5a. Partial update
+    //   Меняются только переданные поля, одним UPDATE без чтения строки. Тело ответа пустое (204),
+    // новое состояние игрока - через GET /rest/players/{id}.
+    @PatchMapping( "/players/{id}")
+    public DeferredResult< ResponseEntity< Void>> patch(
+            @PathVariable( "id") Long id,
+            @RequestBody Player changes
+    ) {
+        return playerWriteExecutor.submit( ( ) -> {
+            if ( id <= 0) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+            try {
+                playerService.patch( id, changes);
+                return new ResponseEntity<>( HttpStatus.NO_CONTENT);
+            } catch ( PlayerNotFoundException pnfe) {
+                return new ResponseEntity<>( HttpStatus.NOT_FOUND);
+            } catch ( RuntimeException re) {
+                return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     // 6. Delete player
     @DeleteMapping( "/players/{id}")
-    public ResponseEntity deleteOne(
+    public DeferredResult< ResponseEntity< Player>> deleteOne(
             @PathVariable( "id") Long id
             // @RequestParam( value = "id") Integer id
     ) {
-        ResponseEntity< Player> responseEntity;
-        HttpStatus httpStatus;
+        return playerWriteExecutor.submit( ( ) -> {
+            ResponseEntity< Player> responseEntity;
+            HttpStatus httpStatus;
 
-        if ( id <= 0) {
-            // Обрати внимание.
-            // 7. Не валидным считается id, если он:
-            // 7.3. не положительный
-            httpStatus = HttpStatus.BAD_REQUEST;
-        } else {
-            try {
-                playerService.deleteById( id);
-                httpStatus = HttpStatus.OK;
-            } catch ( RuntimeException re) {
-                httpStatus = HttpStatus.NOT_FOUND;
+            if ( id <= 0) {
+                // Обрати внимание.
+                // 7. Не валидным считается id, если он:
+                // 7.3. не положительный
+                httpStatus = HttpStatus.BAD_REQUEST;
+            } else {
+                try {
+                    playerService.deleteById( id);
+                    httpStatus = HttpStatus.OK;
+                } catch ( RuntimeException re) {
+                    httpStatus = HttpStatus.NOT_FOUND;
+                }
             }
-        }
-        responseEntity = new ResponseEntity( null, httpStatus);
-        return responseEntity;
+            responseEntity = new ResponseEntity( null, httpStatus);
+            return responseEntity;
+        });
     }
 }
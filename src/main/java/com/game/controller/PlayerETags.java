@@ -0,0 +1,57 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//   ETag-и ответов по версиям игроков (Player.version).
+//   Если ETag ответа совпал с If-None-Match, Spring (HttpEntityMethodProcessor) сам отвечает 304 на GET без тела -
+// сериализация пропускается.
+final class PlayerETags {
+    private static final String ANY = "*";
+    private static final String WEAK = "W/";
+
+    private PlayerETags( ) {
+    }
+
+    //   Один игрок - слабый ETag из версии (адрес уже задаёт id): тело JSON, Smile или CBOR, сжатое или нет,
+    // у одной версии разное, а байтовое совпадение сильный ETag обещал бы. По нему же проверяется If-Match.
+    static String of( Player player) {
+        return WEAK + "\"" + player.getVersion( ) + "\"";
+    }
+
+    //   Список - слабый ETag: MD5 от id и версий игроков в порядке выдачи и от total (-1, если его нет в ответе).
+    static String of( List< Player> players, long total) {
+        StringBuilder state = new StringBuilder( players.size( ) * 8).append( total);
+        for ( Player player : players) {
+            state.append( ',').append( player.getId( )).append( ':').append( player.getVersion( ));
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex( state.toString( ).getBytes( StandardCharsets.US_ASCII)) + "\"";
+    }
+
+    //   Версии из заголовка If-Match: null - заголовка нет или "*" (подойдёт любая версия).
+    //   Сравниваются версии, а не байты ответа: "3" и W/"3" - одна версия, чужие ETag-и не совпадут ни с одной.
+    static List< Long> versions( String ifMatch) {
+        if ( ifMatch == null || ifMatch.trim( ).equals( ANY)) {
+            return null;
+        }
+        List< Long> versions = new ArrayList<>( );
+        for ( String tag : ifMatch.split( ",")) {
+            tag = tag.trim( );
+            if ( tag.startsWith( WEAK)) {
+                tag = tag.substring( WEAK.length( ));
+            }
+            if ( tag.length( ) > 2 && tag.startsWith( "\"") && tag.endsWith( "\"")) {
+                try {
+                    versions.add( Long.valueOf( tag.substring( 1, tag.length( ) - 1)));
+                } catch ( NumberFormatException nfe) {
+                    // Не наш ETag - не совпадёт.
+                }
+            }
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,119 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.entity.Player;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+//   Запись игроков в поток ответа GET /rest/players/export по одному, без накопления в памяти.
+//   NDJSON - по объекту JSON на строку, в том же виде, что отдаёт GET /rest/players.
+//   CSV - строка заголовка, дальше строка на игрока; birthday - миллисекунды, как в JSON.
+abstract class PlayerExportWriter {
+
+    //   Те же настройки, что у конвертера в WebConfig (только поля), но без flush после каждого объекта.
+    private static final ObjectMapper MAPPER = new ObjectMapper( )
+            .setVisibility( PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility( PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .disable( SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    static PlayerExportWriter of( PlayerFileFormat format, OutputStream out) throws IOException {
+        return format == PlayerFileFormat.NDJSON ? new NdjsonWriter( out) : new CsvWriter( out);
+    }
+
+    // IOException заворачивается в UncheckedIOException: запись идёт из Consumer внутри транзакции сервиса.
+    abstract void write( Player player);
+
+    // Отдаёт клиенту всё записанное (при chunked-ответе - очередной кусок).
+    abstract void flush( ) throws IOException;
+
+    private static class NdjsonWriter extends PlayerExportWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter( OutputStream out) throws IOException {
+            generator = MAPPER.getFactory( ).createGenerator( out, JsonEncoding.UTF8);
+            generator.setRootValueSeparator( null);
+        }
+
+        @Override
+        void write( Player player) {
+            try {
+                MAPPER.writeValue( generator, player);
+                generator.writeRaw( '\n');
+            } catch ( IOException e) {
+                throw new UncheckedIOException( e);
+            }
+        }
+
+        @Override
+        void flush( ) throws IOException {
+            generator.flush( );
+        }
+    }
+
+    private static class CsvWriter extends PlayerExportWriter {
+        static final String HEADER = String.join( ",", PlayerFileFormat.CSV_COLUMNS);
+
+        private final Writer writer;
+
+        CsvWriter( OutputStream out) throws IOException {
+            writer = new BufferedWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8));
+            writer.write( HEADER);
+            writer.write( "\r\n");
+        }
+
+        @Override
+        void write( Player player) {
+            try {
+                writer.write( String.valueOf( player.getId( )));
+                writer.write( ',');
+                writer.write( quote( player.getName( )));
+                writer.write( ',');
+                writer.write( quote( player.getTitle( )));
+                writer.write( ',');
+                writer.write( player.getRace( ) == null ? "" : player.getRace( ).name( ));
+                writer.write( ',');
+                writer.write( player.getProfession( ) == null ? "" : player.getProfession( ).name( ));
+                writer.write( ',');
+                writer.write( String.valueOf( player.getBirthday( ).getTime( )));
+                writer.write( ',');
+                writer.write( player.getBanned( ) == null ? "" : player.getBanned( ).toString( ));
+                writer.write( ',');
+                writer.write( String.valueOf( player.getExperience( )));
+                writer.write( ',');
+                writer.write( String.valueOf( player.getLevel( )));
+                writer.write( ',');
+                writer.write( String.valueOf( player.getUntilNextLevel( )));
+                writer.write( "\r\n");
+            } catch ( IOException e) {
+                throw new UncheckedIOException( e);
+            }
+        }
+
+        @Override
+        void flush( ) throws IOException {
+            writer.flush( );
+        }
+
+        // RFC 4180: поле с запятой, кавычкой или переводом строки - в кавычках, кавычки внутри удваиваются.
+        static String quote( String value) {
+            if ( value == null) {
+                return "";
+            }
+            if ( value.indexOf( ',') < 0 && value.indexOf( '"') < 0 && value.indexOf( '\n') < 0 && value.indexOf( '\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace( "\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.game.controller;
+
+import java.util.Locale;
+
+// Форматы файлов с игроками для выгрузки (GET /rest/players/export) и загрузки (POST /rest/players/import).
+enum PlayerFileFormat {
+    NDJSON( "application/x-ndjson", "ndjson"),
+    CSV( "text/csv;charset=UTF-8", "csv");
+
+    // Колонки CSV - в этом порядке их пишет выгрузка; загрузка ищет их по заголовку.
+    static final String[] CSV_COLUMNS = {
+            "id", "name", "title", "race", "profession", "birthday", "banned", "experience", "level", "untilNextLevel"};
+
+    private final String contentType;
+    private final String extension;
+
+    PlayerFileFormat( String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    // null - неизвестный формат.
+    static PlayerFileFormat of( String name) {
+        try {
+            return valueOf( name.toUpperCase( Locale.ROOT));
+        } catch ( IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    String getContentType( ) {
+        return contentType;
+    }
+
+    String getExtension( ) {
+        return extension;
+    }
+}
@@ -0,0 +1,186 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerRecordSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+//   Чтение игроков из тела POST /rest/players/import по одной записи, без загрузки файла целиком.
+//   Форматы - те же, что у выгрузки: что выгружено, то можно загрузить обратно (id, level и untilNextLevel игнорируются).
+//   Пустые строки пропускаются и записями не считаются.
+abstract class PlayerImportReader< R> implements PlayerRecordSource< R> {
+
+    //   Как у конвертера в WebConfig (только поля). Разбор без проверок: всё проверит PlayerService.
+    private static final ObjectMapper MAPPER = new ObjectMapper( )
+            .setVisibility( PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility( PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    final BufferedReader reader;
+
+    PlayerImportReader( InputStream in) {
+        reader = new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8));
+    }
+
+    // Для CSV сразу читается заголовок: без него или без нужных колонок - IllegalArgumentException.
+    static PlayerImportReader< ?> of( PlayerFileFormat format, InputStream in) throws IOException {
+        return format == PlayerFileFormat.NDJSON ? new NdjsonReader( in) : new CsvReader( in);
+    }
+
+    // Запись - строка с объектом JSON.
+    private static class NdjsonReader extends PlayerImportReader< String> {
+
+        NdjsonReader( InputStream in) {
+            super( in);
+        }
+
+        @Override
+        public String next( ) throws IOException {
+            String line;
+            do {
+                line = reader.readLine( );
+            } while ( line != null && line.trim( ).isEmpty( ));
+            return line;
+        }
+
+        @Override
+        public Player toPlayer( String record) {
+            try {
+                return MAPPER.readValue( record, Player.class);
+            } catch ( JsonProcessingException e) {
+                throw new IllegalArgumentException( e.getOriginalMessage( ), e);
+            }
+        }
+    }
+
+    // Запись - поля строки CSV (RFC 4180). Пустое поле - null.
+    private static class CsvReader extends PlayerImportReader< List< String>> {
+        private static final List< String> REQUIRED_COLUMNS = Arrays.asList( "name", "title", "race", "profession", "birthday", "experience");
+
+        private final int columns;
+        private final int name;
+        private final int title;
+        private final int race;
+        private final int profession;
+        private final int birthday;
+        private final int banned;
+        private final int experience;
+
+        CsvReader( InputStream in) throws IOException {
+            super( in);
+            List< String> header = next( );
+            if ( header == null || !header.containsAll( REQUIRED_COLUMNS)) {
+                throw new IllegalArgumentException( "CSV header should contain columns " + String.join( ",", REQUIRED_COLUMNS) + "!");
+            }
+            columns = header.size( );
+            name = header.indexOf( "name");
+            title = header.indexOf( "title");
+            race = header.indexOf( "race");
+            profession = header.indexOf( "profession");
+            birthday = header.indexOf( "birthday");
+            banned = header.indexOf( "banned");
+            experience = header.indexOf( "experience");
+        }
+
+        //   Поле в кавычках может содержать запятые, переводы строк и удвоенные кавычки.
+        // Вне кавычек \r игнорируется, \n заканчивает запись.
+        @Override
+        public List< String> next( ) throws IOException {
+            List< String> fields = new ArrayList<>( );
+            StringBuilder field = new StringBuilder( );
+            boolean inQuotes = false;
+            boolean wasQuoted = false;
+            int c;
+            while ( ( c = reader.read( )) >= 0) {
+                if ( inQuotes) {
+                    if ( c != '"') {
+                        field.append( ( char) c);
+                        continue;
+                    }
+                    reader.mark( 1);
+                    if ( reader.read( ) == '"') {
+                        field.append( '"');
+                    } else {
+                        reader.reset( );
+                        inQuotes = false;
+                    }
+                } else if ( c == '"') {
+                    inQuotes = true;
+                    wasQuoted = true;
+                } else if ( c == ',') {
+                    fields.add( toField( field, wasQuoted));
+                    field.setLength( 0);
+                    wasQuoted = false;
+                } else if ( c == '\n') {
+                    if ( fields.isEmpty( ) && field.length( ) == 0 && !wasQuoted) {
+                        continue;
+                    }
+                    break;
+                } else if ( c != '\r') {
+                    field.append( ( char) c);
+                }
+            }
+            if ( c < 0 && fields.isEmpty( ) && field.length( ) == 0 && !wasQuoted) {
+                return null;
+            }
+            fields.add( toField( field, wasQuoted));
+            return fields;
+        }
+
+        private static String toField( StringBuilder field, boolean wasQuoted) {
+            return field.length( ) == 0 && !wasQuoted ? null : field.toString( );
+        }
+
+        //   Поля ставятся через сеттеры (с их проверками), отсутствующие остаются null -
+        // тогда запись отклонит проверка на null в PlayerService.
+        @Override
+        public Player toPlayer( List< String> record) {
+            if ( record.size( ) != columns) {
+                throw new IllegalArgumentException( "Record has " + record.size( ) + " fields, header has " + columns + "!");
+            }
+            Player player = new Player( );
+            if ( record.get( name) != null) {
+                player.setName( record.get( name));
+            }
+            if ( record.get( title) != null) {
+                player.setTitle( record.get( title));
+            }
+            if ( record.get( race) != null) {
+                player.setRace( Race.valueOf( record.get( race)));
+            }
+            if ( record.get( profession) != null) {
+                player.setProfession( Profession.valueOf( record.get( profession)));
+            }
+            if ( record.get( birthday) != null) {
+                player.setBirthday( new Date( Long.parseLong( record.get( birthday))));
+            }
+            if ( banned >= 0 && record.get( banned) != null) {
+                player.setBanned( parseBoolean( record.get( banned)));
+            }
+            if ( record.get( experience) != null) {
+                player.setExperience( Integer.valueOf( record.get( experience)));
+            }
+            return player;
+        }
+
+        private static Boolean parseBoolean( String value) {
+            if ( "true".equals( value) || "false".equals( value)) {
+                return Boolean.valueOf( value);
+            }
+            throw new IllegalArgumentException( "Field 'banned' should be true or false!");
+        }
+    }
+}
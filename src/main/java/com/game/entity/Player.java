@@ -1,5 +1,6 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -7,7 +8,9 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 // import javax.validation.constraints.*; // При допустимости использовать валидацию.
 
 @Entity
@@ -15,8 +18,8 @@ import java.util.Locale;
 public class Player {
     final static int NAME_MAX_LENGTH = 12;
     final static int TITLE_MAX_LENGTH = 30;
-    final static Integer MIN_EXPERIENCE = 0;
-    final static Integer MAX_EXPERIENCE = 10_000_000;
+    public final static Integer MIN_EXPERIENCE = 0;
+    public final static Integer MAX_EXPERIENCE = 10_000_000;
 
 
     final static DateFormat format;
@@ -97,6 +100,13 @@ public class Player {
     @Column( name = "banned")
     private Boolean banned;         // Забанен / не забанен
 
+    //   Версия строки: Hibernate увеличивает её при каждом изменении и проверяет в WHERE (оптимистическая блокировка).
+    // Массовые UPDATE-ы увеличивают её сами. В JSON не попадает - клиент видит её в заголовке ETag.
+    @Version
+    @Column( name = "version")
+    @JsonIgnore
+    private Long version;
+
 
     public Player( ) {
         //setExperience(0);
@@ -119,6 +129,21 @@ public class Player {
         setBanned( banned);
     }
 
+    // Копия со всеми полями как есть, без проверок (для передачи состояния игрока за пределы транзакции).
+    public Player( Player player) {
+        this.id = player.id;
+        this.name = player.name;
+        this.title = player.title;
+        this.race = player.race;
+        this.profession = player.profession;
+        this.experience = player.experience;
+        this.level = player.level;
+        this.untilNextLevel = player.untilNextLevel;
+        this.birthday = player.birthday;
+        this.banned = player.banned;
+        this.version = player.version;
+    }
+
     public Long getId( ) {
         return id;
     }
@@ -264,6 +289,14 @@ public class Player {
         this.banned = banned;
     }
 
+    public Long getVersion( ) {
+        return version;
+    }
+
+    public void setVersion( Long version) {
+        this.version = version;
+    }
+
     public void checkNullFieldsForInserting( ) {
         if ( name == null ||
                 title == null ||
@@ -284,6 +317,12 @@ public class Player {
         setUntilNextLevel( );
     }
 
+    //   true - геттеры experience, level, untilNextLevel и birthday вернут значения полей как есть
+    // (для null они подставляют значения по умолчанию).
+    public boolean areLazyFieldsSet( ) {
+        return experience != null && level != null && untilNextLevel != null && birthday != null;
+    }
+
     public boolean areAllFieldsNulls( ) {
         return  name == null &&
                 title == null &&
@@ -294,6 +333,36 @@ public class Player {
                 ;
     }
 
+    //   Для частичного обновления: только переданные (не null) поля, каждое уже проверено.
+    // level и untilNextLevel попадают в результат, только если передан experience.
+    public Map< String, Object> checkAndGetSuppliedFields( ) {
+        Map< String, Object> fields = new LinkedHashMap<>( );
+        if ( name != null) {
+            checkNameValid( name);
+            fields.put( "name", name);
+        }
+        if ( title != null) {
+            checkTitleValid( title);
+            fields.put( "title", title);
+        }
+        if ( race != null) { fields.put( "race", race);}
+        if ( profession != null) { fields.put( "profession", profession);}
+        if ( birthday != null && birthday.getTime( ) != 0) {
+            checkBirthdayValid( birthday);
+            fields.put( "birthday", birthday);
+        }
+        if ( experience != null) {
+            checkExperienceValid( experience);
+            setLevel( );
+            setUntilNextLevel( );
+            fields.put( "experience", experience);
+            fields.put( "level", level);
+            fields.put( "untilNextLevel", untilNextLevel);
+        }
+        if ( banned != null) { fields.put( "banned", banned);}
+        return fields;
+    }
+
     public void fillVoidFieldsFromAnotherPlayer( Player player) {
         if ( name == null) { name = player.name;}
         if ( title == null) { title = player.title;}
@@ -14,6 +14,6 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PlayerRepository extends JpaRepository< Player, Long>, JpaSpecificationExecutor< Player> {
+public interface PlayerRepository extends JpaRepository< Player, Long>, JpaSpecificationExecutor< Player>, PlayerRepositoryCustom {
 
 }
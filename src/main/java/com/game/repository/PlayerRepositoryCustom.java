@@ -0,0 +1,41 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface PlayerRepositoryCustom {
+
+    // Как findAll( spec, pageable), но без запроса count и без OFFSET: просто первые limit строк.
+    List< Player> findFirst( Specification< Player> spec, Sort sort, int limit);
+
+    // Только содержимое страницы (OFFSET + LIMIT), без запроса count, который делает findAll( spec, pageable).
+    List< Player> findPageContent( Specification< Player> spec, Pageable pageable);
+
+    // UPDATE player SET <только эти поля> WHERE id = ?. Возвращает число изменённых строк (0 - игрока нет).
+    int updateFields( Long id, Map< String, Object> fields);
+
+    // UPDATE player SET <поля> WHERE <spec>. Возвращает число изменённых строк.
+    int updateWhere( Specification< Player> spec, Map< String, Object> fields);
+
+    //   UPDATE player SET experience = experience + amount (в пределах от 0 до maxExperience), level и untilNextLevel
+    // пересчитываются той же формулой, что в Player, прямо в SQL. Возвращает число изменённых строк.
+    int addExperienceWhere( Specification< Player> spec, int amount, int maxExperience);
+
+    // DELETE FROM player WHERE <spec>. Возвращает число удалённых строк.
+    int deleteWhere( Specification< Player> spec);
+
+    //   SELECT race, profession, banned, FLOOR( level / levelBucketSize), FLOOR( experience / experienceBucketSize), COUNT(*)
+    // FROM player WHERE <spec> GROUP BY <те же пять выражений> - все фасеты одним проходом по таблице.
+    List< Object[]> countGroups( Specification< Player> spec, int levelBucketSize, int experienceBucketSize);
+
+    //   Обходит игроков под spec в порядке sort курсором только вперёд (по fetchSize строк за раз).
+    // Каждый игрок после action отсоединяется от persistence context, поэтому память не растёт с числом строк.
+    // Возвращает число обойдённых игроков. Нужна открытая транзакция.
+    long scroll( Specification< Player> spec, Sort sort, int fetchSize, Consumer< Player> action);
+}
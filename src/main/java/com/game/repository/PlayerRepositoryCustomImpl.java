@@ -0,0 +1,184 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class PlayerRepositoryCustomImpl implements PlayerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List< Player> findFirst( Specification< Player> spec, Sort sort, int limit) {
+        return createQuery( spec, sort)
+                .setMaxResults( limit)
+                .getResultList( );
+    }
+
+    @Override
+    public List< Player> findPageContent( Specification< Player> spec, Pageable pageable) {
+        TypedQuery< Player> query = createQuery( spec, pageable.getSort( ));
+        if ( pageable.isPaged( )) {
+            query.setFirstResult( Math.toIntExact( pageable.getOffset( )));
+            query.setMaxResults( pageable.getPageSize( ));
+        }
+        return query.getResultList( );
+    }
+
+    @Override
+    public List< Object[]> countGroups( Specification< Player> spec, int levelBucketSize, int experienceBucketSize) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaQuery< Object[]> query = criteriaBuilder.createQuery( Object[].class);
+        Root< Player> root = query.from( Player.class);
+
+        //   Размеры корзин - числовые литералы, Hibernate вписывает их в SQL, а не передаёт параметрами.
+        // Поэтому выражения в SELECT и GROUP BY совпадают текстуально, как требует ONLY_FULL_GROUP_BY в MySQL.
+        List< Expression< ?>> groups = Arrays.asList(
+                root.get( "race"),
+                root.get( "profession"),
+                root.get( "banned"),
+                criteriaBuilder.function( "floor", Integer.class, criteriaBuilder.quot( root.< Integer>get( "level"), levelBucketSize)),
+                criteriaBuilder.function( "floor", Integer.class, criteriaBuilder.quot( root.< Integer>get( "experience"), experienceBucketSize)));
+        List< Selection< ?>> selections = new ArrayList<>( groups);
+        selections.add( criteriaBuilder.count( root));
+
+        query.multiselect( selections);
+        query.where( spec.toPredicate( root, query, criteriaBuilder));
+        query.groupBy( groups);
+        return entityManager.createQuery( query).getResultList( );
+    }
+
+    @Override
+    public int updateFields( Long id, Map< String, Object> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaUpdate< Player> update = criteriaBuilder.createCriteriaUpdate( Player.class);
+        Root< Player> root = update.from( Player.class);
+
+        fields.forEach( update::set);
+        incrementVersion( update, root, criteriaBuilder);
+        update.where( criteriaBuilder.equal( root.get( "id"), id));
+
+        return entityManager.createQuery( update).executeUpdate( );
+    }
+
+    @Override
+    public int updateWhere( Specification< Player> spec, Map< String, Object> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaUpdate< Player> update = criteriaBuilder.createCriteriaUpdate( Player.class);
+        Root< Player> root = update.from( Player.class);
+
+        fields.forEach( update::set);
+        incrementVersion( update, root, criteriaBuilder);
+        update.where( spec.toPredicate( root, null, criteriaBuilder));
+
+        return entityManager.createQuery( update).executeUpdate( );
+    }
+
+    @Override
+    @SuppressWarnings( { "unchecked", "rawtypes"})
+    public int addExperienceWhere( Specification< Player> spec, int amount, int maxExperience) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaUpdate< Player> update = criteriaBuilder.createCriteriaUpdate( Player.class);
+        Root< Player> root = update.from( Player.class);
+
+        Expression< Integer> sum = criteriaBuilder.sum( root.< Integer>get( "experience"), amount);
+        Expression< Integer> experience = criteriaBuilder.< Integer>selectCase( )
+                .when( criteriaBuilder.gt( sum, maxExperience), maxExperience)
+                .when( criteriaBuilder.lt( sum, 0), 0)
+                .otherwise( sum);
+        // level = floor( ( sqrt( 2500 + 200 * experience) - 50) / 100) - как Player.setLevel( )
+        Expression< Integer> level = criteriaBuilder.function( "floor", Integer.class,
+                criteriaBuilder.quot(
+                        criteriaBuilder.diff( criteriaBuilder.sqrt( criteriaBuilder.sum( criteriaBuilder.prod( experience, 200), 2500)), 50),
+                        100));
+        // untilNextLevel = 50 * ( level + 1) * ( level + 2) - experience - как Player.setUntilNextLevel( )
+        Expression< Integer> untilNextLevel = ( Expression) criteriaBuilder.diff(
+                criteriaBuilder.prod(
+                        criteriaBuilder.prod( criteriaBuilder.sum( level, 1), criteriaBuilder.sum( level, 2)),
+                        50),
+                experience);
+
+        //   MySQL вычисляет SET слева направо и в следующих выражениях уже видит новые значения,
+        // а H2 (как велит стандарт) - старые. Поэтому experience присваивается последним,
+        // а level и untilNextLevel не ссылаются на уже изменённые столбцы.
+        update.set( root.< Integer>get( "level"), level);
+        update.set( root.< Integer>get( "untilNextLevel"), untilNextLevel);
+        update.set( root.< Integer>get( "experience"), experience);
+        incrementVersion( update, root, criteriaBuilder);
+        update.where( spec.toPredicate( root, null, criteriaBuilder));
+
+        return entityManager.createQuery( update).executeUpdate( );
+    }
+
+    @Override
+    public int deleteWhere( Specification< Player> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaDelete< Player> delete = criteriaBuilder.createCriteriaDelete( Player.class);
+        Root< Player> root = delete.from( Player.class);
+
+        delete.where( spec.toPredicate( root, null, criteriaBuilder));
+
+        return entityManager.createQuery( delete).executeUpdate( );
+    }
+
+    @Override
+    public long scroll( Specification< Player> spec, Sort sort, int fetchSize, Consumer< Player> action) {
+        Query< ?> query = createQuery( spec, sort).unwrap( Query.class);
+        query.setReadOnly( true);
+        query.setFetchSize( fetchSize);
+
+        long count = 0;
+        try ( ScrollableResults results = query.scroll( ScrollMode.FORWARD_ONLY)) {
+            while ( results.next( )) {
+                Player player = ( Player) results.get( 0);
+                action.accept( player);
+                entityManager.detach( player);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //   CriteriaUpdate идёт мимо Hibernate, и @Version сам не увеличится (в отличие от HQL "update versioned").
+    // Без этого закэшированные ETag-и и If-Match не заметили бы изменения.
+    private static void incrementVersion( CriteriaUpdate< Player> update, Root< Player> root, CriteriaBuilder criteriaBuilder) {
+        update.set( root.< Long>get( "version"), criteriaBuilder.sum( root.< Long>get( "version"), 1L));
+    }
+
+    private TypedQuery< Player> createQuery( Specification< Player> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder( );
+        CriteriaQuery< Player> query = criteriaBuilder.createQuery( Player.class);
+        Root< Player> root = query.from( Player.class);
+
+        query.select( root);
+        if ( spec != null) {
+            query.where( spec.toPredicate( root, query, criteriaBuilder));
+        }
+        query.orderBy( toOrders( sort, root, criteriaBuilder));
+
+        return entityManager.createQuery( query);
+    }
+}
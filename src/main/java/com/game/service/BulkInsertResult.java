@@ -0,0 +1,57 @@
+package com.game.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Результат массового создания игроков: по каждому элементу входного массива - id или текст ошибки.
+public class BulkInsertResult {
+    private int inserted;
+    private int failed;
+    private final List< Item> items = new ArrayList<>( );
+
+    public int getInserted( ) {
+        return inserted;
+    }
+
+    public int getFailed( ) {
+        return failed;
+    }
+
+    public List< Item> getItems( ) {
+        return items;
+    }
+
+    void addInserted( int index, Long id) {
+        items.add( new Item( index, id, null));
+        inserted++;
+    }
+
+    void addFailed( int index, String error) {
+        items.add( new Item( index, null, error));
+        failed++;
+    }
+
+    public static class Item {
+        private final int index;
+        private final Long id;
+        private final String error;
+
+        Item( int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex( ) {
+            return index;
+        }
+
+        public Long getId( ) {
+            return id;
+        }
+
+        public String getError( ) {
+            return error;
+        }
+    }
+}
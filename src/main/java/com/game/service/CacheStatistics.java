@@ -0,0 +1,51 @@
+package com.game.service;
+
+// Снимок счётчиков одного кэша (отдаётся как JSON через /rest/metrics/caches).
+public class CacheStatistics {
+    private final String cacheName;
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long evictions;
+    private final long invalidations;
+
+    public CacheStatistics( String cacheName, long size, long hits, long misses, double hitRate,
+                            long evictions, long invalidations) {
+        this.cacheName = cacheName;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public String getCacheName( ) {
+        return cacheName;
+    }
+
+    public long getSize( ) {
+        return size;
+    }
+
+    public long getHits( ) {
+        return hits;
+    }
+
+    public long getMisses( ) {
+        return misses;
+    }
+
+    public double getHitRate( ) {
+        return hitRate;
+    }
+
+    public long getEvictions( ) {
+        return evictions;
+    }
+
+    public long getInvalidations( ) {
+        return invalidations;
+    }
+}
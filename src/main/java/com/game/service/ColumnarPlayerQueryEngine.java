@@ -0,0 +1,489 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+//   Индекс игроков в памяти по столбцам (профиль "columnar"): отвечает на findPage / count без запросов к БД.
+//   - experience, level и birthday (номер дня от 01.01.1970 в часовом поясе JVM) - массивы int;
+//   - race, profession и banned - по BitSet на каждое значение;
+//   - строки лежат по возрастанию id, поэтому порядок по id - это просто порядок строк.
+//   Результаты совпадают с PlayerSpecification на H2: LIKE с учётом регистра ('%', '_' и '\' работают как в SQL),
+// строки сравниваются посимвольно. Для БД с регистронезависимой collation есть columnar.ignoreCase.
+//   Таблица читается из БД при первом запросе и после playersReset, дальше поддерживается событиями PlayerChangeListener.
+// Строки из playersChanged перечитываются из БД перед следующим запросом.
+//   Большие таблицы просматриваются параллельно (parallel stream, т.е. общий ForkJoinPool) кусками по scanChunkRows строк.
+//   Keyset-пагинация (findAllWithCriterionsAfter) по-прежнему идёт в БД.
+@Component
+@Profile( "columnar")
+public class ColumnarPlayerQueryEngine implements PlayerQueryEngine, PlayerChangeListener {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String ID = "id";
+
+    private final PlayerRepository playerRepository;
+    private final boolean ignoreCase;
+    private final int parallelThreshold;
+    private final int scanChunkWords;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock( );
+
+    // Всё, что ниже, меняется только под lock.writeLock( ).
+    private boolean loaded;
+    private final Set< Long> staleIds = new HashSet<>( );
+    private boolean unsorted;
+    private int size;           // занятые строки, включая удалённые
+    private int deleted;
+    private long[] ids;
+    private Player[] players;
+    private int[] experience;
+    private int[] level;
+    private int[] birthday;
+    private BitSet live;
+    private BitSet[] raceBits;
+    private BitSet[] professionBits;
+    private BitSet bannedBits;
+    private Map< Long, Integer> rowById;
+
+    public ColumnarPlayerQueryEngine(
+            PlayerRepository playerRepository,
+            @Value( "${columnar.ignoreCase:false}") boolean ignoreCase,
+            @Value( "${columnar.parallelThreshold:50000}") int parallelThreshold,
+            @Value( "${columnar.scanChunkRows:65536}") int scanChunkRows) {
+        this.playerRepository = playerRepository;
+        this.ignoreCase = ignoreCase;
+        this.parallelThreshold = parallelThreshold;
+        this.scanChunkWords = Math.max( 1, scanChunkRows / Long.SIZE);
+        clear( );
+    }
+
+    @Override
+    public List< Player> findPage( PlayerFilter filter, Pageable pageable) {
+        ensureCurrent( );
+        lock.readLock( ).lock( );
+        try {
+            int[] rows = order( match( filter.normalized( )), pageable.getSort( ));
+            int from = pageable.isPaged( ) ? ( int) Math.min( pageable.getOffset( ), rows.length) : 0;
+            int to = pageable.isPaged( ) ? Math.min( from + pageable.getPageSize( ), rows.length) : rows.length;
+
+            List< Player> result = new ArrayList<>( to - from);
+            for ( int i = from; i < to; i++) {
+                result.add( new Player( players[ rows[ i]]));
+            }
+            return result;
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    @Override
+    public long count( PlayerFilter filter) {
+        ensureCurrent( );
+        lock.readLock( ).lock( );
+        try {
+            return match( filter.normalized( )).cardinality( );
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    @Override
+    public void playerInserted( Player player) {
+        write( ( ) -> upsert( player));
+    }
+
+    @Override
+    public void playerUpdated( Player oldPlayer, Player newPlayer) {
+        write( ( ) -> upsert( newPlayer));
+    }
+
+    @Override
+    public void playerDeleted( Player player) {
+        write( ( ) -> remove( player.getId( )));
+    }
+
+    @Override
+    public void playersChanged( Collection< Long> ids) {
+        write( ( ) -> staleIds.addAll( ids));
+    }
+
+    @Override
+    public void playersExperienceChanged( Collection< Player> players) {
+        write( ( ) -> players.forEach( this::upsert));
+    }
+
+    @Override
+    public void playersReset( ) {
+        lock.writeLock( ).lock( );
+        try {
+            loaded = false;
+            clear( );
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    // Изменение из события. Пока таблица не загружена, применять его не к чему - загрузка и так прочитает его из БД.
+    private void write( Runnable change) {
+        lock.writeLock( ).lock( );
+        try {
+            if ( loaded) {
+                change.run( );
+                compactIfNeeded( );
+            }
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private void ensureCurrent( ) {
+        lock.readLock( ).lock( );
+        try {
+            if ( loaded && staleIds.isEmpty( )) {
+                return;
+            }
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+
+        lock.writeLock( ).lock( );
+        try {
+            if ( !loaded) {
+                clear( );
+                for ( Player player : playerRepository.findAll( Sort.by( ID))) {
+                    upsert( player);
+                }
+                staleIds.clear( );
+                loaded = true;
+            } else if ( !staleIds.isEmpty( )) {
+                List< Long> reload = new ArrayList<>( staleIds);
+                staleIds.clear( );
+                Set< Long> missing = new HashSet<>( reload);
+                for ( Player player : playerRepository.findAllById( reload)) {
+                    missing.remove( player.getId( ));
+                    upsert( player);
+                }
+                missing.forEach( this::remove);
+            }
+            compactIfNeeded( );
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private void clear( ) {
+        size = 0;
+        deleted = 0;
+        unsorted = false;
+        ids = new long[ INITIAL_CAPACITY];
+        players = new Player[ INITIAL_CAPACITY];
+        experience = new int[ INITIAL_CAPACITY];
+        level = new int[ INITIAL_CAPACITY];
+        birthday = new int[ INITIAL_CAPACITY];
+        live = new BitSet( );
+        raceBits = new BitSet[ Race.values( ).length];
+        for ( int i = 0; i < raceBits.length; i++) {
+            raceBits[ i] = new BitSet( );
+        }
+        professionBits = new BitSet[ Profession.values( ).length];
+        for ( int i = 0; i < professionBits.length; i++) {
+            professionBits[ i] = new BitSet( );
+        }
+        bannedBits = new BitSet( );
+        rowById = new HashMap<>( );
+    }
+
+    private void upsert( Player source) {
+        Player player = new Player( source);
+        // В БД хранится только дата, поэтому и здесь день рождения - полночь того же дня, как его вернула бы БД.
+        int day = ( int) toEpochDay( player.getBirthday( ));
+        player.setBirthday( new Date( LocalDate.ofEpochDay( day).atStartOfDay( ZoneId.systemDefault( )).toInstant( ).toEpochMilli( )));
+
+        Integer existing = rowById.get( player.getId( ));
+        int row;
+        if ( existing == null) {
+            if ( size == ids.length) {
+                grow( );
+            }
+            row = size++;
+            if ( row > 0 && ids[ row - 1] > player.getId( )) {
+                unsorted = true;
+            }
+            rowById.put( player.getId( ), row);
+            live.set( row);
+        } else {
+            row = existing;
+            clearBits( row);
+        }
+
+        ids[ row] = player.getId( );
+        players[ row] = player;
+        experience[ row] = player.getExperience( );
+        level[ row] = player.getLevel( );
+        birthday[ row] = day;
+        if ( player.getRace( ) != null) {
+            raceBits[ player.getRace( ).ordinal( )].set( row);
+        }
+        if ( player.getProfession( ) != null) {
+            professionBits[ player.getProfession( ).ordinal( )].set( row);
+        }
+        bannedBits.set( row, Boolean.TRUE.equals( player.getBanned( )));
+    }
+
+    private void remove( Long id) {
+        Integer row = rowById.remove( id);
+        if ( row == null) {
+            return;
+        }
+        clearBits( row);
+        live.clear( row);
+        players[ row] = null;
+        deleted++;
+    }
+
+    private void clearBits( int row) {
+        for ( BitSet bits : raceBits) {
+            bits.clear( row);
+        }
+        for ( BitSet bits : professionBits) {
+            bits.clear( row);
+        }
+        bannedBits.clear( row);
+    }
+
+    private void grow( ) {
+        int capacity = ids.length + ( ids.length >> 1);
+        ids = Arrays.copyOf( ids, capacity);
+        players = Arrays.copyOf( players, capacity);
+        experience = Arrays.copyOf( experience, capacity);
+        level = Arrays.copyOf( level, capacity);
+        birthday = Arrays.copyOf( birthday, capacity);
+    }
+
+    //   Удалённые строки остаются дырами, а игрок с id меньше последнего дописывается в конец.
+    // Когда дыр много или порядок по id нарушен, строки переписываются заново.
+    private void compactIfNeeded( ) {
+        if ( !unsorted && deleted <= Math.max( INITIAL_CAPACITY, size / 4)) {
+            return;
+        }
+        List< Player> alive = new ArrayList<>( size - deleted);
+        for ( int row = live.nextSetBit( 0); row >= 0; row = live.nextSetBit( row + 1)) {
+            alive.add( players[ row]);
+        }
+        alive.sort( Comparator.comparing( Player::getId));
+        clear( );
+        alive.forEach( this::upsert);
+    }
+
+    // Строки, подходящие под фильтр. Равенства - пересечением BitSet, диапазоны и LIKE - просмотром оставшихся строк.
+    private BitSet match( PlayerFilter filter) {
+        BitSet candidates = ( BitSet) live.clone( );
+        if ( filter.getRace( ) != null) {
+            candidates.and( raceBits[ Race.valueOf( filter.getRace( )).ordinal( )]);
+        }
+        if ( filter.getProfession( ) != null) {
+            candidates.and( professionBits[ Profession.valueOf( filter.getProfession( )).ordinal( )]);
+        }
+        if ( filter.getBanned( ) != null) {
+            if ( filter.getBanned( )) {
+                candidates.and( bannedBits);
+            } else {
+                candidates.andNot( bannedBits);
+            }
+        }
+
+        IntPredicate predicate = rowPredicate( filter);
+        if ( predicate == null) {
+            return candidates;
+        }
+        long[] words = candidates.toLongArray( );
+        int chunks = ( words.length + scanChunkWords - 1) / scanChunkWords;
+        IntStream scan = IntStream.range( 0, chunks);
+        if ( size >= parallelThreshold && chunks > 1) {
+            scan = scan.parallel( );
+        }
+        // Каждый кусок меняет только свои слова массива, поэтому синхронизация не нужна.
+        scan.forEach( chunk -> scanWords( words,
+                chunk * scanChunkWords, Math.min( words.length, ( chunk + 1) * scanChunkWords), predicate));
+        return BitSet.valueOf( words);
+    }
+
+    private static void scanWords( long[] words, int from, int to, IntPredicate predicate) {
+        for ( int w = from; w < to; w++) {
+            long word = words[ w];
+            long kept = word;
+            while ( word != 0) {
+                int bit = Long.numberOfTrailingZeros( word);
+                if ( !predicate.test( w * Long.SIZE + bit)) {
+                    kept &= ~( 1L << bit);
+                }
+                word &= word - 1;
+            }
+            words[ w] = kept;
+        }
+    }
+
+    // Условия фильтра, которые не сводятся к BitSet (null - таких нет).
+    private IntPredicate rowPredicate( PlayerFilter filter) {
+        List< IntPredicate> predicates = new ArrayList<>( );
+        Player[] players = this.players;
+        int[] experience = this.experience;
+        int[] level = this.level;
+        int[] birthday = this.birthday;
+
+        //   ignoreCase в фильтре - без учёта регистра (и "ё" / "й"): шаблон и значение сравниваются после LikePattern.fold.
+        boolean fold = Boolean.TRUE.equals( filter.getIgnoreCase( ));
+        if ( filter.getName( ) != null) {
+            Predicate< String> like = textPredicate( filter.getName( ), fold);
+            predicates.add( row -> like.test( players[ row].getName( )));
+        }
+        if ( filter.getTitle( ) != null) {
+            Predicate< String> like = textPredicate( filter.getTitle( ), fold);
+            predicates.add( row -> like.test( players[ row].getTitle( )));
+        }
+        //   Hibernate передаёт границы как DATE, то есть драйвер отбрасывает время (в часовом поясе JVM).
+        // Поэтому сравниваются номера дней.
+        if ( filter.getAfter( ) != null) {
+            long after = toEpochDay( new Date( filter.getAfter( )));
+            predicates.add( row -> birthday[ row] >= after);
+        }
+        if ( filter.getBefore( ) != null) {
+            long before = toEpochDay( new Date( filter.getBefore( )));
+            predicates.add( row -> birthday[ row] <= before);
+        }
+        if ( filter.getMinExperience( ) != null) {
+            int min = filter.getMinExperience( );
+            predicates.add( row -> experience[ row] >= min);
+        }
+        if ( filter.getMaxExperience( ) != null) {
+            int max = filter.getMaxExperience( );
+            predicates.add( row -> experience[ row] <= max);
+        }
+        if ( filter.getMinLevel( ) != null) {
+            int min = filter.getMinLevel( );
+            predicates.add( row -> level[ row] >= min);
+        }
+        if ( filter.getMaxLevel( ) != null) {
+            int max = filter.getMaxLevel( );
+            predicates.add( row -> level[ row] <= max);
+        }
+        return predicates.stream( ).reduce( IntPredicate::and).orElse( null);
+    }
+
+    private Predicate< String> textPredicate( String pattern, boolean fold) {
+        if ( !fold) {
+            return LikePattern.compile( pattern, ignoreCase);
+        }
+        Predicate< String> like = LikePattern.compile( LikePattern.fold( pattern), false);
+        return value -> like.test( LikePattern.fold( value));
+    }
+
+    //   Строки в порядке сортировки. Поддерживаются сортировки, которые строит PlayerController:
+    // одно поле из PlayerOrder, при равенстве - по возрастанию id.
+    private int[] order( BitSet matches, Sort sort) {
+        int[] rows = matches.stream( ).toArray( );
+        Iterator< Sort.Order> orders = sort.iterator( );
+        if ( !orders.hasNext( )) {
+            return rows;
+        }
+        Sort.Order first = orders.next( );
+        while ( orders.hasNext( )) {
+            Sort.Order next = orders.next( );
+            if ( !ID.equals( next.getProperty( )) || next.isDescending( )) {
+                throw new IllegalArgumentException( "Unsupported sort: " + sort);
+            }
+        }
+
+        boolean descending = first.isDescending( );
+        switch ( first.getProperty( )) {
+            case ID:
+                if ( descending) {
+                    for ( int i = 0, j = rows.length - 1; i < j; i++, j--) {
+                        int row = rows[ i];
+                        rows[ i] = rows[ j];
+                        rows[ j] = row;
+                    }
+                }
+                return rows;
+            case "experience":
+                return sortByKey( rows, experience, descending);
+            case "level":
+                return sortByKey( rows, level, descending);
+            case "birthday":
+                return sortByKey( rows, birthday, descending);
+            case "name":
+                return sortByName( rows, descending);
+            default:
+                throw new IllegalArgumentException( "Unsupported sort property: " + first.getProperty( ));
+        }
+    }
+
+    //   Ключ в старших 32 битах, номер строки в младших: сортировка long[] сразу даёт порядок "ключ, затем id".
+    private int[] sortByKey( int[] rows, int[] column, boolean descending) {
+        long[] keys = new long[ rows.length];
+        for ( int i = 0; i < rows.length; i++) {
+            long key = descending ? -( long) column[ rows[ i]] : column[ rows[ i]];
+            keys[ i] = ( key << 32) | rows[ i];
+        }
+        if ( keys.length >= parallelThreshold) {
+            Arrays.parallelSort( keys);
+        } else {
+            Arrays.sort( keys);
+        }
+        for ( int i = 0; i < keys.length; i++) {
+            rows[ i] = ( int) keys[ i];
+        }
+        return rows;
+    }
+
+    private int[] sortByName( int[] rows, boolean descending) {
+        Comparator< String> names = ignoreCase ? String.CASE_INSENSITIVE_ORDER : Comparator.naturalOrder( );
+        if ( descending) {
+            names = names.reversed( );
+        }
+        Comparator< String> byName = names;
+        Comparator< Integer> comparator = ( a, b) -> {
+            int result = byName.compare( players[ a].getName( ), players[ b].getName( ));
+            return result != 0 ? result : Integer.compare( a, b);
+        };
+
+        Integer[] boxed = IntStream.of( rows).boxed( ).toArray( Integer[]::new);
+        if ( boxed.length >= parallelThreshold) {
+            Arrays.parallelSort( boxed, comparator);
+        } else {
+            Arrays.sort( boxed, comparator);
+        }
+        for ( int i = 0; i < boxed.length; i++) {
+            rows[ i] = boxed[ i];
+        }
+        return rows;
+    }
+
+    private static long toEpochDay( Date date) {
+        return Instant.ofEpochMilli( date.getTime( )).atZone( ZoneId.systemDefault( )).toLocalDate( ).toEpochDay( );
+    }
+}
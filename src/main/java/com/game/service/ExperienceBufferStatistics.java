@@ -0,0 +1,65 @@
+package com.game.service;
+
+// Снимок счётчиков буфера начислений опыта (отдаётся как JSON через /rest/metrics/experience-buffer).
+public class ExperienceBufferStatistics {
+    private final int pendingPlayers;
+    private final int maxPlayers;
+    private final long acceptedEvents;
+    private final long rejectedEvents;
+    private final long flushes;
+    private final long flushedPlayers;
+    private final long failedFlushes;
+    private final long droppedPlayers;
+    private final long lastFlushMillis;
+
+    public ExperienceBufferStatistics( int pendingPlayers, int maxPlayers, long acceptedEvents, long rejectedEvents,
+                                       long flushes, long flushedPlayers, long failedFlushes, long droppedPlayers,
+                                       long lastFlushMillis) {
+        this.pendingPlayers = pendingPlayers;
+        this.maxPlayers = maxPlayers;
+        this.acceptedEvents = acceptedEvents;
+        this.rejectedEvents = rejectedEvents;
+        this.flushes = flushes;
+        this.flushedPlayers = flushedPlayers;
+        this.failedFlushes = failedFlushes;
+        this.droppedPlayers = droppedPlayers;
+        this.lastFlushMillis = lastFlushMillis;
+    }
+
+    public int getPendingPlayers( ) {
+        return pendingPlayers;
+    }
+
+    public int getMaxPlayers( ) {
+        return maxPlayers;
+    }
+
+    public long getAcceptedEvents( ) {
+        return acceptedEvents;
+    }
+
+    public long getRejectedEvents( ) {
+        return rejectedEvents;
+    }
+
+    public long getFlushes( ) {
+        return flushes;
+    }
+
+    public long getFlushedPlayers( ) {
+        return flushedPlayers;
+    }
+
+    public long getFailedFlushes( ) {
+        return failedFlushes;
+    }
+
+    // Игроки, чьи начисления отброшены: их строку не удалось записать даже отдельно от остальных.
+    public long getDroppedPlayers( ) {
+        return droppedPlayers;
+    }
+
+    public long getLastFlushMillis( ) {
+        return lastFlushMillis;
+    }
+}
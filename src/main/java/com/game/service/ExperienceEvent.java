@@ -0,0 +1,31 @@
+package com.game.service;
+
+// Одно начисление опыта от игрового сервера (POST /rest/players/experience-events).
+public class ExperienceEvent {
+    private Long playerId;
+    private Integer amount;
+
+    public ExperienceEvent( ) {
+    }
+
+    public ExperienceEvent( Long playerId, Integer amount) {
+        this.playerId = playerId;
+        this.amount = amount;
+    }
+
+    public Long getPlayerId( ) {
+        return playerId;
+    }
+
+    public void setPlayerId( Long playerId) {
+        this.playerId = playerId;
+    }
+
+    public Integer getAmount( ) {
+        return amount;
+    }
+
+    public void setAmount( Integer amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,266 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//   Буфер начислений опыта с отложенной записью.
+//   Начисления одному игроку складываются в одну дельту, и раз в experience.buffer.flushIntervalMillis
+// все накопленные дельты пишутся пакетом UPDATE-ов - по одному на игрока, а не на событие.
+//   Число игроков в буфере ограничено experience.buffer.maxPlayers: начисление новому игроку в полный буфер
+// не принимается (контроллер отвечает 503), игрокам, которые уже в буфере, опыт добавляется всегда.
+//   Пакет, который не записался, не задерживает остальные: при временной ошибке (блокировка, таймаут) он возвращается
+// в буфер до следующей записи, при ошибке в данных пишется по одной строке, и строки, которые не записываются
+// и поодиночке, отбрасываются (droppedPlayers). Только если БД недоступна, в буфер возвращается всё незаписанное.
+//   При остановке приложения буфер закрывается и записывается в БД.
+@Component
+public class ExperienceEventBuffer implements AutoCloseable {
+    // Опыт после начисления, не больше MAX_EXPERIENCE (отрицательных начислений буфер не принимает).
+    private static final String EXPERIENCE = "LEAST( experience + ?, " + Player.MAX_EXPERIENCE + ")";
+    // Как Player.setLevel( )
+    private static final String LEVEL = "FLOOR( ( SQRT( 2500 + 200 * " + EXPERIENCE + ") - 50) / 100)";
+    //   experience присваивается последним: MySQL в следующих выражениях SET видит уже новые значения, H2 - старые
+    // (см. PlayerRepositoryCustomImpl.addExperienceWhere). Дельта подставляется в каждое из пяти вхождений EXPERIENCE.
+    static final String UPDATE_SQL = "UPDATE player SET" +
+            " level = " + LEVEL + "," +
+            " untilNextLevel = 50 * ( " + LEVEL + " + 1) * ( " + LEVEL + " + 2) - " + EXPERIENCE + "," +
+            " experience = " + EXPERIENCE + "," +
+            " version = version + 1" +
+            " WHERE id = ?";
+    private static final int DELTA_PARAMETERS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlayerRepository playerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PlayerChangePublisher playerChangePublisher;
+    private final int maxPlayers;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    //   Начисления берут readLock (их может быть сколько угодно одновременно, ConcurrentHashMap.merge атомарен),
+    // запись в БД на время подмены pending новой пустой картой - writeLock.
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock( );
+    private volatile ConcurrentHashMap< Long, Long> pending = new ConcurrentHashMap<>( );
+    private volatile boolean closed;
+    // Плановая запись и запись при остановке не должны идти одновременно.
+    private final ReentrantLock flushLock = new ReentrantLock( );
+
+    private final AtomicLong acceptedEvents = new AtomicLong( );
+    private final AtomicLong rejectedEvents = new AtomicLong( );
+    private final AtomicLong flushes = new AtomicLong( );
+    private final AtomicLong flushedPlayers = new AtomicLong( );
+    private final AtomicLong failedFlushes = new AtomicLong( );
+    private final AtomicLong droppedPlayers = new AtomicLong( );
+    private volatile long lastFlushMillis;
+
+    public ExperienceEventBuffer(
+            JdbcTemplate jdbcTemplate,
+            PlayerRepository playerRepository,
+            PlatformTransactionManager transactionManager,
+            PlayerChangePublisher playerChangePublisher,
+            @Value( "${experience.buffer.maxPlayers:100000}") int maxPlayers,
+            @Value( "${experience.buffer.batchSize:500}") int batchSize,
+            @Value( "${experience.buffer.flushIntervalMillis:1000}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.playerRepository = playerRepository;
+        this.transactionTemplate = new TransactionTemplate( transactionManager);
+        this.playerChangePublisher = playerChangePublisher;
+        this.maxPlayers = maxPlayers;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public static boolean isValid( ExperienceEvent event) {
+        return event != null
+                && event.getPlayerId( ) != null && event.getPlayerId( ) > 0
+                && event.getAmount( ) != null && event.getAmount( ) > 0 && event.getAmount( ) <= Player.MAX_EXPERIENCE;
+    }
+
+    //   Принимает события по порядку до первого, для которого нет места (или пока буфер не закрыт).
+    // Возвращает число принятых - остальные клиент должен прислать повторно.
+    //   События должны быть проверены isValid.
+    public int offer( List< ExperienceEvent> events) {
+        int accepted = 0;
+        swapLock.readLock( ).lock( );
+        try {
+            for ( ExperienceEvent event : events) {
+                if ( closed || !add( event.getPlayerId( ), event.getAmount( ))) {
+                    break;
+                }
+                accepted++;
+            }
+        } finally {
+            swapLock.readLock( ).unlock( );
+        }
+        acceptedEvents.addAndGet( accepted);
+        rejectedEvents.addAndGet( events.size( ) - accepted);
+        return accepted;
+    }
+
+    //   Через сколько секунд есть смысл повторить отклонённые события - к этому времени буфер будет записан.
+    public long getRetryAfterSeconds( ) {
+        return Math.max( 1, ( flushIntervalMillis + 999) / 1000);
+    }
+
+    //   size( ) у ConcurrentHashMap приблизителен при одновременных вставках,
+    // поэтому граница maxPlayers может быть превышена на число одновременно пишущих потоков.
+    private boolean add( long playerId, long amount) {
+        ConcurrentHashMap< Long, Long> current = pending;
+        if ( current.size( ) >= maxPlayers && !current.containsKey( playerId)) {
+            return false;
+        }
+        current.merge( playerId, amount, Long::sum);
+        return true;
+    }
+
+    @Scheduled( fixedDelayString = "${experience.buffer.flushIntervalMillis:1000}")
+    public void flush( ) {
+        flushLock.lock( );
+        try {
+            ConcurrentHashMap< Long, Long> deltas;
+            swapLock.writeLock( ).lock( );
+            try {
+                deltas = pending;
+                if ( deltas.isEmpty( )) {
+                    return;
+                }
+                pending = new ConcurrentHashMap<>( );
+            } finally {
+                swapLock.writeLock( ).unlock( );
+            }
+
+            long started = System.nanoTime( );
+            List< Map.Entry< Long, Long>> entries = new ArrayList<>( deltas.entrySet( ));
+            RuntimeException failure = null;
+            for ( int from = 0; from < entries.size( ); from += batchSize) {
+                List< Map.Entry< Long, Long>> chunk = entries.subList( from, Math.min( from + batchSize, entries.size( )));
+                try {
+                    flushedPlayers.addAndGet( writeChunk( chunk));
+                } catch ( RuntimeException re) {
+                    // Транзакция пакета откатилась.
+                    failedFlushes.incrementAndGet( );
+                    if ( failure == null) {
+                        failure = re;
+                    }
+                    if ( isUnavailable( re)) {
+                        // Остальные пакеты тоже не запишутся - возвращаем в буфер всё, что не записано.
+                        requeue( entries.subList( from, entries.size( )));
+                        break;
+                    }
+                    if ( re instanceof TransientDataAccessException) {
+                        requeue( chunk);
+                    } else {
+                        writeRowByRow( chunk);
+                    }
+                }
+            }
+            // Ошибку в журнал пишет планировщик (а при close( ) её получает Spring).
+            if ( failure != null) {
+                throw failure;
+            }
+            flushes.incrementAndGet( );
+            lastFlushMillis = ( System.nanoTime( ) - started) / 1_000_000;
+        } finally {
+            flushLock.unlock( );
+        }
+    }
+
+    //   Один пакет UPDATE-ов в одной транзакции. Возвращает число изменённых строк
+    // (игроки, удалённые после начисления, просто не находятся).
+    //   Изменённые строки перечитываются здесь же одним запросом, и слушатели получают их новое состояние
+    // (playersExperienceChanged) - каждому не нужно перечитывать их самому.
+    private int writeChunk( List< Map.Entry< Long, Long>> chunk) {
+        return transactionTemplate.execute( status -> {
+            int[][] counts = jdbcTemplate.batchUpdate( UPDATE_SQL, chunk, chunk.size( ), ( ps, entry) -> {
+                int delta = ( int) Math.min( entry.getValue( ), Player.MAX_EXPERIENCE);
+                for ( int i = 1; i <= DELTA_PARAMETERS; i++) {
+                    ps.setInt( i, delta);
+                }
+                ps.setLong( DELTA_PARAMETERS + 1, entry.getKey( ));
+            });
+            int updated = 0;
+            List< Long> ids = new ArrayList<>( chunk.size( ));
+            for ( int i = 0; i < chunk.size( ); i++) {
+                int count = counts[ 0][ i];
+                // С rewriteBatchedStatements MySQL не сообщает число строк по отдельным UPDATE-ам.
+                if ( count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    updated++;
+                    ids.add( chunk.get( i).getKey( ));
+                }
+            }
+            if ( !ids.isEmpty( )) {
+                playerChangePublisher.experienceChanged( playerRepository.findAllById( ids));
+            }
+            return updated;
+        });
+    }
+
+    private void writeRowByRow( List< Map.Entry< Long, Long>> chunk) {
+        for ( Map.Entry< Long, Long> entry : chunk) {
+            List< Map.Entry< Long, Long>> row = Collections.singletonList( entry);
+            try {
+                flushedPlayers.addAndGet( writeChunk( row));
+            } catch ( RuntimeException re) {
+                if ( isUnavailable( re) || re instanceof TransientDataAccessException) {
+                    requeue( row);
+                } else {
+                    droppedPlayers.incrementAndGet( );
+                }
+            }
+        }
+    }
+
+    // Ошибка не в данных, а в доступе к БД (нет соединения, не открылась или не закрылась транзакция).
+    private static boolean isUnavailable( RuntimeException re) {
+        return re instanceof DataAccessResourceFailureException || re instanceof TransactionException;
+    }
+
+    private void requeue( List< Map.Entry< Long, Long>> entries) {
+        swapLock.readLock( ).lock( );
+        try {
+            // Эти начисления уже были приняты, поэтому ограничение maxPlayers к ним не применяется.
+            for ( Map.Entry< Long, Long> entry : entries) {
+                pending.merge( entry.getKey( ), entry.getValue( ), Long::sum);
+            }
+        } finally {
+            swapLock.readLock( ).unlock( );
+        }
+    }
+
+    //   Вызывается Spring при закрытии контекста (бин AutoCloseable). Бин зависит от JdbcTemplate,
+    // поэтому уничтожается раньше DataSource - БД ещё доступна.
+    @Override
+    public void close( ) {
+        swapLock.writeLock( ).lock( );
+        try {
+            closed = true;
+        } finally {
+            swapLock.writeLock( ).unlock( );
+        }
+        flush( );
+    }
+
+    public ExperienceBufferStatistics getStatistics( ) {
+        return new ExperienceBufferStatistics( pending.size( ), maxPlayers,
+                acceptedEvents.get( ), rejectedEvents.get( ),
+                flushes.get( ), flushedPlayers.get( ), failedFlushes.get( ), droppedPlayers.get( ), lastFlushMillis);
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//   Поиск через PlayerSpecification запросами к БД.
+//   Подстроки name / title сначала ищутся в PlayerNgramIndex, и в запрос к LIKE добавляется id IN ( найденные id);
+// если не нашлось никого, в БД запрос не идёт вовсе. Если найденных id больше maxInListSize, запрос идёт как раньше,
+// одним LIKE.
+//   Индекс - с одним писателем: он знает только об изменениях, о которых сообщили через PlayerChangePublisher.
+// Строку, изменённую мимо приложения (другим узлом, SQL напрямую), поиск видит в старом виде, пока о ней не сообщат
+// ( changed / reset). Кандидаты - надмножество ответа: условие всё равно проверяет LIKE в БД (регистр решает collation).
+@Component
+@Profile( "!columnar")
+public class JpaPlayerQueryEngine implements PlayerQueryEngine {
+    private final PlayerRepository playerRepository;
+    private final PlayerNgramIndex ngramIndex;
+    private final int maxInListSize;
+
+    // Без индекса подстрок - только PlayerSpecification.
+    public JpaPlayerQueryEngine( PlayerRepository playerRepository) {
+        this( playerRepository, null, 0);
+    }
+
+    @Autowired
+    public JpaPlayerQueryEngine(
+            PlayerRepository playerRepository,
+            PlayerNgramIndex ngramIndex,
+            @Value( "${ngram.maxInListSize:1000}") int maxInListSize) {
+        this.playerRepository = playerRepository;
+        this.ngramIndex = ngramIndex;
+        this.maxInListSize = maxInListSize;
+    }
+
+    @Override
+    public List< Player> findPage( PlayerFilter filter, Pageable pageable) {
+        Specification< Player> specification = toSpecification( filter);
+        // findAll( spec, pageable) вдобавок делает count, результат которого здесь не нужен.
+        return specification == null ?
+                Collections.emptyList( ) :
+                playerRepository.findPageContent( specification, pageable);
+    }
+
+    @Override
+    public long count( PlayerFilter filter) {
+        Specification< Player> specification = toSpecification( filter);
+        return specification == null ? 0 : playerRepository.count( specification);
+    }
+
+    // null - по индексу подстрок под фильтр не подходит никто, в БД можно не ходить.
+    private Specification< Player> toSpecification( PlayerFilter filter) {
+        if ( ngramIndex == null) {
+            return filter.toSpecification( );
+        }
+        PlayerFilter normalized = filter.normalized( );
+        Set< Long> ids = null;
+
+        if ( normalized.getName( ) != null) {
+            Set< Long> found = ngramIndex.findIds( PlayerNgramIndex.Field.NAME, normalized.getName( ));
+            if ( found != null && found.size( ) <= maxInListSize) {
+                ids = found;
+            }
+        }
+        if ( normalized.getTitle( ) != null) {
+            Set< Long> found = ngramIndex.findIds( PlayerNgramIndex.Field.TITLE, normalized.getTitle( ));
+            if ( found != null && found.size( ) <= maxInListSize) {
+                if ( ids == null) {
+                    ids = found;
+                } else {
+                    ids = new HashSet<>( ids);
+                    ids.retainAll( found);
+                }
+            }
+        }
+
+        if ( ids == null) {
+            return normalized.toSpecification( );
+        }
+        if ( ids.isEmpty( )) {
+            return null;
+        }
+        Set< Long> in = ids;
+        return normalized.toSpecification( ).and( ( root, query, criteriaBuilder) -> root.get( "id").in( in));
+    }
+}
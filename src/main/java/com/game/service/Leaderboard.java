@@ -0,0 +1,344 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+//   Таблицы лидеров по опыту: общая, по каждой расе и по каждой профессии - со всеми игроками и без забаненных.
+//   Каждая таблица - RankTree: место игрока и страница мест отдаются за O(log n) без запросов к БД.
+// При равном опыте выше стоит игрок с меньшим id (раньше зарегистрированный), поэтому места не повторяются.
+//   Таблицы строятся из одного SELECT за O(n log n) (сортировка) + O(n) (деревья). Построение запускается в фоне
+// после старта контекста (leaderboard.warmUp) и не задерживает его; запрос до окончания построения его дождётся.
+//   Дальше таблицы поддерживаются событиями PlayerChangeListener, строки из playersChanged перечитываются из БД,
+// новый опыт из playersExperienceChanged применяется на месте.
+@Component
+public class Leaderboard implements PlayerChangeListener {
+    private static final String SELECT = "SELECT id, name, race, profession, banned, experience, level FROM player";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean warmUp;
+    private final AtomicBoolean warmUpStarted = new AtomicBoolean( );
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock( );
+
+    // Всё, что ниже, меняется только под lock.writeLock( ).
+    private final Random random = new Random( );
+    private boolean loaded;
+    private final Set< Long> staleIds = new HashSet<>( );
+    private final Map< Long, Ranked> players = new HashMap<>( );
+    private final Board global = new Board( random);
+    private final Board[] raceBoards = new Board[ Race.values( ).length];
+    private final Board[] professionBoards = new Board[ Profession.values( ).length];
+
+    public Leaderboard( JdbcTemplate jdbcTemplate, @Value( "${leaderboard.warmUp:true}") boolean warmUp) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate( jdbcTemplate);
+        this.warmUp = warmUp;
+        for ( int i = 0; i < raceBoards.length; i++) {
+            raceBoards[ i] = new Board( random);
+        }
+        for ( int i = 0; i < professionBoards.length; i++) {
+            professionBoards[ i] = new Board( random);
+        }
+    }
+
+    //   Контекст web-приложения дочерний, его событие тоже приходит сюда - поэтому построение запускается один раз.
+    @EventListener( ContextRefreshedEvent.class)
+    public void startWarmUp( ) {
+        if ( !warmUp || !warmUpStarted.compareAndSet( false, true)) {
+            return;
+        }
+        Thread thread = new Thread( ( ) -> {
+            try {
+                ensureCurrent( );
+            } catch ( RuntimeException re) {
+                // Не страшно: таблицы построит первый запрос.
+            }
+        }, "leaderboard-warm-up");
+        thread.setDaemon( true);
+        thread.start( );
+    }
+
+    // race и profession - не больше одного из двух; оба null - общая таблица.
+    public long size( Race race, Profession profession, boolean excludeBanned) {
+        RankTree tree = tree( race, profession, excludeBanned);
+        ensureCurrent( );
+        lock.readLock( ).lock( );
+        try {
+            return tree.size( );
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    // Места с fromRank (с 1) по fromRank + count - 1.
+    public List< LeaderboardEntry> range( Race race, Profession profession, boolean excludeBanned, long fromRank, int count) {
+        RankTree tree = tree( race, profession, excludeBanned);
+        ensureCurrent( );
+        lock.readLock( ).lock( );
+        try {
+            List< LeaderboardEntry> result = new ArrayList<>( );
+            tree.forEach( fromRank - 1, count,
+                    ( position, id, experience) -> result.add( players.get( id).toEntry( position + 1)));
+            return result;
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    // Место игрока в таблице; null - игрока нет или он не попадает в эту таблицу.
+    public LeaderboardEntry find( long id, Race race, Profession profession, boolean excludeBanned) {
+        RankTree tree = tree( race, profession, excludeBanned);
+        ensureCurrent( );
+        lock.readLock( ).lock( );
+        try {
+            Ranked player = players.get( id);
+            if ( player == null
+                    || race != null && race != player.race
+                    || profession != null && profession != player.profession
+                    || excludeBanned && player.banned) {
+                return null;
+            }
+            return player.toEntry( tree.positionOf( id, player.experience) + 1);
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    @Override
+    public void playerInserted( Player player) {
+        write( ( ) -> upsert( Ranked.of( player)));
+    }
+
+    @Override
+    public void playerUpdated( Player oldPlayer, Player newPlayer) {
+        write( ( ) -> upsert( Ranked.of( newPlayer)));
+    }
+
+    @Override
+    public void playerDeleted( Player player) {
+        write( ( ) -> remove( player.getId( )));
+    }
+
+    @Override
+    public void playersChanged( Collection< Long> ids) {
+        write( ( ) -> staleIds.addAll( ids));
+    }
+
+    @Override
+    public void playersExperienceChanged( Collection< Player> players) {
+        write( ( ) -> players.forEach( player -> upsert( Ranked.of( player))));
+    }
+
+    @Override
+    public void playersReset( ) {
+        lock.writeLock( ).lock( );
+        try {
+            loaded = false;
+            clear( );
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private RankTree tree( Race race, Profession profession, boolean excludeBanned) {
+        if ( race != null && profession != null) {
+            throw new IllegalArgumentException( "Leaderboard is kept either by race or by profession, not by both!");
+        }
+        Board board = race != null ? raceBoards[ race.ordinal( )] :
+                profession != null ? professionBoards[ profession.ordinal( )] :
+                global;
+        return excludeBanned ? board.notBanned : board.all;
+    }
+
+    // Изменение из события. Пока таблицы не построены, применять его не к чему - построение и так прочитает его из БД.
+    private void write( Runnable change) {
+        lock.writeLock( ).lock( );
+        try {
+            if ( loaded) {
+                change.run( );
+            }
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private void ensureCurrent( ) {
+        lock.readLock( ).lock( );
+        try {
+            if ( loaded && staleIds.isEmpty( )) {
+                return;
+            }
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+
+        lock.writeLock( ).lock( );
+        try {
+            if ( !loaded) {
+                load( );
+                staleIds.clear( );
+                loaded = true;
+            } else if ( !staleIds.isEmpty( )) {
+                List< Long> reload = new ArrayList<>( staleIds);
+                staleIds.clear( );
+                reload.forEach( this::remove);
+                jdbcTemplate.query( SELECT + " WHERE id IN (:ids)", Collections.singletonMap( "ids", reload), ROW_MAPPER)
+                        .forEach( this::upsert);
+            }
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    //   Строки читаются по возрастанию id, поэтому при сортировке по ( MAX_EXPERIENCE - experience, номер строки)
+    // равный опыт упорядочивается по id. Отсортированные строки раскладываются по таблицам и те строятся за O(n).
+    private void load( ) {
+        clear( );
+        List< Ranked> rows = jdbcTemplate.getJdbcTemplate( ).query( SELECT + " ORDER BY id", ROW_MAPPER);
+
+        long[] order = new long[ rows.size( )];
+        for ( int row = 0; row < order.length; row++) {
+            long key = Player.MAX_EXPERIENCE - ( long) rows.get( row).experience;
+            order[ row] = ( key << 32) | row;
+        }
+        Arrays.parallelSort( order);
+
+        Map< RankTree, TreeBuilder> builders = new HashMap<>( );
+        for ( long packed : order) {
+            Ranked player = rows.get( ( int) packed);
+            players.put( player.id, player);
+            forEachTree( player, tree -> builders.computeIfAbsent( tree, key -> new TreeBuilder( )).add( player));
+        }
+        builders.forEach( ( tree, builder) -> tree.build( builder.ids, builder.experience, builder.count));
+    }
+
+    private void upsert( Ranked player) {
+        remove( player.id);
+        players.put( player.id, player);
+        forEachTree( player, tree -> tree.insert( player.id, player.experience));
+    }
+
+    private void remove( long id) {
+        Ranked player = players.remove( id);
+        if ( player != null) {
+            forEachTree( player, tree -> tree.remove( player.id, player.experience));
+        }
+    }
+
+    private void forEachTree( Ranked player, Consumer< RankTree> action) {
+        List< Board> boards = new ArrayList<>( 3);
+        boards.add( global);
+        if ( player.race != null) {
+            boards.add( raceBoards[ player.race.ordinal( )]);
+        }
+        if ( player.profession != null) {
+            boards.add( professionBoards[ player.profession.ordinal( )]);
+        }
+        for ( Board board : boards) {
+            action.accept( board.all);
+            if ( !player.banned) {
+                action.accept( board.notBanned);
+            }
+        }
+    }
+
+    private void clear( ) {
+        staleIds.clear( );
+        players.clear( );
+        global.clear( );
+        Arrays.stream( raceBoards).forEach( Board::clear);
+        Arrays.stream( professionBoards).forEach( Board::clear);
+    }
+
+    private static final RowMapper< Ranked> ROW_MAPPER = ( rs, rowNum) -> new Ranked(
+            rs.getLong( "id"),
+            rs.getString( "name"),
+            rs.getString( "race") == null ? null : Race.valueOf( rs.getString( "race")),
+            rs.getString( "profession") == null ? null : Profession.valueOf( rs.getString( "profession")),
+            rs.getBoolean( "banned"),
+            rs.getInt( "experience"),
+            rs.getInt( "level"));
+
+    private static class Board {
+        final RankTree all;
+        final RankTree notBanned;
+
+        Board( Random random) {
+            all = new RankTree( random);
+            notBanned = new RankTree( random);
+        }
+
+        void clear( ) {
+            all.clear( );
+            notBanned.clear( );
+        }
+    }
+
+    private static class TreeBuilder {
+        long[] ids = new long[ 16];
+        int[] experience = new int[ 16];
+        int count;
+
+        void add( Ranked player) {
+            if ( count == ids.length) {
+                ids = Arrays.copyOf( ids, count * 2);
+                experience = Arrays.copyOf( experience, count * 2);
+            }
+            ids[ count] = player.id;
+            experience[ count] = player.experience;
+            count++;
+        }
+    }
+
+    // То, что таблицам нужно знать об игроке.
+    private static class Ranked {
+        final long id;
+        final String name;
+        final Race race;
+        final Profession profession;
+        final boolean banned;
+        final int experience;
+        final int level;
+
+        Ranked( long id, String name, Race race, Profession profession, boolean banned, int experience, int level) {
+            this.id = id;
+            this.name = name;
+            this.race = race;
+            this.profession = profession;
+            this.banned = banned;
+            this.experience = experience;
+            this.level = level;
+        }
+
+        static Ranked of( Player player) {
+            return new Ranked( player.getId( ), player.getName( ), player.getRace( ), player.getProfession( ),
+                    Boolean.TRUE.equals( player.getBanned( )),
+                    player.getExperience( ) == null ? 0 : player.getExperience( ),
+                    player.getLevel( ) == null ? 0 : player.getLevel( ));
+        }
+
+        LeaderboardEntry toEntry( long rank) {
+            return new LeaderboardEntry( rank, id, name, race, profession, banned, experience, level);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+// Строка таблицы лидеров: место (с 1) и то, что нужно для показа игрока.
+public class LeaderboardEntry {
+    private final long rank;
+    private final long id;
+    private final String name;
+    private final Race race;
+    private final Profession profession;
+    private final boolean banned;
+    private final int experience;
+    private final int level;
+
+    public LeaderboardEntry( long rank, long id, String name, Race race, Profession profession,
+                             boolean banned, int experience, int level) {
+        this.rank = rank;
+        this.id = id;
+        this.name = name;
+        this.race = race;
+        this.profession = profession;
+        this.banned = banned;
+        this.experience = experience;
+        this.level = level;
+    }
+
+    public long getRank( ) {
+        return rank;
+    }
+
+    public long getId( ) {
+        return id;
+    }
+
+    public String getName( ) {
+        return name;
+    }
+
+    public Race getRace( ) {
+        return race;
+    }
+
+    public Profession getProfession( ) {
+        return profession;
+    }
+
+    public boolean isBanned( ) {
+        return banned;
+    }
+
+    public int getExperience( ) {
+        return experience;
+    }
+
+    public int getLevel( ) {
+        return level;
+    }
+}
@@ -0,0 +1,98 @@
+package com.game.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+//   Проверка строк по SQL-шаблону LIKE '%pattern%' в памяти (для индексов, которые отвечают вместо БД).
+//   '%' - любая строка, '_' - любой символ, '\' экранирует следующий символ.
+public final class LikePattern {
+    //   Режим ignoreCase: строки сравниваются после fold - нижний регистр и эти буквы заменены парными из FOLD_TO.
+    // Ровно столько же делает SQL (LOWER и REPLACE в PlayerSpecification и ReactivePlayerRepository),
+    // поэтому в БД и в памяти ignoreCase означает одно и то же. Прочая диакритика различается.
+    public static final String FOLD_FROM = "ёй";
+    public static final String FOLD_TO = "еи";
+
+    private static final Pattern MARKS = Pattern.compile( "\\p{M}+");
+
+    private LikePattern( ) {
+    }
+
+    static Predicate< String> compile( String pattern, boolean ignoreCase) {
+        if ( !ignoreCase && pattern.indexOf( '%') < 0 && pattern.indexOf( '_') < 0 && pattern.indexOf( '\\') < 0) {
+            return value -> value != null && value.contains( pattern);
+        }
+        StringBuilder regex = new StringBuilder( ".*");
+        StringBuilder literal = new StringBuilder( );
+        for ( int i = 0; i < pattern.length( ); i++) {
+            char c = pattern.charAt( i);
+            if ( c == '\\' && i + 1 < pattern.length( )) {
+                literal.append( pattern.charAt( ++i));
+            } else if ( c == '%' || c == '_') {
+                if ( literal.length( ) > 0) {
+                    regex.append( Pattern.quote( literal.toString( )));
+                    literal.setLength( 0);
+                }
+                regex.append( c == '%' ? ".*" : ".");
+            } else {
+                literal.append( c);
+            }
+        }
+        if ( literal.length( ) > 0) {
+            regex.append( Pattern.quote( literal.toString( )));
+        }
+        regex.append( ".*");
+
+        Pattern compiled = Pattern.compile( regex.toString( ),
+                Pattern.DOTALL | ( ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+        return value -> value != null && compiled.matcher( value).matches( );
+    }
+
+    // Куски шаблона без '%' и '_' (с уже снятым экранированием) - то, что обязано входить в строку.
+    static List< String> literals( String pattern) {
+        List< String> literals = new ArrayList<>( );
+        StringBuilder literal = new StringBuilder( );
+        for ( int i = 0; i < pattern.length( ); i++) {
+            char c = pattern.charAt( i);
+            if ( c == '\\' && i + 1 < pattern.length( )) {
+                literal.append( pattern.charAt( ++i));
+            } else if ( c == '%' || c == '_') {
+                if ( literal.length( ) > 0) {
+                    literals.add( literal.toString( ));
+                    literal.setLength( 0);
+                }
+            } else {
+                literal.append( c);
+            }
+        }
+        if ( literal.length( ) > 0) {
+            literals.add( literal.toString( ));
+        }
+        return literals;
+    }
+
+    // Строка для сравнения в режиме ignoreCase: "Алёна" и "АЛЕНА" дают одно и то же "алена".
+    public static String fold( String value) {
+        if ( value == null) {
+            return null;
+        }
+        String lower = value.toLowerCase( Locale.ROOT);
+        for ( int i = 0; i < FOLD_FROM.length( ); i++) {
+            lower = lower.replace( FOLD_FROM.charAt( i), FOLD_TO.charAt( i));
+        }
+        return lower;
+    }
+
+    //   Ключ с запасом для проверок "может ли подойти" (PlayerNgramIndex, PlayerFilter.mayMatch): без регистра и
+    // любой диакритики (NFD раскладывает "é" или "ё" на букву и знак, знаки выбрасываются). Строки, равные после fold
+    // или в регистронезависимой collation БД, равны и после key, так что отбор по key ничего не теряет.
+    static String key( String value) {
+        if ( value == null) {
+            return null;
+        }
+        return MARKS.matcher( Normalizer.normalize( value, Normalizer.Form.NFD)).replaceAll( "").toLowerCase( Locale.ROOT);
+    }
+}
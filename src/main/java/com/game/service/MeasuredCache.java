@@ -0,0 +1,7 @@
+package com.game.service;
+
+// Кэш, счётчики которого видны через /rest/metrics/caches.
+public interface MeasuredCache {
+
+    CacheStatistics getStatistics( );
+}
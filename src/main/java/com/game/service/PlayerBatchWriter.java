@@ -0,0 +1,76 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+// Пакетная запись игроков напрямую через JDBC.
+//   Player.id генерируется как IDENTITY, из-за чего Hibernate не умеет объединять insert-ы в пакеты.
+// Здесь вставка идёт одним executeBatch (для MySQL с rewriteBatchedStatements=true это один многострочный INSERT),
+// а id берутся из getGeneratedKeys.
+// Работает в текущей транзакции (JdbcTemplate получает то же соединение, что и JpaTransactionManager).
+@Component
+public class PlayerBatchWriter {
+    static final String INSERT_SQL =
+            "INSERT INTO player( name, title, race, profession, birthday, banned, experience, level, untilNextLevel)" +
+            " VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlayerBatchWriter( JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Игроки должны быть уже проверены (checkAllFieldsValidAndCalcLevels). Сгенерированные id проставляются в них же.
+    public void insertAll( List< Player> players) {
+        if ( players.isEmpty( )) {
+            return;
+        }
+        jdbcTemplate.execute( ( Connection connection) -> {
+            try ( PreparedStatement ps = connection.prepareStatement( INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for ( Player player : players) {
+                    ps.setString( 1, player.getName( ));
+                    ps.setString( 2, player.getTitle( ));
+                    setEnum( ps, 3, player.getRace( ));
+                    setEnum( ps, 4, player.getProfession( ));
+                    ps.setDate( 5, new Date( player.getBirthday( ).getTime( )));
+                    ps.setBoolean( 6, player.getBanned( ));
+                    ps.setInt( 7, player.getExperience( ));
+                    ps.setInt( 8, player.getLevel( ));
+                    ps.setInt( 9, player.getUntilNextLevel( ));
+                    ps.addBatch( );
+                }
+                ps.executeBatch( );
+
+                try ( ResultSet keys = ps.getGeneratedKeys( )) {
+                    for ( Player player : players) {
+                        if ( !keys.next( )) {
+                            throw new IllegalStateException( "Driver returned less generated keys than inserted rows!");
+                        }
+                        player.setId( keys.getLong( 1));
+                        // Столбец version не вставляется и получает DEFAULT 0.
+                        player.setVersion( 0L);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setEnum( PreparedStatement ps, int index, Enum< ?> value) throws SQLException {
+        if ( value == null) {
+            ps.setNull( index, Types.VARCHAR);
+        } else {
+            ps.setString( index, value.name( ));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+//   Кэш игроков по id перед PlayerService.findById.
+//   - Вытеснение по частоте обращений (W-TinyLFU в Caffeine): редкие id не вытесняют "горячих" игроков.
+//   - Отсутствующий id тоже кэшируется (Optional.empty( )), но на короткое время absentExpireSeconds.
+//   - Одновременные промахи по одному id ждут одну загрузку из БД, а не идут в БД каждый сам.
+//   - insert/update записывают в кэш новое состояние, delete - отметку об отсутствии.
+@Component
+public class PlayerByIdCache implements PlayerChangeListener, MeasuredCache {
+    private final boolean enabled;
+    private final LoadingCache< Long, Optional< Player>> cache;
+    private final LongAdder invalidations = new LongAdder( );
+    private volatile Function< Long, Player> loader;
+
+    public PlayerByIdCache(
+            @Value( "${cache.byId.enabled:true}") boolean enabled,
+            @Value( "${cache.byId.maximumSize:100000}") long maximumSize,
+            @Value( "${cache.byId.expireAfterWriteSeconds:300}") long expireAfterWriteSeconds,
+            @Value( "${cache.byId.absentExpireSeconds:5}") long absentExpireSeconds) {
+        this.enabled = enabled;
+        long presentNanos = TimeUnit.SECONDS.toNanos( expireAfterWriteSeconds);
+        long absentNanos = TimeUnit.SECONDS.toNanos( absentExpireSeconds);
+
+        this.cache = Caffeine.newBuilder( )
+                .maximumSize( maximumSize)
+                .expireAfter( new Expiry< Long, Optional< Player>>( ) {
+                    @Override
+                    public long expireAfterCreate( Long id, Optional< Player> player, long currentTime) {
+                        return player.isPresent( ) ? presentNanos : absentNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate( Long id, Optional< Player> player, long currentTime, long currentDuration) {
+                        return player.isPresent( ) ? presentNanos : absentNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead( Long id, Optional< Player> player, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats( )
+                .build( id -> Optional.ofNullable( loader.apply( id)));
+    }
+
+    // Загрузчик задаёт PlayerService (обычно это playerRepository.findById).
+    void setLoader( Function< Long, Player> loader) {
+        this.loader = loader;
+    }
+
+    // Копия из кэша (закэшированный экземпляр наружу не отдаётся) или null, если игрока нет.
+    public Player get( long id) {
+        Optional< Player> player = enabled ?
+                cache.get( id) :
+                Optional.ofNullable( loader.apply( id));
+        return player.map( Player::new).orElse( null);
+    }
+
+    @Override
+    public void playerInserted( Player player) {
+        cache.put( player.getId( ), Optional.of( player));
+    }
+
+    @Override
+    public void playerUpdated( Player oldPlayer, Player newPlayer) {
+        cache.put( newPlayer.getId( ), Optional.of( newPlayer));
+    }
+
+    @Override
+    public void playerDeleted( Player player) {
+        cache.put( player.getId( ), Optional.empty( ));
+    }
+
+    @Override
+    public void playersChanged( Collection< Long> ids) {
+        invalidations.add( ids.size( ));
+        cache.invalidateAll( ids);
+    }
+
+    @Override
+    public void playersExperienceChanged( Collection< Player> players) {
+        for ( Player player : players) {
+            cache.put( player.getId( ), Optional.of( player));
+        }
+    }
+
+    @Override
+    public void playersReset( ) {
+        invalidations.add( cache.estimatedSize( ));
+        cache.invalidateAll( );
+    }
+
+    @Override
+    public CacheStatistics getStatistics( ) {
+        CacheStats stats = cache.stats( );
+        return new CacheStatistics( "playerById", cache.estimatedSize( ),
+                stats.hitCount( ), stats.missCount( ), stats.hitRate( ),
+                stats.evictionCount( ), invalidations.sum( ));
+    }
+}
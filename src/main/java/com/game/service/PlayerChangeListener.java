@@ -0,0 +1,27 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.util.Collection;
+
+//   Всё, что хранит производные от таблицы player данные (кэши, индексы в памяти), узнаёт об изменениях через этот интерфейс.
+//   Методы вызываются PlayerChangePublisher после коммита транзакции, в которой было изменение.
+// Передаются копии игроков, их можно сохранять у себя.
+public interface PlayerChangeListener {
+
+    void playerInserted( Player player);
+
+    void playerUpdated( Player oldPlayer, Player newPlayer);
+
+    void playerDeleted( Player player);
+
+    // Строки с этими id изменились, но их состояние до/после неизвестно (частичные и массовые обновления).
+    void playersChanged( Collection< Long> ids);
+
+    //   У этих игроков вырос опыт (а с ним level, untilNextLevel и version), остальные поля не менялись.
+    // Передаётся новое состояние; прежний опыт неизвестен (начисления ExperienceEventBuffer).
+    void playersExperienceChanged( Collection< Player> players);
+
+    // Таблица изменилась непредсказуемо (массовое удаление, перезаливка данных) - всё производное нужно сбросить.
+    void playersReset( );
+}
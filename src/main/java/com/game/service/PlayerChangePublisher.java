@@ -0,0 +1,70 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+//   Рассылает изменения игроков всем PlayerChangeListener.
+//   Внутри транзакции рассылка откладывается до коммита: после отката слушателям сообщать нечего,
+// а до коммита они могли бы заново закэшировать ещё старые данные.
+@Component
+public class PlayerChangePublisher {
+    private final ObjectProvider< PlayerChangeListener> listeners;
+
+    public PlayerChangePublisher( ObjectProvider< PlayerChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void inserted( Player player) {
+        Player copy = new Player( player);
+        publish( listener -> listener.playerInserted( copy));
+    }
+
+    public void updated( Player oldPlayer, Player newPlayer) {
+        Player oldCopy = new Player( oldPlayer);
+        Player newCopy = new Player( newPlayer);
+        publish( listener -> listener.playerUpdated( oldCopy, newCopy));
+    }
+
+    public void deleted( Player player) {
+        Player copy = new Player( player);
+        publish( listener -> listener.playerDeleted( copy));
+    }
+
+    public void changed( Collection< Long> ids) {
+        List< Long> copy = new ArrayList<>( ids);
+        publish( listener -> listener.playersChanged( copy));
+    }
+
+    public void experienceChanged( Collection< Player> players) {
+        List< Player> copies = new ArrayList<>( players.size( ));
+        for ( Player player : players) {
+            copies.add( new Player( player));
+        }
+        publish( listener -> listener.playersExperienceChanged( copies));
+    }
+
+    public void reset( ) {
+        publish( PlayerChangeListener::playersReset);
+    }
+
+    private void publish( Consumer< PlayerChangeListener> event) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive( )) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter( ) {
+                @Override
+                public void afterCommit( ) {
+                    listeners.orderedStream( ).forEach( event);
+                }
+            });
+        } else {
+            listeners.orderedStream( ).forEach( event);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+//   Позиция в выдаче для keyset-пагинации: поле сортировки, его значение у последнего отданного игрока и id этого игрока.
+//   Следующая страница - это "WHERE ( поле, id) > ( значение, id) ORDER BY поле, id LIMIT pageSize",
+// поэтому глубина страницы на стоимость запроса не влияет (в отличие от OFFSET).
+// Наружу отдаётся как непрозрачная строка (Base64 от "поле:id:значение").
+public class PlayerCursor {
+    private static final String ID = "id";
+
+    private final String fieldName;
+    private final long id;
+    private final Object key;
+
+    private PlayerCursor( String fieldName, long id, Object key) {
+        this.fieldName = fieldName;
+        this.id = id;
+        this.key = key;
+    }
+
+    public static PlayerCursor after( Player player, String fieldName) {
+        Object key;
+        switch ( fieldName) {
+            case ID:
+                key = null;
+                break;
+            case "name":
+                key = player.getName( );
+                break;
+            case "experience":
+                key = player.getExperience( );
+                break;
+            case "level":
+                key = player.getLevel( );
+                break;
+            case "birthday":
+                key = player.getBirthday( );
+                break;
+            default:
+                throw new IllegalArgumentException( "Unknown order field '" + fieldName + "'!");
+        }
+        return new PlayerCursor( fieldName, player.getId( ), key);
+    }
+
+    public static PlayerCursor decode( String token) {
+        String decoded;
+        try {
+            decoded = new String( Base64.getUrlDecoder( ).decode( token), StandardCharsets.UTF_8);
+        } catch ( IllegalArgumentException e) {
+            throw new IllegalArgumentException( "Cursor is malformed!", e);
+        }
+
+        String[] parts = decoded.split( ":", 3);
+        if ( parts.length != 3) {
+            throw new IllegalArgumentException( "Cursor is malformed!");
+        }
+        String fieldName = parts[ 0];
+        String value = parts[ 2];
+        try {
+            long id = Long.parseLong( parts[ 1]);
+            switch ( fieldName) {
+                case ID:
+                    return new PlayerCursor( fieldName, id, null);
+                case "name":
+                    return new PlayerCursor( fieldName, id, value);
+                case "experience":
+                case "level":
+                    return new PlayerCursor( fieldName, id, Integer.valueOf( value));
+                case "birthday":
+                    return new PlayerCursor( fieldName, id, new Date( Long.parseLong( value)));
+                default:
+                    throw new IllegalArgumentException( "Cursor is malformed!");
+            }
+        } catch ( NumberFormatException e) {
+            throw new IllegalArgumentException( "Cursor is malformed!", e);
+        }
+    }
+
+    public String encode( ) {
+        String value;
+        if ( key == null) {
+            value = "";
+        } else if ( key instanceof Date) {
+            value = Long.toString( ( ( Date) key).getTime( ));
+        } else {
+            value = key.toString( );
+        }
+        String raw = fieldName + ":" + id + ":" + value;
+        return Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( raw.getBytes( StandardCharsets.UTF_8));
+    }
+
+    public String getFieldName( ) {
+        return fieldName;
+    }
+
+    // Сортировка keyset-выдачи: по полю, при равенстве - по id (иначе позиция была бы неоднозначной).
+    static Sort sortBy( String fieldName) {
+        return ID.equals( fieldName) ? Sort.by( ID) : Sort.by( fieldName).and( Sort.by( ID));
+    }
+
+    // ( поле > значение) OR ( поле = значение AND id > lastId)
+    @SuppressWarnings( "unchecked")
+    Specification< Player> toSpecification( ) {
+        return ( root, query, criteriaBuilder) -> {
+            Predicate idAfter = criteriaBuilder.greaterThan( root.get( ID), id);
+            if ( ID.equals( fieldName)) {
+                return idAfter;
+            }
+            Expression< Comparable< Object>> field = root.get( fieldName);
+            Comparable< Object> value = ( Comparable< Object>) key;
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan( field, value),
+                    criteriaBuilder.and( criteriaBuilder.equal( field, value), idAfter));
+        };
+    }
+}
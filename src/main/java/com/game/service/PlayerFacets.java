@@ -0,0 +1,107 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//   Число игроков под фильтром по каждому значению race, profession и banned (включая нулевые)
+// и гистограммы по level и experience (ответ GET /rest/players/facets).
+//   Гистограмма - подряд идущие корзины от первой до последней непустой; корзина - значения от from до to включительно.
+public class PlayerFacets {
+    private long total;
+    private final Map< Race, Long> race = new EnumMap<>( Race.class);
+    private final Map< Profession, Long> profession = new EnumMap<>( Profession.class);
+    private final Map< Boolean, Long> banned = new LinkedHashMap<>( );
+    private final List< Bucket> level = new ArrayList<>( );
+    private final List< Bucket> experience = new ArrayList<>( );
+
+    PlayerFacets( ) {
+        for ( Race value : Race.values( )) {
+            race.put( value, 0L);
+        }
+        for ( Profession value : Profession.values( )) {
+            profession.put( value, 0L);
+        }
+        banned.put( false, 0L);
+        banned.put( true, 0L);
+    }
+
+    public long getTotal( ) {
+        return total;
+    }
+
+    public Map< Race, Long> getRace( ) {
+        return race;
+    }
+
+    public Map< Profession, Long> getProfession( ) {
+        return profession;
+    }
+
+    public Map< Boolean, Long> getBanned( ) {
+        return banned;
+    }
+
+    public List< Bucket> getLevel( ) {
+        return level;
+    }
+
+    public List< Bucket> getExperience( ) {
+        return experience;
+    }
+
+    // Одна строка GROUP BY.
+    void add( Race raceValue, Profession professionValue, Boolean bannedValue, long count) {
+        total += count;
+        if ( raceValue != null) {
+            race.merge( raceValue, count, Long::sum);
+        }
+        if ( professionValue != null) {
+            profession.merge( professionValue, count, Long::sum);
+        }
+        if ( bannedValue != null) {
+            banned.merge( bannedValue, count, Long::sum);
+        }
+    }
+
+    // counts - число игроков по номеру корзины (значение / bucketSize).
+    static void fillHistogram( List< Bucket> histogram, Map< Integer, Long> counts, int bucketSize) {
+        if ( counts.isEmpty( )) {
+            return;
+        }
+        int first = counts.keySet( ).stream( ).min( Integer::compare).get( );
+        int last = counts.keySet( ).stream( ).max( Integer::compare).get( );
+        for ( int bucket = first; bucket <= last; bucket++) {
+            histogram.add( new Bucket( bucket * bucketSize, bucket * bucketSize + bucketSize - 1, counts.getOrDefault( bucket, 0L)));
+        }
+    }
+
+    public static class Bucket {
+        private final int from;
+        private final int to;
+        private final long count;
+
+        Bucket( int from, int to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public int getFrom( ) {
+            return from;
+        }
+
+        public int getTo( ) {
+            return to;
+        }
+
+        public long getCount( ) {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Objects;
+
+//   Параметры фильтра, общие для всех запросов по списку игроков (те же, что принимает PlayerSpecification).
+//   В контроллере заполняется из параметров запроса по именам полей.
+public class PlayerFilter {
+    private String name;
+    private String title;
+    private String race;
+    private String profession;
+    private Long after;
+    private Long before;
+    private Boolean banned;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private Integer minLevel;
+    private Integer maxLevel;
+    // name и title без учёта регистра и диакритики ("алена" находит "Алёна")
+    private Boolean ignoreCase;
+
+    public PlayerFilter( ) {
+    }
+
+    public static PlayerFilter of(
+            String name, String title,
+            String race, String profession,
+            Boolean banned,
+            Long after, Long before,
+            Integer minExperience, Integer maxExperience,
+            Integer minLevel, Integer maxLevel) {
+        PlayerFilter filter = new PlayerFilter( );
+        filter.name = name;
+        filter.title = title;
+        filter.race = race;
+        filter.profession = profession;
+        filter.banned = banned;
+        filter.after = after;
+        filter.before = before;
+        filter.minExperience = minExperience;
+        filter.maxExperience = maxExperience;
+        filter.minLevel = minLevel;
+        filter.maxLevel = maxLevel;
+        return filter;
+    }
+
+    public String getName( ) {
+        return name;
+    }
+
+    public void setName( String name) {
+        this.name = name;
+    }
+
+    public String getTitle( ) {
+        return title;
+    }
+
+    public void setTitle( String title) {
+        this.title = title;
+    }
+
+    public String getRace( ) {
+        return race;
+    }
+
+    public void setRace( String race) {
+        this.race = race;
+    }
+
+    public String getProfession( ) {
+        return profession;
+    }
+
+    public void setProfession( String profession) {
+        this.profession = profession;
+    }
+
+    public Long getAfter( ) {
+        return after;
+    }
+
+    public void setAfter( Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore( ) {
+        return before;
+    }
+
+    public void setBefore( Long before) {
+        this.before = before;
+    }
+
+    public Boolean getBanned( ) {
+        return banned;
+    }
+
+    public void setBanned( Boolean banned) {
+        this.banned = banned;
+    }
+
+    public Integer getMinExperience( ) {
+        return minExperience;
+    }
+
+    public void setMinExperience( Integer minExperience) {
+        this.minExperience = minExperience;
+    }
+
+    public Integer getMaxExperience( ) {
+        return maxExperience;
+    }
+
+    public void setMaxExperience( Integer maxExperience) {
+        this.maxExperience = maxExperience;
+    }
+
+    public Integer getMinLevel( ) {
+        return minLevel;
+    }
+
+    public void setMinLevel( Integer minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public Boolean getIgnoreCase( ) {
+        return ignoreCase;
+    }
+
+    public void setIgnoreCase( Boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+    }
+
+    public Integer getMaxLevel( ) {
+        return maxLevel;
+    }
+
+    public void setMaxLevel( Integer maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    // Ни одного условия: под фильтр подходят все игроки (ignoreCase сам по себе условием не является).
+    public boolean isEmpty( ) {
+        return emptyToNull( name) == null && emptyToNull( title) == null &&
+                race == null && profession == null &&
+                banned == null &&
+                after == null && before == null &&
+                minExperience == null && maxExperience == null &&
+                minLevel == null && maxLevel == null;
+    }
+
+    // Копия, в которой одинаковые по смыслу фильтры записаны одинаково (пустой шаблон имени = отсутствие шаблона).
+    PlayerFilter normalized( ) {
+        PlayerFilter filter = of(
+                emptyToNull( name), emptyToNull( title),
+                race, profession,
+                banned,
+                after, before,
+                minExperience, maxExperience,
+                minLevel, maxLevel);
+        boolean hasText = filter.name != null || filter.title != null;
+        filter.ignoreCase = hasText && Boolean.TRUE.equals( ignoreCase) ? true : null;
+        return filter;
+    }
+
+    //   Может ли игрок подходить под фильтр. Проверка с запасом: при сомнениях (регистр букв и диакритика зависят от
+    // collation в БД и режима ignoreCase, дата - от часового пояса, '%' и '_' в шаблоне) отвечает true.
+    //   Нужна для точного сброса кэшей: если ни старое, ни новое состояние игрока не подходит, результат не изменился.
+    boolean mayMatch( Player player) {
+        if ( !mayMatchExceptProgress( player)) {
+            return false;
+        }
+        Integer experience = player.getExperience( );
+        if ( ( minExperience != null && experience < minExperience) || ( maxExperience != null && experience > maxExperience)) {
+            return false;
+        }
+        Integer level = player.getLevel( );
+        return !( ( minLevel != null && level < minLevel) || ( maxLevel != null && level > maxLevel));
+    }
+
+    // То же без условий на experience и level - для игрока, у которого изменился только опыт.
+    boolean mayMatchExceptProgress( Player player) {
+        if ( !mayContain( player.getName( ), name) || !mayContain( player.getTitle( ), title)) {
+            return false;
+        }
+        if ( race != null && player.getRace( ) != null && !player.getRace( ).name( ).equals( race)) {
+            return false;
+        }
+        if ( profession != null && player.getProfession( ) != null && !player.getProfession( ).name( ).equals( profession)) {
+            return false;
+        }
+        if ( banned != null && player.getBanned( ) != null && !banned.equals( player.getBanned( ))) {
+            return false;
+        }
+        if ( after != null || before != null) {
+            long birthday = toEpochDay( player.getBirthday( ));
+            if ( after != null && birthday < toEpochDay( new Date( after)) - 1) {
+                return false;
+            }
+            if ( before != null && birthday > toEpochDay( new Date( before)) + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mayContain( String value, String pattern) {
+        if ( pattern == null || pattern.isEmpty( )) {
+            return true;
+        }
+        if ( value == null) {
+            return false;
+        }
+        if ( pattern.indexOf( '%') >= 0 || pattern.indexOf( '_') >= 0) {
+            return true;
+        }
+        return LikePattern.key( value).contains( LikePattern.key( pattern));
+    }
+
+    private static long toEpochDay( Date date) {
+        return Instant.ofEpochMilli( date.getTime( )).atZone( ZoneId.systemDefault( )).toLocalDate( ).toEpochDay( );
+    }
+
+    private static String emptyToNull( String value) {
+        return value == null || value.isEmpty( ) ? null : value;
+    }
+
+    @Override
+    public boolean equals( Object o) {
+        if ( this == o) return true;
+        if ( o == null || getClass( ) != o.getClass( )) return false;
+        PlayerFilter that = ( PlayerFilter) o;
+        return Objects.equals( name, that.name) &&
+                Objects.equals( title, that.title) &&
+                Objects.equals( race, that.race) &&
+                Objects.equals( profession, that.profession) &&
+                Objects.equals( after, that.after) &&
+                Objects.equals( before, that.before) &&
+                Objects.equals( banned, that.banned) &&
+                Objects.equals( minExperience, that.minExperience) &&
+                Objects.equals( maxExperience, that.maxExperience) &&
+                Objects.equals( minLevel, that.minLevel) &&
+                Objects.equals( maxLevel, that.maxLevel) &&
+                Objects.equals( ignoreCase, that.ignoreCase);
+    }
+
+    @Override
+    public int hashCode( ) {
+        return Objects.hash( name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel, ignoreCase);
+    }
+
+    PlayerSpecification toSpecification( ) {
+        PlayerSpecification specification = new PlayerSpecification(
+                name, title,
+                race, profession,
+                banned,
+                after, before,
+                minExperience, maxExperience,
+                minLevel, maxLevel
+        );
+        specification.ignoreCase = Boolean.TRUE.equals( ignoreCase);
+        return specification;
+    }
+}
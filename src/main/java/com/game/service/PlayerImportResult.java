@@ -0,0 +1,91 @@
+package com.game.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//   Результат импорта игроков. Записи нумеруются с 1 от начала файла, включая пропущенные (skip).
+//   committedRecords - сколько записей от начала файла обработано и закоммичено: если импорт прервался (complete = false),
+// его можно продолжить тем же файлом с skip = committedRecords.
+public class PlayerImportResult {
+    private long skipped;
+    private long imported;
+    private long rejected;
+    private long committedRecords;
+    private boolean complete;
+    private String error;
+    private final List< RejectedRecord> rejectedRecords = new ArrayList<>( );
+
+    public long getSkipped( ) {
+        return skipped;
+    }
+
+    public long getImported( ) {
+        return imported;
+    }
+
+    public long getRejected( ) {
+        return rejected;
+    }
+
+    public long getCommittedRecords( ) {
+        return committedRecords;
+    }
+
+    public boolean isComplete( ) {
+        return complete;
+    }
+
+    public String getError( ) {
+        return error;
+    }
+
+    // Не больше import.maxReportedErrors первых отклонённых записей; всего их - rejected.
+    public List< RejectedRecord> getRejectedRecords( ) {
+        return rejectedRecords;
+    }
+
+    void setSkipped( long skipped) {
+        this.skipped = skipped;
+        this.committedRecords = skipped;
+    }
+
+    // Пакет записей с номерами от committedRecords + 1 закоммичен.
+    void addCommitted( int records, int imported) {
+        this.imported += imported;
+        this.committedRecords += records;
+    }
+
+    // В отчёт попадают первые maxReportedErrors отклонённых записей.
+    void addRejected( long record, String error, int maxReportedErrors) {
+        rejected++;
+        if ( rejectedRecords.size( ) < maxReportedErrors) {
+            rejectedRecords.add( new RejectedRecord( record, error));
+        }
+    }
+
+    void setComplete( ) {
+        this.complete = true;
+    }
+
+    void setError( String error) {
+        this.error = error;
+    }
+
+    public static class RejectedRecord {
+        private final long record;
+        private final String error;
+
+        RejectedRecord( long record, String error) {
+            this.record = record;
+            this.error = error;
+        }
+
+        public long getRecord( ) {
+            return record;
+        }
+
+        public String getError( ) {
+            return error;
+        }
+    }
+}
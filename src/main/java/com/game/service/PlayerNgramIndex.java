@@ -0,0 +1,255 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+//   Индекс подстрок name и title для LIKE '%pattern%', который в БД не может использовать ни один B-tree индекс.
+//   Хранит для каждой n-граммы (1..3 символа) множество id игроков. Строки индексируются после LikePattern.key,
+// то есть без учёта регистра и диакритики ("Алёна" -> "алена").
+//   Поиск: пересечение множеств по n-граммам шаблона (начиная с самого маленького), затем проверка каждого кандидата
+// по самой строке. Время пропорционально числу кандидатов, а не размеру таблицы.
+//   Загружается из БД при первом поиске и после playersReset, дальше поддерживается событиями PlayerChangeListener.
+// Изменений мимо PlayerChangePublisher (другой узел, SQL напрямую) индекс не видит - о них нужно сообщить.
+@Component
+public class PlayerNgramIndex implements PlayerChangeListener {
+    static final int GRAM_LENGTH = 3;
+
+    public enum Field { NAME, TITLE }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock( );
+
+    // Всё, что ниже, меняется только под lock.writeLock( ).
+    private boolean loaded;
+    private final Set< Long> staleIds = new HashSet<>( );
+    private final FieldIndex names = new FieldIndex( );
+    private final FieldIndex titles = new FieldIndex( );
+
+    public PlayerNgramIndex( JdbcTemplate jdbcTemplate, @Value( "${ngram.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate( jdbcTemplate);
+        this.enabled = enabled;
+    }
+
+    //   id игроков, у которых поле подходит под шаблон без учёта регистра и диакритики.
+    //   Для поиска с учётом регистра это надмножество ответа (итог проверяет LIKE в БД).
+    //   null - индекс выключен или в шаблоне нет ни одного символа, кроме '%' и '_' (ограничений нет).
+    public Set< Long> findIds( Field field, String pattern) {
+        if ( !enabled) {
+            return null;
+        }
+        List< String> grams = patternGrams( pattern);
+        if ( grams.isEmpty( )) {
+            return null;
+        }
+        ensureCurrent( );
+
+        lock.readLock( ).lock( );
+        try {
+            FieldIndex index = field == Field.NAME ? names : titles;
+            List< Set< Long>> postings = new ArrayList<>( grams.size( ));
+            for ( String gram : grams) {
+                Set< Long> ids = index.postings.get( gram);
+                if ( ids == null) {
+                    return Collections.emptySet( );
+                }
+                postings.add( ids);
+            }
+            postings.sort( Comparator.comparingInt( Set::size));
+
+            Predicate< String> like = LikePattern.compile( LikePattern.key( pattern), false);
+            Set< Long> result = new HashSet<>( );
+            candidates:
+            for ( Long id : postings.get( 0)) {
+                for ( int i = 1; i < postings.size( ); i++) {
+                    if ( !postings.get( i).contains( id)) {
+                        continue candidates;
+                    }
+                }
+                if ( like.test( index.folded.get( id))) {
+                    result.add( id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+    }
+
+    @Override
+    public void playerInserted( Player player) {
+        write( ( ) -> upsert( player.getId( ), player.getName( ), player.getTitle( )));
+    }
+
+    @Override
+    public void playerUpdated( Player oldPlayer, Player newPlayer) {
+        write( ( ) -> upsert( newPlayer.getId( ), newPlayer.getName( ), newPlayer.getTitle( )));
+    }
+
+    @Override
+    public void playerDeleted( Player player) {
+        write( ( ) -> remove( player.getId( )));
+    }
+
+    @Override
+    public void playersChanged( Collection< Long> ids) {
+        write( ( ) -> staleIds.addAll( ids));
+    }
+
+    // name и title от опыта не зависят - индексу делать нечего.
+    @Override
+    public void playersExperienceChanged( Collection< Player> players) {
+    }
+
+    @Override
+    public void playersReset( ) {
+        lock.writeLock( ).lock( );
+        try {
+            loaded = false;
+            staleIds.clear( );
+            names.clear( );
+            titles.clear( );
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    // Изменение из события. Пока индекс не загружен, применять его не к чему - загрузка и так прочитает его из БД.
+    private void write( Runnable change) {
+        if ( !enabled) {
+            return;
+        }
+        lock.writeLock( ).lock( );
+        try {
+            if ( loaded) {
+                change.run( );
+            }
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private void ensureCurrent( ) {
+        lock.readLock( ).lock( );
+        try {
+            if ( loaded && staleIds.isEmpty( )) {
+                return;
+            }
+        } finally {
+            lock.readLock( ).unlock( );
+        }
+
+        lock.writeLock( ).lock( );
+        try {
+            if ( !loaded) {
+                names.clear( );
+                titles.clear( );
+                jdbcTemplate.getJdbcTemplate( ).query( "SELECT id, name, title FROM player",
+                        ( RowCallbackHandler) rs -> upsert( rs.getLong( 1), rs.getString( 2), rs.getString( 3)));
+                staleIds.clear( );
+                loaded = true;
+            } else if ( !staleIds.isEmpty( )) {
+                List< Long> reload = new ArrayList<>( staleIds);
+                staleIds.clear( );
+                reload.forEach( this::remove);
+                jdbcTemplate.query( "SELECT id, name, title FROM player WHERE id IN (:ids)",
+                        Collections.singletonMap( "ids", reload),
+                        ( RowCallbackHandler) rs -> upsert( rs.getLong( 1), rs.getString( 2), rs.getString( 3)));
+            }
+        } finally {
+            lock.writeLock( ).unlock( );
+        }
+    }
+
+    private void upsert( long id, String name, String title) {
+        remove( id);
+        names.add( id, name);
+        titles.add( id, title);
+    }
+
+    private void remove( long id) {
+        names.remove( id);
+        titles.remove( id);
+    }
+
+    //   n-граммы, которые обязаны встретиться в строке, подходящей под шаблон.
+    // Кусок шаблона короче GRAM_LENGTH целиком является n-граммой, длинный - даёт все свои триграммы.
+    static List< String> patternGrams( String pattern) {
+        Set< String> grams = new HashSet<>( );
+        for ( String literal : LikePattern.literals( pattern)) {
+            String folded = LikePattern.key( literal);
+            if ( folded.length( ) <= GRAM_LENGTH) {
+                if ( !folded.isEmpty( )) {
+                    grams.add( folded);
+                }
+            } else {
+                for ( int i = 0; i + GRAM_LENGTH <= folded.length( ); i++) {
+                    grams.add( folded.substring( i, i + GRAM_LENGTH));
+                }
+            }
+        }
+        return new ArrayList<>( grams);
+    }
+
+    // Все подстроки длиной от 1 до GRAM_LENGTH.
+    static Set< String> valueGrams( String folded) {
+        Set< String> grams = new HashSet<>( );
+        for ( int i = 0; i < folded.length( ); i++) {
+            for ( int length = 1; length <= GRAM_LENGTH && i + length <= folded.length( ); length++) {
+                grams.add( folded.substring( i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    private static class FieldIndex {
+        private final Map< Long, String> folded = new HashMap<>( );
+        private final Map< String, Set< Long>> postings = new HashMap<>( );
+
+        void add( long id, String value) {
+            if ( value == null) {
+                return;
+            }
+            String foldedValue = LikePattern.key( value);
+            folded.put( id, foldedValue);
+            for ( String gram : valueGrams( foldedValue)) {
+                postings.computeIfAbsent( gram, key -> new HashSet<>( )).add( id);
+            }
+        }
+
+        void remove( long id) {
+            String foldedValue = folded.remove( id);
+            if ( foldedValue == null) {
+                return;
+            }
+            for ( String gram : valueGrams( foldedValue)) {
+                Set< Long> ids = postings.get( gram);
+                ids.remove( id);
+                if ( ids.isEmpty( )) {
+                    postings.remove( gram);
+                }
+            }
+        }
+
+        void clear( ) {
+            folded.clear( );
+            postings.clear( );
+        }
+    }
+}
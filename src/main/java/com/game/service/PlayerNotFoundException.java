@@ -0,0 +1,9 @@
+package com.game.service;
+
+// Игрока с таким id нет (для update / patch - ответ 404 вместо 400).
+public class PlayerNotFoundException extends RuntimeException {
+
+    public PlayerNotFoundException( long id) {
+        super( "Player with id is equal " + id + " not found!");
+    }
+}
@@ -0,0 +1,15 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+//   Поиск игроков по фильтру: страница (без count) и общее количество.
+//   По умолчанию это запросы к БД (JpaPlayerQueryEngine), в профиле "columnar" - индекс в памяти (ColumnarPlayerQueryEngine).
+public interface PlayerQueryEngine {
+
+    List< Player> findPage( PlayerFilter filter, Pageable pageable);
+
+    long count( PlayerFilter filter);
+}
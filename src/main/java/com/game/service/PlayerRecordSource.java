@@ -0,0 +1,17 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.io.IOException;
+
+//   Источник записей для PlayerService.importPlayers.
+//   next( ) только отделяет очередную запись (строку NDJSON, строку CSV) и вызывается из одного потока.
+// toPlayer( ) разбирает запись и вызывается параллельно, поэтому не должен менять состояние источника.
+public interface PlayerRecordSource< R> {
+
+    // Следующая запись; null - записей больше нет.
+    R next( ) throws IOException;
+
+    // Игрок из записи (проверять поля не нужно). Запись, которую не разобрать, - RuntimeException с текстом ошибки.
+    Player toPlayer( R record);
+}
@@ -0,0 +1,170 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+//   Кэш результатов findAllWithCriterions / countWithCriterions.
+//   Ключ - нормализованный фильтр плюс страница и сортировка (для count - только фильтр).
+//   Ограничен по размеру и по времени жизни записи.
+//   После записи игрока сбрасываются только те результаты, чей фильтр мог подходить под старое или новое состояние игрока.
+@Component
+public class PlayerSearchCache implements PlayerChangeListener, MeasuredCache {
+    private final boolean enabled;
+    private final Cache< Key, Object> cache;
+    //   Растёт при каждом сбросе. Результат, загруженный из БД, кладётся в кэш, только если за время загрузки
+    // сбросов не было - иначе он мог быть прочитан до коммита изменения, о котором уже сообщили.
+    private final AtomicLong generation = new AtomicLong( );
+    private final LongAdder invalidations = new LongAdder( );
+
+    public PlayerSearchCache(
+            @Value( "${cache.search.enabled:true}") boolean enabled,
+            @Value( "${cache.search.maximumSize:10000}") long maximumSize,
+            @Value( "${cache.search.expireAfterWriteSeconds:30}") long expireAfterWriteSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder( )
+                .maximumSize( maximumSize)
+                .expireAfterWrite( expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats( )
+                .build( );
+    }
+
+    public List< Player> getPage( PlayerFilter filter, Pageable pageable, Supplier< List< Player>> loader) {
+        Key key = new Key( filter.normalized( ), pageable.isPaged( ) ? pageable.getOffset( ) : -1,
+                pageable.isPaged( ) ? pageable.getPageSize( ) : -1, pageable.getSort( ).toString( ));
+        return get( key, ( ) -> Collections.unmodifiableList( new ArrayList<>( loader.get( ))));
+    }
+
+    public long getCount( PlayerFilter filter, LongSupplier loader) {
+        Key key = new Key( filter.normalized( ), -1, -1, null);
+        return get( key, loader::getAsLong);
+    }
+
+    @SuppressWarnings( "unchecked")
+    private < T> T get( Key key, Supplier< T> loader) {
+        if ( !enabled) {
+            return loader.get( );
+        }
+        Object cached = cache.getIfPresent( key);
+        if ( cached != null) {
+            return ( T) cached;
+        }
+
+        long loadGeneration = generation.get( );
+        T value = loader.get( );
+        if ( generation.get( ) == loadGeneration) {
+            cache.put( key, value);
+            if ( generation.get( ) != loadGeneration) {
+                cache.invalidate( key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void playerInserted( Player player) {
+        invalidateMatching( player, null);
+    }
+
+    @Override
+    public void playerUpdated( Player oldPlayer, Player newPlayer) {
+        invalidateMatching( oldPlayer, newPlayer);
+    }
+
+    @Override
+    public void playerDeleted( Player player) {
+        invalidateMatching( player, null);
+    }
+
+    @Override
+    public void playersChanged( Collection< Long> ids) {
+        invalidateAll( );
+    }
+
+    //   Прежний опыт неизвестен, поэтому условия на experience и level не проверяются: сбрасываются результаты,
+    // под которые игрок подходит по остальным полям (только они и могли измениться).
+    @Override
+    public void playersExperienceChanged( Collection< Player> players) {
+        invalidateIf( filter -> players.stream( ).anyMatch( filter::mayMatchExceptProgress));
+    }
+
+    @Override
+    public void playersReset( ) {
+        invalidateAll( );
+    }
+
+    private void invalidateMatching( Player player, Player anotherPlayer) {
+        invalidateIf( filter -> filter.mayMatch( player) || ( anotherPlayer != null && filter.mayMatch( anotherPlayer)));
+    }
+
+    private void invalidateIf( Predicate< PlayerFilter> affects) {
+        generation.incrementAndGet( );
+        cache.asMap( ).keySet( ).removeIf( key -> {
+            boolean affected = affects.test( key.filter);
+            if ( affected) {
+                invalidations.increment( );
+            }
+            return affected;
+        });
+    }
+
+    private void invalidateAll( ) {
+        generation.incrementAndGet( );
+        invalidations.add( cache.estimatedSize( ));
+        cache.invalidateAll( );
+    }
+
+    @Override
+    public CacheStatistics getStatistics( ) {
+        CacheStats stats = cache.stats( );
+        return new CacheStatistics( "playerSearch", cache.estimatedSize( ),
+                stats.hitCount( ), stats.missCount( ), stats.hitRate( ),
+                stats.evictionCount( ), invalidations.sum( ));
+    }
+
+    private static class Key {
+        private final PlayerFilter filter;
+        private final long offset;
+        private final int pageSize;
+        private final String sort;
+
+        Key( PlayerFilter filter, long offset, int pageSize, String sort) {
+            this.filter = filter;
+            this.offset = offset;
+            this.pageSize = pageSize;
+            this.sort = sort;
+        }
+
+        @Override
+        public boolean equals( Object o) {
+            if ( this == o) return true;
+            if ( o == null || getClass( ) != o.getClass( )) return false;
+            Key key = ( Key) o;
+            return offset == key.offset &&
+                    pageSize == key.pageSize &&
+                    filter.equals( key.filter) &&
+                    Objects.equals( sort, key.sort);
+        }
+
+        @Override
+        public int hashCode( ) {
+            return Objects.hash( filter, offset, pageSize, sort);
+        }
+    }
+}
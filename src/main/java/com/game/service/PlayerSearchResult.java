@@ -0,0 +1,36 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.util.List;
+
+// Страница игроков вместе с общим числом подходящих под фильтр (ответ GET /rest/players/search).
+public class PlayerSearchResult {
+    private final List< Player> items;
+    private final long total;
+    private final int pageNumber;
+    private final int pageSize;
+
+    public PlayerSearchResult( List< Player> items, long total, int pageNumber, int pageSize) {
+        this.items = items;
+        this.total = total;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public List< Player> getItems( ) {
+        return items;
+    }
+
+    public long getTotal( ) {
+        return total;
+    }
+
+    public int getPageNumber( ) {
+        return pageNumber;
+    }
+
+    public int getPageSize( ) {
+        return pageSize;
+    }
+}
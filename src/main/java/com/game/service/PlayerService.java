@@ -1,23 +1,87 @@
 package com.game.service;
 
 import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
 import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Service
 @Transactional( readOnly = true)
 public class PlayerService {
+    // Уровень при MAX_EXPERIENCE (как Player.setLevel( )).
+    private static final int MAX_LEVEL = ( int) ( ( Math.sqrt( 2500 + 200.0 * Player.MAX_EXPERIENCE) - 50) / 100);
+
     private final PlayerRepository playerRepository;
+    private final PlayerBatchWriter playerBatchWriter;
+    private final PlayerQueryEngine playerQueryEngine;
+    private final PlayerSearchCache playerSearchCache;
+    private final PlayerByIdCache playerByIdCache;
+    private final PlayerChangePublisher playerChangePublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int bulkBatchSize;
+    private final int facetsLevelBucketSize;
+    private final int facetsExperienceBucketSize;
+    private final int facetsMaxBuckets;
+    private final int exportFetchSize;
+    private final int importChunkSize;
+    private final int importMaxReportedErrors;
 
-    public PlayerService( PlayerRepository playerRepository) {
+    public PlayerService(
+            PlayerRepository playerRepository,
+            PlayerBatchWriter playerBatchWriter,
+            PlayerQueryEngine playerQueryEngine,
+            PlayerSearchCache playerSearchCache,
+            PlayerByIdCache playerByIdCache,
+            PlayerChangePublisher playerChangePublisher,
+            PlatformTransactionManager transactionManager,
+            @Value( "${bulk.batchSize:500}") int bulkBatchSize,
+            @Value( "${facets.levelBucketSize:10}") int facetsLevelBucketSize,
+            @Value( "${facets.experienceBucketSize:100000}") int facetsExperienceBucketSize,
+            @Value( "${facets.maxBuckets:1000}") int facetsMaxBuckets,
+            @Value( "${export.fetchSize:1000}") int exportFetchSize,
+            @Value( "${import.chunkSize:5000}") int importChunkSize,
+            @Value( "${import.maxReportedErrors:1000}") int importMaxReportedErrors) {
         this.playerRepository = playerRepository;
+        this.playerBatchWriter = playerBatchWriter;
+        this.playerQueryEngine = playerQueryEngine;
+        this.playerSearchCache = playerSearchCache;
+        this.playerByIdCache = playerByIdCache;
+        this.playerByIdCache.setLoader( id -> playerRepository.findById( id).orElse( null));
+        this.playerChangePublisher = playerChangePublisher;
+        this.transactionTemplate = new TransactionTemplate( transactionManager);
+        this.bulkBatchSize = bulkBatchSize;
+        this.facetsLevelBucketSize = facetsLevelBucketSize;
+        this.facetsExperienceBucketSize = facetsExperienceBucketSize;
+        this.facetsMaxBuckets = facetsMaxBuckets;
+        this.exportFetchSize = exportFetchSize;
+        this.importChunkSize = importChunkSize;
+        this.importMaxReportedErrors = importMaxReportedErrors;
     }
+    //   Без своей транзакции: при попадании в кэш не нужны ни EntityManager, ни соединение,
+    // а при промахе findById репозитория откроет read-only транзакцию сам.
+    @Transactional( propagation = Propagation.SUPPORTS)
     public Player findById( Long id) {
-        return playerRepository.findById( id).orElse( null);
+        return playerByIdCache.get( id);
     }
 
     public List< Player> findAllWithCriterions (
@@ -28,21 +92,63 @@ public class PlayerService {
             Long after, Long before,
             Integer minExperience, Integer maxExperience,
             Integer minLevel, Integer maxLevel,
+            Boolean ignoreCase,
             Pageable pageable) {
 
         //System.out.println( "3 pageable = " + pageable);
-        return playerRepository.findAll(
-                new PlayerSpecification(
-                        namePattern, titlePattern,
-                        // race.toString( ), profession.toString( ),
-                        race, profession,
-                        banned,
-                        after, before,
-                        minExperience, maxExperience,
-                        minLevel, maxLevel
-                        ),
-                pageable)
-                .getContent( );
+        PlayerFilter filter = PlayerFilter.of(
+                namePattern, titlePattern,
+                // race.toString( ), profession.toString( ),
+                race, profession,
+                banned,
+                after, before,
+                minExperience, maxExperience,
+                minLevel, maxLevel
+        );
+        filter.setIgnoreCase( ignoreCase);
+        return playerSearchCache.getPage( filter, pageable, ( ) -> playerQueryEngine.findPage( filter, pageable));
+    }
+
+    //   Страница и общее количество за один вызов.
+    //   count выполняется, только если без него не обойтись: если клиент уже знает total (knownTotal),
+    // или страница неполная (тогда total = offset + размер страницы), запрос count пропускается.
+    public PlayerSearchResult search( PlayerFilter filter, Pageable pageable, Long knownTotal) {
+        List< Player> items = playerSearchCache.getPage( filter, pageable, ( ) -> playerQueryEngine.findPage( filter, pageable));
+
+        long total;
+        if ( knownTotal != null) {
+            total = knownTotal;
+        } else if ( items.size( ) < pageable.getPageSize( ) && ( !items.isEmpty( ) || pageable.getOffset( ) == 0)) {
+            total = pageable.getOffset( ) + items.size( );
+        } else {
+            total = playerSearchCache.getCount( filter, ( ) -> playerQueryEngine.count( filter));
+        }
+        return new PlayerSearchResult( items, total, pageable.getPageNumber( ), pageable.getPageSize( ));
+    }
+
+    //   Keyset-пагинация: следующие pageSize игроков после позиции cursor (null - с начала выдачи).
+    //   Сортировка - по orderFieldName, а при равенстве по id.
+    public List< Player> findAllWithCriterionsAfter(
+            String namePattern, String titlePattern,
+            String race, String profession,
+            Boolean banned,
+            Long after, Long before,
+            Integer minExperience, Integer maxExperience,
+            Integer minLevel, Integer maxLevel,
+            String orderFieldName, PlayerCursor cursor, int pageSize) {
+
+        Specification< Player> specification = new PlayerSpecification(
+                namePattern, titlePattern,
+                race, profession,
+                banned,
+                after, before,
+                minExperience, maxExperience,
+                minLevel, maxLevel
+        );
+        if ( cursor != null) {
+            specification = specification.and( cursor.toSpecification( ));
+        }
+        return playerRepository.findFirst( specification, PlayerCursor.sortBy( orderFieldName), pageSize);
     }
 
     public long countWithCriterions(
@@ -52,18 +158,58 @@ public class PlayerService {
             Boolean banned,
             Long after, Long before,
             Integer minExperience, Integer maxExperience,
-            Integer minLevel, Integer maxLevel) {
+            Integer minLevel, Integer maxLevel,
+            Boolean ignoreCase) {
 
-        return playerRepository.count(
-                new PlayerSpecification(
-                        namePattern, titlePattern,
-                        // race.toString( ), profession.toString( ),
-                        race, profession,
-                        banned,
-                        after, before,
-                        minExperience, maxExperience,
-                        minLevel, maxLevel
-                ));
+        PlayerFilter filter = PlayerFilter.of(
+                namePattern, titlePattern,
+                // race.toString( ), profession.toString( ),
+                race, profession,
+                banned,
+                after, before,
+                minExperience, maxExperience,
+                minLevel, maxLevel
+        );
+        filter.setIgnoreCase( ignoreCase);
+        return playerSearchCache.getCount( filter, ( ) -> playerQueryEngine.count( filter));
+    }
+
+    //   Все фасеты одним запросом с GROUP BY по race, profession, banned и корзинам level и experience:
+    // строк в ответе БД не больше произведения числа значений, а не число игроков.
+    //   Размеры корзин null - из настроек facets.*; корзин на всём диапазоне не может быть больше facets.maxBuckets.
+    public PlayerFacets facets( PlayerFilter filter, Integer levelBucketSize, Integer experienceBucketSize) {
+        int levelBucket = levelBucketSize == null ? facetsLevelBucketSize : levelBucketSize;
+        int experienceBucket = experienceBucketSize == null ? facetsExperienceBucketSize : experienceBucketSize;
+        if ( levelBucket < 1 || MAX_LEVEL / levelBucket + 1 > facetsMaxBuckets) {
+            throw new IllegalArgumentException( "Level bucket size should be at least " + ( MAX_LEVEL / facetsMaxBuckets + 1) + "!");
+        }
+        if ( experienceBucket < 1 || Player.MAX_EXPERIENCE / experienceBucket + 1 > facetsMaxBuckets) {
+            throw new IllegalArgumentException( "Experience bucket size should be at least " +
+                    ( Player.MAX_EXPERIENCE / facetsMaxBuckets + 1) + "!");
+        }
+
+        PlayerFacets facets = new PlayerFacets( );
+        Map< Integer, Long> levels = new HashMap<>( );
+        Map< Integer, Long> experiences = new HashMap<>( );
+        for ( Object[] row : playerRepository.countGroups( filter.toSpecification( ), levelBucket, experienceBucket)) {
+            long count = ( ( Number) row[ 5]).longValue( );
+            facets.add( ( Race) row[ 0], ( Profession) row[ 1], ( Boolean) row[ 2], count);
+            if ( row[ 3] != null) {
+                levels.merge( ( ( Number) row[ 3]).intValue( ), count, Long::sum);
+            }
+            if ( row[ 4] != null) {
+                experiences.merge( ( ( Number) row[ 4]).intValue( ), count, Long::sum);
+            }
+        }
+        PlayerFacets.fillHistogram( facets.getLevel( ), levels, levelBucket);
+        PlayerFacets.fillHistogram( facets.getExperience( ), experiences, experienceBucket);
+        return facets;
+    }
+
+    //   Выгрузка: все игроки под фильтром по одному, прямо из курсора БД, без списка в памяти.
+    //   action вызывается внутри транзакции (только чтение), игрок после него отсоединяется - копировать его не нужно.
+    public long export( PlayerFilter filter, Sort sort, Consumer< Player> action) {
+        return playerRepository.scroll( filter.toSpecification( ), sort, exportFetchSize, action);
     }
 
     @Transactional
@@ -75,28 +221,255 @@ public class PlayerService {
         }
         player.checkAllFieldsValidAndCalcLevels( );
         playerRepository.save( player);
+        playerChangePublisher.inserted( player);
+    }
+
+    //   Массовое создание. Каждый игрок проверяется так же, как в insert, невалидные попадают в отчёт с текстом ошибки.
+    //   Валидные пишутся пакетами по bulkBatchSize, каждый пакет - в своей транзакции.
+    // Если пакет не записался целиком, его игроки записываются по одному, чтобы ошибка досталась только виновному.
+    @Transactional( propagation = Propagation.NOT_SUPPORTED)
+    public BulkInsertResult insertAll( List< Player> players) {
+        BulkInsertResult result = new BulkInsertResult( );
+        List< Player> chunk = new ArrayList<>( );
+        List< Integer> chunkIndexes = new ArrayList<>( );
+
+        for ( int i = 0; i < players.size( ); i++) {
+            Player player = players.get( i);
+            try {
+                if ( player == null) {
+                    throw new RuntimeException( "Player should be not null!");
+                }
+                prepareForInserting( player);
+            } catch ( RuntimeException re) {
+                result.addFailed( i, re.getMessage( ));
+                continue;
+            }
+
+            chunk.add( player);
+            chunkIndexes.add( i);
+            if ( chunk.size( ) >= bulkBatchSize) {
+                insertChunk( chunk, chunkIndexes, result);
+                chunk = new ArrayList<>( );
+                chunkIndexes = new ArrayList<>( );
+            }
+        }
+        insertChunk( chunk, chunkIndexes, result);
+
+        result.getItems( ).sort( ( a, b) -> Integer.compare( a.getIndex( ), b.getIndex( )));
+        return result;
+    }
+
+    //   Импорт из файла любого размера: записи читаются из source пакетами по import.chunkSize, в памяти только текущий пакет.
+    //   Записи пакета разбираются и проверяются параллельно (parallel stream, т.е. общий ForkJoinPool) так же, как в insert,
+    // невалидные попадают в отчёт. Валидные пишутся одним пакетным INSERT в своей транзакции.
+    //   Первые skip записей пропускаются без разбора - так прерванный импорт продолжается с committedRecords.
+    //   Если не удалось прочитать источник или записать пакет, импорт останавливается: всё до committedRecords уже в БД,
+    // текущий пакет откачен целиком.
+    @Transactional( propagation = Propagation.NOT_SUPPORTED)
+    public < R> PlayerImportResult importPlayers( PlayerRecordSource< R> source, long skip) {
+        PlayerImportResult result = new PlayerImportResult( );
+        try {
+            long skipped = 0;
+            while ( skipped < skip && source.next( ) != null) {
+                skipped++;
+            }
+            result.setSkipped( skipped);
+
+            List< R> chunk = new ArrayList<>( importChunkSize);
+            for ( R record = source.next( ); record != null; record = source.next( )) {
+                chunk.add( record);
+                if ( chunk.size( ) == importChunkSize) {
+                    importChunk( source, chunk, result);
+                    chunk.clear( );
+                }
+            }
+            importChunk( source, chunk, result);
+            result.setComplete( );
+        } catch ( IOException | RuntimeException e) {
+            result.setError( e.getMessage( ) == null ? e.toString( ) : e.getMessage( ));
+        } finally {
+            // Отдельных событий на каждого игрока при импорте слишком много - слушатели сбрасывают всё.
+            if ( result.getImported( ) > 0) {
+                playerChangePublisher.reset( );
+            }
+        }
+        return result;
+    }
+
+    private < R> void importChunk( PlayerRecordSource< R> source, List< R> chunk, PlayerImportResult result) {
+        if ( chunk.isEmpty( )) {
+            return;
+        }
+        Player[] players = new Player[ chunk.size( )];
+        String[] errors = new String[ chunk.size( )];
+        IntStream.range( 0, chunk.size( )).parallel( ).forEach( i -> {
+            try {
+                Player player = source.toPlayer( chunk.get( i));
+                if ( player == null) {
+                    throw new RuntimeException( "Player should be not null!");
+                }
+                prepareForInserting( player);
+                players[ i] = player;
+            } catch ( RuntimeException re) {
+                errors[ i] = re.getMessage( ) == null ? re.toString( ) : re.getMessage( );
+            }
+        });
+
+        List< Player> valid = new ArrayList<>( chunk.size( ));
+        for ( Player player : players) {
+            if ( player != null) {
+                valid.add( player);
+            }
+        }
+        transactionTemplate.execute( status -> {
+            playerBatchWriter.insertAll( valid);
+            return null;
+        });
+
+        long first = result.getCommittedRecords( ) + 1;
+        for ( int i = 0; i < errors.length; i++) {
+            if ( errors[ i] != null) {
+                result.addRejected( first + i, errors[ i], importMaxReportedErrors);
+            }
+        }
+        result.addCommitted( chunk.size( ), valid.size( ));
+    }
+
+    // Проверки и значения по умолчанию для нового игрока (как в insert); id назначит БД.
+    private static void prepareForInserting( Player player) {
+        player.setId( null);
+        player.checkNullFieldsForInserting( );
+        if ( player.getBanned( ) == null) {
+            player.setBanned( false);
+        }
+        player.checkAllFieldsValidAndCalcLevels( );
+    }
+
+    private void insertChunk( List< Player> chunk, List< Integer> chunkIndexes, BulkInsertResult result) {
+        if ( chunk.isEmpty( )) {
+            return;
+        }
+        try {
+            transactionTemplate.execute( status -> {
+                playerBatchWriter.insertAll( chunk);
+                return null;
+            });
+            for ( int i = 0; i < chunk.size( ); i++) {
+                result.addInserted( chunkIndexes.get( i), chunk.get( i).getId( ));
+                playerChangePublisher.inserted( chunk.get( i));
+            }
+        } catch ( RuntimeException chunkException) {
+            for ( int i = 0; i < chunk.size( ); i++) {
+                Player player = chunk.get( i);
+                player.setId( null);
+                try {
+                    transactionTemplate.execute( status -> {
+                        playerBatchWriter.insertAll( Collections.singletonList( player));
+                        return null;
+                    });
+                    result.addInserted( chunkIndexes.get( i), player.getId( ));
+                    playerChangePublisher.inserted( player);
+                } catch ( RuntimeException re) {
+                    result.addFailed( chunkIndexes.get( i), re.getMessage( ));
+                }
+            }
+        }
     }
 
     @Transactional
     public Player update( long id, Player updatedPlayer) {
+        return update( id, updatedPlayer, null);
+    }
+
+    //   expectedVersions - версии, с которыми клиент согласен изменять игрока (If-Match), null - с любой.
+    //   Версия проверяется при чтении, а изменение одновременно с этим запросом поймает UPDATE ... WHERE version = ?
+    // (ObjectOptimisticLockingFailureException).
+    @Transactional
+    public Player update( long id, Player updatedPlayer, Collection< Long> expectedVersions) {
         Player player = playerRepository.findById( id).orElse(null);
 
         if ( player == null) {
-            throw new RuntimeException( "Player with id is equal " + id + " not found!");
+            throw new PlayerNotFoundException( id);
+        }
+        if ( expectedVersions != null && !expectedVersions.contains( player.getVersion( ))) {
+            throw new PlayerVersionMismatchException( id, player.getVersion( ));
         }
 
         if ( updatedPlayer.areAllFieldsNulls( )) {
             return player;
         }
+        // save( ) перенесёт поля в загруженный экземпляр, поэтому старое состояние запоминаем заранее.
+        Player oldPlayer = new Player( player);
         updatedPlayer.setId( id);
+        // Без версии save( ) принял бы игрока за нового.
+        updatedPlayer.setVersion( player.getVersion( ));
         updatedPlayer.fillVoidFieldsFromAnotherPlayer( player);
         updatedPlayer.checkAllFieldsValidAndCalcLevels( );
-        playerRepository.save( updatedPlayer);
-        return updatedPlayer;
+        // flush - чтобы слушатели и ответ получили уже увеличенную версию.
+        Player savedPlayer = playerRepository.saveAndFlush( updatedPlayer);
+        playerChangePublisher.updated( oldPlayer, savedPlayer);
+        return savedPlayer;
+    }
+
+    //   Частичное обновление одним UPDATE без предварительного чтения: проверяются и пишутся только переданные поля,
+    // level и untilNextLevel пересчитываются, только если передан experience.
+    //   Отсутствие игрока видно по числу изменённых строк.
+    @Transactional
+    public void patch( long id, Player changes) {
+        Map< String, Object> fields = changes.checkAndGetSuppliedFields( );
+        if ( fields.isEmpty( )) {
+            if ( !playerRepository.existsById( id)) {
+                throw new PlayerNotFoundException( id);
+            }
+            return;
+        }
+        if ( playerRepository.updateFields( id, fields) == 0) {
+            throw new PlayerNotFoundException( id);
+        }
+        // Новое состояние строки целиком неизвестно - слушатели перечитают её сами.
+        playerChangePublisher.changed( Collections.singletonList( id));
+    }
+
+    //   Массовые изменения по фильтру - по одному UPDATE / DELETE, строки в память не читаются.
+    //   Какие именно игроки изменились, неизвестно, поэтому слушатели сбрасывают всё.
+    @Transactional
+    public int setBannedWhere( PlayerFilter filter, boolean banned) {
+        int affected = playerRepository.updateWhere( filter.toSpecification( ), Collections.singletonMap( "banned", banned));
+        publishResetIfChanged( affected);
+        return affected;
+    }
+
+    // Опыт изменяется на amount (может быть отрицательным) в пределах допустимого диапазона, уровень пересчитывается в SQL.
+    @Transactional
+    public int addExperienceWhere( PlayerFilter filter, int amount) {
+        if ( amount < -Player.MAX_EXPERIENCE || amount > Player.MAX_EXPERIENCE) {
+            throw new IllegalArgumentException( "Experience amount should be between -" + Player.MAX_EXPERIENCE +
+                    " and " + Player.MAX_EXPERIENCE + "!");
+        }
+        int affected = playerRepository.addExperienceWhere( filter.toSpecification( ), amount, Player.MAX_EXPERIENCE);
+        publishResetIfChanged( affected);
+        return affected;
+    }
+
+    @Transactional
+    public int deleteWhere( PlayerFilter filter) {
+        int affected = playerRepository.deleteWhere( filter.toSpecification( ));
+        publishResetIfChanged( affected);
+        return affected;
+    }
+
+    private void publishResetIfChanged( int affected) {
+        if ( affected > 0) {
+            playerChangePublisher.reset( );
+        }
     }
 
     @Transactional
     public void deleteById( long id) {
-        playerRepository.deleteById( id);
+        // Как и CrudRepository.deleteById, для отсутствующего игрока бросает EmptyResultDataAccessException.
+        Player player = playerRepository.findById( id).orElseThrow( ( ) ->
+                new EmptyResultDataAccessException( "No " + Player.class + " entity with id " + id + " exists!", 1));
+        playerRepository.delete( player);
+        playerChangePublisher.deleted( player);
     }
 }
@@ -0,0 +1,9 @@
+package com.game.service;
+
+// Версия игрока не совпала с ожидаемой клиентом (If-Match) - его успели изменить (ответ 412).
+public class PlayerVersionMismatchException extends RuntimeException {
+
+    public PlayerVersionMismatchException( long id, Long version) {
+        super( "Player with id is equal " + id + " has been changed, current version is " + version + "!");
+    }
+}
@@ -0,0 +1,196 @@
+package com.game.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+//   Декартово дерево (treap) с размерами поддеревьев: вставка, удаление, позиция ключа и выборка по позиции за O(log n).
+//   Ключ - пара ( experience, id), порядок - по убыванию опыта, при равном опыте - по возрастанию id.
+//   Не потокобезопасно: снаружи всё делается под замком.
+final class RankTree {
+
+    interface Visitor {
+        void visit( long position, long id, int experience);
+    }
+
+    private static final class Node {
+        final long id;
+        final int experience;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node( long id, int experience, int priority) {
+            this.id = id;
+            this.experience = experience;
+            this.priority = priority;
+        }
+    }
+
+    private final Random random;
+    private Node root;
+
+    RankTree( Random random) {
+        this.random = random;
+    }
+
+    int size( ) {
+        return size( root);
+    }
+
+    void clear( ) {
+        root = null;
+    }
+
+    //   Строит дерево за O(n) из ключей, уже упорядоченных как в дереве (стек правой ветви декартова дерева).
+    void build( long[] ids, int[] experience, int count) {
+        Deque< Node> rightSpine = new ArrayDeque<>( );
+        for ( int i = 0; i < count; i++) {
+            Node node = new Node( ids[ i], experience[ i], random.nextInt( ));
+            Node last = null;
+            while ( !rightSpine.isEmpty( ) && rightSpine.peek( ).priority < node.priority) {
+                last = rightSpine.pop( );
+            }
+            node.left = last;
+            if ( !rightSpine.isEmpty( )) {
+                rightSpine.peek( ).right = node;
+            }
+            rightSpine.push( node);
+        }
+        root = rightSpine.peekLast( );
+        updateSizes( root);
+    }
+
+    void insert( long id, int experience) {
+        Node[] parts = split( root, experience, id);
+        root = merge( merge( parts[ 0], new Node( id, experience, random.nextInt( ))), parts[ 1]);
+    }
+
+    void remove( long id, int experience) {
+        root = remove( root, id, experience);
+    }
+
+    //   Сколько ключей стоит раньше данного (для ключа из дерева - его позиция, начиная с 0).
+    long positionOf( long id, int experience) {
+        long position = 0;
+        Node node = root;
+        while ( node != null) {
+            if ( before( node.experience, node.id, experience, id)) {
+                position += size( node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return position;
+    }
+
+    //   Обходит не больше count ключей, начиная с позиции from: O(log n + count).
+    void forEach( long from, int count, Visitor visitor) {
+        if ( from < 0 || from >= size( ) || count <= 0) {
+            return;
+        }
+        // Путь к ключу с позицией from: в стеке - узлы, которые ещё предстоит посетить (как в обычном обходе).
+        Deque< Node> stack = new ArrayDeque<>( );
+        Node node = root;
+        long skip = from;
+        while ( node != null) {
+            int leftSize = size( node.left);
+            if ( skip < leftSize) {
+                stack.push( node);
+                node = node.left;
+            } else if ( skip == leftSize) {
+                stack.push( node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        long position = from;
+        while ( !stack.isEmpty( ) && position < from + count) {
+            node = stack.pop( );
+            visitor.visit( position++, node.id, node.experience);
+            for ( Node next = node.right; next != null; next = next.left) {
+                stack.push( next);
+            }
+        }
+    }
+
+    static boolean before( int experience1, long id1, int experience2, long id2) {
+        return experience1 > experience2 || experience1 == experience2 && id1 < id2;
+    }
+
+    // [ ключи раньше ( experience, id), остальные]
+    private static Node[] split( Node node, int experience, long id) {
+        if ( node == null) {
+            return new Node[] { null, null};
+        }
+        if ( before( node.experience, node.id, experience, id)) {
+            Node[] parts = split( node.right, experience, id);
+            node.right = parts[ 0];
+            update( node);
+            parts[ 0] = node;
+            return parts;
+        } else {
+            Node[] parts = split( node.left, experience, id);
+            node.left = parts[ 1];
+            update( node);
+            parts[ 1] = node;
+            return parts;
+        }
+    }
+
+    // Все ключи left раньше всех ключей right.
+    private static Node merge( Node left, Node right) {
+        if ( left == null) {
+            return right;
+        }
+        if ( right == null) {
+            return left;
+        }
+        if ( left.priority > right.priority) {
+            left.right = merge( left.right, right);
+            update( left);
+            return left;
+        } else {
+            right.left = merge( left, right.left);
+            update( right);
+            return right;
+        }
+    }
+
+    private static Node remove( Node node, long id, int experience) {
+        if ( node == null) {
+            return null;
+        }
+        if ( node.id == id && node.experience == experience) {
+            return merge( node.left, node.right);
+        }
+        if ( before( node.experience, node.id, experience, id)) {
+            node.right = remove( node.right, id, experience);
+        } else {
+            node.left = remove( node.left, id, experience);
+        }
+        update( node);
+        return node;
+    }
+
+    private static int updateSizes( Node node) {
+        if ( node == null) {
+            return 0;
+        }
+        node.size = updateSizes( node.left) + updateSizes( node.right) + 1;
+        return node.size;
+    }
+
+    private static void update( Node node) {
+        node.size = size( node.left) + size( node.right) + 1;
+    }
+
+    private static int size( Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
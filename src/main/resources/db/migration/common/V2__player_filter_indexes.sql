@@ -0,0 +1,18 @@
+-- Индексы под фильтры PlayerSpecification и сортировки PlayerOrder.
+-- В InnoDB к каждому вторичному индексу неявно дописан первичный ключ (id), поэтому
+-- "WHERE <равенства по префиксу> ORDER BY id" читается из индекса уже отсортированным.
+
+-- race / profession / banned в любой комбинации-префиксе + сортировка по умолчанию (ID)
+CREATE INDEX idx_player_race_profession_banned ON player (race, profession, banned);
+
+-- Равенство по одному из перечислений + диапазон или сортировка по experience
+-- (к min/maxLevel PlayerSpecification добавляет соответствующие им границы experience - они и сужают индекс)
+CREATE INDEX idx_player_race_experience ON player (race, experience);
+CREATE INDEX idx_player_profession_experience ON player (profession, experience);
+CREATE INDEX idx_player_banned_experience ON player (banned, experience);
+
+-- Диапазоны after/before, min/maxExperience, min/maxLevel и сортировки NAME, EXPERIENCE, BIRTHDAY, LEVEL без фильтров
+CREATE INDEX idx_player_experience ON player (experience);
+CREATE INDEX idx_player_level ON player (level);
+CREATE INDEX idx_player_birthday ON player (birthday);
+CREATE INDEX idx_player_name ON player (name);
@@ -0,0 +1,2 @@
+-- Версия строки (как mysql/V3). База dev создаётся из test.sql, где столбец уже есть.
+ALTER TABLE player ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Версия строки для оптимистической блокировки (Player.version) и ETag в ответах REST API.
+-- Любое изменение игрока увеличивает её на 1; у существующих строк начинается с 0.
+ALTER TABLE player ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
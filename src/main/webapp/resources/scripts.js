@@ -1,7 +1,9 @@
 function loadContent(root, suffix, currentPage) {
 
-    let objects = JSON.parse(Get(root + "/rest/players" + suffix).responseText);
-    let playersCount = Get(root + "/rest/players/count" + suffix).responseText;
+    // Страница и общее количество одним запросом.
+    let page = JSON.parse(Get(root + "/rest/players/search" + suffix).responseText);
+    let objects = page.items;
+    let playersCount = page.total;
     document.getElementById("count").innerText = "Players found: " + playersCount;
     let table = document.getElementById("mainTable");
     table.innerHTML = "";
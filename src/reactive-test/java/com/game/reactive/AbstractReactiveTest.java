@@ -0,0 +1,37 @@
+package com.game.reactive;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ReactiveConfig.class)
+@TestPropertySource(properties = "reactive.r2dbc.url=r2dbc:h2:mem:///rpg_reactive")
+public abstract class AbstractReactiveTest {
+
+    ApplicationContext context;
+    WebTestClient webTestClient;
+
+    @Autowired
+    public void setContext(ApplicationContext context) {
+        this.context = context;
+    }
+
+    // Та же таблица, что у MVC-тестов (@Sql в AbstractTest), - через R2DBC.
+    @Before
+    public void setup() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(context.getBean(ConnectionFactory.class)).block();
+
+        webTestClient = WebTestClient.bindToApplicationContext(context).build();
+    }
+}
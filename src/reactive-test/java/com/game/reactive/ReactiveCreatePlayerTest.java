@@ -0,0 +1,79 @@
+package com.game.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ReactiveCreatePlayerTest extends AbstractReactiveTest {
+
+    //test1
+    @Test
+    public void createPlayerEmptyBodyTest() throws Exception {
+        webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //test2
+    @Test
+    public void createPlayerEmptyNameTest() throws Exception {
+        webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(TestsHelper.EMPTY_NAME_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //test3
+    @Test
+    public void createPlayerBirthdayNegativeTest() throws Exception {
+        webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(TestsHelper.NEGATIVE_BIRTHDAY_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //test4
+    @Test
+    public void createPlayerExperienceTooBigTest() throws Exception {
+        webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(TestsHelper.TOO_BIG_EXPERIENCE_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //test5
+    @Test
+    public void createPlayerTitleLengthTooBigTest() throws Exception {
+        webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(TestsHelper.TOO_BIG_TITLE_LENGTH_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //test6
+    @Test
+    public void createPlayerTest() throws Exception {
+        String contentAsString = webTestClient.post().uri("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(TestsHelper.BANNED_TRUE_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        PlayerInfoTest expected = new PlayerInfoTest(41L, "Амарылис", "Прозелит", Race.DWARF, Profession.CLERIC, 988059600000L, true, 63986, 35, 2614);
+        PlayerInfoTest actual = new ObjectMapper().readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Возвращается не правильный результат при запросе создания игрока.", expected, actual);
+    }
+}
\ No newline at end of file
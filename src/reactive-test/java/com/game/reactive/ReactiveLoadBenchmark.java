@@ -0,0 +1,171 @@
+package com.game.reactive;
+
+import com.game.config.MyWebAppInit;
+import io.r2dbc.spi.ConnectionFactory;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.web.SpringServletContainerInitializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//   Один и тот же набор запросов (страница игроков, игрок по id, количество) к MVC-варианту во встроенном Tomcat
+// и к неблокирующему на Reactor Netty: при каждом числе одновременных клиентов - запросов в секунду, задержки p50 / p99,
+// ошибки и сколько потоков держит каждый сервер. Оба - на H2 из test.sql; клиент - в том же процессе, на своих потоках.
+//   r2dbc-h2 внутри синхронный (H2 встроена в процесс), так что выигрыш здесь - от отсутствия потока на запрос,
+// а не от драйвера; с MySQL ожидание БД тоже перестаёт занимать потоки.
+//   В обычный прогон тестов не входит, запуск: mvn -B -Preactive test -Dtest=ReactiveLoadBenchmark [-Dclients=100,1000,10000]
+public class ReactiveLoadBenchmark {
+
+    private static final long MEASURE_NANOS = Long.getLong("seconds", 10) * 1_000_000_000L;
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mvcVersusReactive() throws Exception {
+        int[] clientCounts = Arrays.stream(System.getProperty("clients", "100,1000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+
+        System.setProperty("spring.profiles.active", "dev");
+        Tomcat tomcat = startTomcat();
+        System.setProperty("reactive.r2dbc.url", "r2dbc:h2:mem:///rpg_benchmark");
+        AnnotationConfigApplicationContext reactiveContext = new AnnotationConfigApplicationContext(ReactiveConfig.class);
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(reactiveContext.getBean(ConnectionFactory.class)).block();
+        DisposableServer reactiveServer = ReactivePlayerServer.start(reactiveContext, 0);
+
+        try {
+            String mvc = "http://localhost:" + tomcat.getConnector().getLocalPort();
+            String reactive = "http://localhost:" + reactiveServer.port();
+            for (int clients : clientCounts) {
+                report("mvc", clients, load(mvc, clients), "http-nio", "player-");
+                report("reactive", clients, load(reactive, clients), "reactor-http", "r2dbc");
+            }
+        } finally {
+            reactiveServer.disposeNow();
+            reactiveContext.close();
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private Tomcat startTomcat() throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(folder.newFolder("tomcat").getAbsolutePath());
+        tomcat.setPort(0);
+        // Иначе при 10000 клиентов лишние соединения ждали бы в очереди на accept, а не в пулах приложения.
+        tomcat.getConnector().setProperty("maxConnections", "20000");
+        tomcat.getConnector().setProperty("acceptCount", "10000");
+        StandardContext context = (StandardContext) tomcat.addContext("", folder.newFolder("webapp").getAbsolutePath());
+        // Tomcat чистит эти кэши через рефлексию, которую JDK 9+ без --add-opens не разрешает.
+        context.setClearReferencesObjectStreamClassCaches(false);
+        context.setClearReferencesRmiTargets(false);
+        context.addServletContainerInitializer(new SpringServletContainerInitializer(),
+                Collections.singleton(MyWebAppInit.class));
+        tomcat.start();
+        return tomcat;
+    }
+
+    private static Result load(String baseUrl, int clients) {
+        LoopResources loops = LoopResources.create("load-client");
+        ConnectionProvider connections = ConnectionProvider.fixed("load", clients, 60_000);
+        HttpClient client = HttpClient.create(connections).tcpConfiguration(tcp -> tcp.runOn(loops)).baseUrl(baseUrl);
+        try {
+            run(client, clients, WARMUP_NANOS, new Result());
+            Result result = new Result();
+            long started = System.nanoTime();
+            run(client, clients, MEASURE_NANOS, result);
+            result.elapsedNanos = System.nanoTime() - started;
+            return result;
+        } finally {
+            connections.disposeLater().block();
+            loops.disposeLater().block();
+        }
+    }
+
+    // Каждый клиент шлёт запросы один за другим, пока не истечёт время.
+    private static void run(HttpClient client, int clients, long nanos, Result result) {
+        long deadline = System.nanoTime() + nanos;
+        Flux.range(0, clients)
+                .flatMap(i -> Mono.defer(() -> {
+                    long started = System.nanoTime();
+                    return client.get().uri(uri())
+                            .responseSingle((response, body) -> body.asByteArray()
+                                    .map(bytes -> response.status().code()))
+                            .doOnNext(status -> result.record(status, System.nanoTime() - started))
+                            .onErrorResume(e -> {
+                                result.errors.increment();
+                                return Mono.empty();
+                            });
+                }).repeat(() -> System.nanoTime() < deadline), clients)
+                .blockLast();
+    }
+
+    private static String uri() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (random.nextInt(3)) {
+            case 0:
+                return "/rest/players?pageSize=10&order=LEVEL&pageNumber=" + random.nextInt(4);
+            case 1:
+                return "/rest/players/" + (1 + random.nextInt(40));
+            default:
+                return "/rest/players/count?minLevel=" + random.nextInt(40);
+        }
+    }
+
+    private static void report(String name, int clients, Result result, String... threadPrefixes) {
+        long[] latencies = result.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        long threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            for (String prefix : threadPrefixes) {
+                if (thread.getName().startsWith(prefix)) {
+                    threads++;
+                    break;
+                }
+            }
+        }
+        System.out.printf("%-8s %,6d clients: %,9.0f requests/s, p50 %,8.2f ms, p99 %,8.2f ms, non-200 %,d, errors %,d, server threads %d%n",
+                name, clients, latencies.length * 1e9 / result.elapsedNanos,
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                result.failed.sum(), result.errors.sum(), threads);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1_000_000.0;
+    }
+
+    private static class Result {
+        final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        final LongAdder failed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        long elapsedNanos;
+
+        void record(int status, long nanos) {
+            if (status != 200) {
+                failed.increment();
+            }
+            latencies.add(nanos);
+        }
+    }
+}
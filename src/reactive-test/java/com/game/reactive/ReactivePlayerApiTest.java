@@ -0,0 +1,134 @@
+package com.game.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.service.PlayerFilter;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReactivePlayerApiTest extends AbstractReactiveTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void playersStreamedAsNdjson() throws Exception {
+        MediaType ndjson = MediaType.parseMediaType("application/x-ndjson");
+        String content = webTestClient.get().uri("/rest/players?pageSize=40")
+                .accept(ndjson)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(ndjson)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        List<PlayerInfoTest> actual = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            actual.add(mapper.readValue(line, PlayerInfoTest.class));
+        }
+        assertEquals("По одному игроку в строке", testsHelper.getAllPlayers(), actual);
+    }
+
+    //test2
+    @Test
+    public void rowsReadOnDemand() throws Exception {
+        List<Player> received = new ArrayList<>();
+        CountDownLatch firstTwo = new CountDownLatch(2);
+        CountDownLatch completed = new CountDownLatch(1);
+        BaseSubscriber<Player> subscriber = new BaseSubscriber<Player>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(2);
+            }
+
+            @Override
+            protected void hookOnNext(Player player) {
+                received.add(player);
+                firstTwo.countDown();
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                completed.countDown();
+            }
+        };
+        context.getBean(ReactivePlayerRepository.class).findAll(new PlayerFilter(), "id", 0, 40).subscribe(subscriber);
+
+        assertTrue(firstTwo.await(10, TimeUnit.SECONDS));
+        assertFalse("Без запроса следующих строк поток не завершается", completed.await(200, TimeUnit.MILLISECONDS));
+        assertEquals("Строк - не больше, чем запрошено", 2, received.size());
+
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(testsHelper.getAllPlayers().size(), received.size());
+    }
+
+    //test3
+    @Test
+    public void invalidParametersAreBadRequest() {
+        for (String uri : new String[]{"/rest/players?race=GNOME", "/rest/players/count?profession=BARD",
+                "/rest/players?pageSize=0", "/rest/players/0", "/rest/players/abc"}) {
+            webTestClient.get().uri(uri)
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
+
+    //test4
+    @Test
+    public void getUpdateDelete() throws Exception {
+        PlayerInfoTest player = mapper.readValue(webTestClient.get().uri("/rest/players/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody(), PlayerInfoTest.class);
+        assertEquals(testsHelper.getAllPlayers().get(0), player);
+
+        String updated = webTestClient.post().uri("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\": \"Ниусс\", \"experience\": 100}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertEquals("Уровень пересчитан", 1, mapper.readTree(updated).get("level").asInt());
+        assertEquals("Версия увеличена", 1L, (long) context.getBean(ReactivePlayerRepository.class).findById(1).block().getVersion());
+
+        webTestClient.post().uri("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"experience\": 100000000}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        Player stale = context.getBean(ReactivePlayerRepository.class).findById(1).block();
+        stale.setVersion(0L);
+        assertEquals("Изменение по старой версии не записывается",
+                0, (int) context.getBean(ReactivePlayerRepository.class).update(stale, 0).block());
+
+        webTestClient.delete().uri("/rest/players/1")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/rest/players/1")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/rest/players/1")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.post().uri("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\": \"Ниус\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
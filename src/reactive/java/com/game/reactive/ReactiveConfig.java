@@ -0,0 +1,68 @@
+package com.game.reactive;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Отдельное приложение, не связанное с AppConfig и WebConfig: запуск - ReactivePlayerServer, настройки - reactive.*
+@Configuration
+@EnableWebFlux
+@ComponentScan("com.game.reactive")
+@PropertySource("classpath:application.properties")
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    private final Environment env;
+
+    public ReactiveConfig(Environment env) {
+        this.env = env;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory() {
+        return new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(env.getRequiredProperty("reactive.r2dbc.url")))
+                .name("player-r2dbc")
+                .initialSize(env.getProperty("reactive.r2dbc.pool.initialSize", Integer.class, 5))
+                .maxSize(env.getProperty("reactive.r2dbc.pool.maxSize", Integer.class, 20))
+                .maxAcquireTime(Duration.ofMillis(env.getProperty("reactive.r2dbc.pool.maxAcquireTimeMillis", Long.class, 10000L)))
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionPool connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    // Player сериализуется по полям, как в WebConfig. Потоковые типы - для списка игроков по одному.
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        MediaType ndjson = MediaType.parseMediaType("application/x-ndjson");
+        Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(mapper,
+                MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), ndjson);
+        encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, ndjson));
+        configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(mapper));
+    }
+}
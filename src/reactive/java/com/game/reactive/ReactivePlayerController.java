@@ -0,0 +1,138 @@
+package com.game.reactive;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.service.PlayerFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//   Те же шесть запросов, что у PlayerController (те же адреса, параметры, проверки Player и коды ответов),
+// но без блокирующих вызовов: поток обработки не ждёт ни БД, ни клиента.
+//   Список игроков с Accept: application/x-ndjson (или application/stream+json) уходит клиенту по одному игроку
+// по мере чтения из БД, а медленный клиент сдерживает чтение (backpressure). С application/json - обычный массив.
+@RestController
+@RequestMapping( "/rest")
+public class ReactivePlayerController {
+    private final ReactivePlayerRepository playerRepository;
+
+    @Autowired
+    public ReactivePlayerController( ReactivePlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    // 1. Get players list
+    //   Фильтры - поля PlayerFilter, как у GET /rest/players в PlayerController (ignoreCase - регистр
+    // и "ё" = "е", "й" = "и", как в PlayerSpecification).
+    @GetMapping( "/players")
+    public Flux< Player> getPlayersWithCriterions(
+            PlayerFilter filter,
+            @RequestParam( value = "order", required = false) PlayerOrder order,
+            @RequestParam( value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+            @RequestParam( value = "pageSize", required = false, defaultValue = "3") Integer pageSize
+    ) {
+        if ( pageNumber < 0 || pageSize <= 0) {
+            return Flux.error( new IllegalArgumentException( "pageNumber = " + pageNumber + ", pageSize = " + pageSize));
+        }
+        String orderFieldName = ( order == null) ?
+                PlayerOrder.ID.getFieldName( ) :
+                order.getFieldName( );
+        return playerRepository.findAll( filter, orderFieldName, ( long) pageNumber * pageSize, pageSize);
+    }
+
+    // 2. Get players count
+    @RequestMapping( "/players/count")
+    public Mono< Long> getCountWithCriterions( PlayerFilter filter) {
+        return playerRepository.count( filter);
+    }
+
+    // 3. Create player
+    //   Проверки - как в PlayerService.insert: все поля, кроме banned, обязательны, banned по умолчанию - false.
+    @PostMapping( "/players")
+    public Mono< ResponseEntity< Player>> create(
+            @RequestBody Player player
+    ) {
+        return Mono.fromCallable( ( ) -> {
+                    player.checkNullFieldsForInserting( );
+                    if ( player.getBanned( ) == null) {
+                        player.setBanned( false);
+                    }
+                    player.checkAllFieldsValidAndCalcLevels( );
+                    return player;
+                })
+                .flatMap( playerRepository::insert)
+                .map( insertedPlayer -> new ResponseEntity<>( insertedPlayer, HttpStatus.OK))
+                .onErrorResume( RuntimeException.class, re -> Mono.just( new ResponseEntity<>( player, HttpStatus.BAD_REQUEST)));
+    }
+
+    // 4. Get player
+    @GetMapping( "/players/{id}")
+    public Mono< ResponseEntity< Player>> getPlayerById(
+            @PathVariable( "id") Long id
+    ) {
+        if ( id <= 0) {
+            // Обрати внимание. 7. Не валидным считается id, если он:
+            // 7.3. не положительный
+            return Mono.just( new ResponseEntity<>( HttpStatus.BAD_REQUEST));
+        }
+        return playerRepository.findById( id)
+                .map( player -> new ResponseEntity<>( player, HttpStatus.OK))
+                .defaultIfEmpty( new ResponseEntity<>( HttpStatus.NOT_FOUND));
+    }
+
+    // 5. Update player
+    //   Как в PlayerService.update: пустые поля берутся у текущего игрока, все вместе проверяются.
+    // Если игрока изменили между чтением и записью - 409.
+    @PostMapping( "/players/{id}")
+    public Mono< ResponseEntity< Player>> update(
+            @PathVariable( "id") Long id,
+            @RequestBody Player player
+    ) {
+        if ( id <= 0) {
+            return Mono.just( new ResponseEntity<>( player, HttpStatus.BAD_REQUEST));
+        }
+        return playerRepository.findById( id)
+                .flatMap( currentPlayer -> {
+                    if ( player.areAllFieldsNulls( )) {
+                        return Mono.just( new ResponseEntity<>( currentPlayer, HttpStatus.OK));
+                    }
+                    try {
+                        player.setId( id);
+                        player.fillVoidFieldsFromAnotherPlayer( currentPlayer);
+                        player.checkAllFieldsValidAndCalcLevels( );
+                    } catch ( RuntimeException re) {
+                        return Mono.just( new ResponseEntity<>( player, HttpStatus.BAD_REQUEST));
+                    }
+                    return playerRepository.update( player, currentPlayer.getVersion( ))
+                            .map( updated -> {
+                                if ( updated == 0) {
+                                    return new ResponseEntity<>( player, HttpStatus.CONFLICT);
+                                }
+                                player.setVersion( currentPlayer.getVersion( ) + 1);
+                                return new ResponseEntity<>( player, HttpStatus.OK);
+                            });
+                })
+                .defaultIfEmpty( new ResponseEntity<>( player, HttpStatus.NOT_FOUND));
+    }
+
+    // 6. Delete player
+    @DeleteMapping( "/players/{id}")
+    public Mono< ResponseEntity< Player>> deleteOne(
+            @PathVariable( "id") Long id
+    ) {
+        if ( id <= 0) {
+            return Mono.just( new ResponseEntity<>( HttpStatus.BAD_REQUEST));
+        }
+        return playerRepository.deleteById( id)
+                .map( deleted -> new ResponseEntity<>( deleted > 0 ? HttpStatus.OK : HttpStatus.NOT_FOUND));
+    }
+
+    // Неизвестные race или profession (из PlayerSpecification-условий) и неверные параметры страницы.
+    @ExceptionHandler( IllegalArgumentException.class)
+    public ResponseEntity< Void> badRequest( IllegalArgumentException iae) {
+        return new ResponseEntity<>( HttpStatus.BAD_REQUEST);
+    }
+}
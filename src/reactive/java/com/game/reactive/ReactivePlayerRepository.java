@@ -0,0 +1,210 @@
+package com.game.reactive;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.LikePattern;
+import com.game.service.PlayerFilter;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//   Таблица player через R2DBC: ни один метод не блокирует поток, строки приходят по мере чтения
+// и запрашиваются у драйвера не быстрее, чем их забирает подписчик.
+//   Условия - те же, что у PlayerSpecification: name и title - LIKE '%...%' (с ignoreCase - LikePattern.fold( ) с обеих сторон),
+// race и profession - только известные значения (иначе IllegalArgumentException), границы диапазонов - включительно.
+@Repository
+public class ReactivePlayerRepository {
+    private static final String COLUMNS =
+            "id, name, title, race, profession, birthday, banned, experience, level, untilNextLevel, version";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactivePlayerRepository( DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Порядок - по orderFieldName (одно из PlayerOrder), при равенстве - по id, как у PlayerController.
+    public Flux< Player> findAll( PlayerFilter filter, String orderFieldName, long offset, int limit) {
+        return Flux.defer( ( ) -> {
+            Where where = Where.of( filter);
+            String orderBy = "id".equals( orderFieldName) ? "id" : orderFieldName + ", id";
+            DatabaseClient.GenericExecuteSpec spec = databaseClient
+                    .execute( "SELECT " + COLUMNS + " FROM player" + where.sql
+                            + " ORDER BY " + orderBy + " LIMIT :limit OFFSET :offset")
+                    .bind( "limit", limit)
+                    .bind( "offset", offset);
+            return where.bindTo( spec)
+                    .map( ( row, metadata) -> toPlayer( row))
+                    .all( );
+        });
+    }
+
+    public Mono< Long> count( PlayerFilter filter) {
+        return Mono.defer( ( ) -> {
+            Where where = Where.of( filter);
+            return where.bindTo( databaseClient.execute( "SELECT COUNT(*) FROM player" + where.sql))
+                    .map( ( row, metadata) -> row.get( 0, Long.class))
+                    .one( );
+        });
+    }
+
+    public Mono< Player> findById( long id) {
+        return databaseClient.execute( "SELECT " + COLUMNS + " FROM player WHERE id = :id")
+                .bind( "id", id)
+                .map( ( row, metadata) -> toPlayer( row))
+                .one( );
+    }
+
+    // Игрок должен быть уже проверен (checkAllFieldsValidAndCalcLevels). Возвращается он же - с id и версией 0.
+    public Mono< Player> insert( Player player) {
+        return databaseClient.insert( ).into( "player")
+                .value( "name", player.getName( ))
+                .value( "title", player.getTitle( ))
+                .value( "race", player.getRace( ).name( ))
+                .value( "profession", player.getProfession( ).name( ))
+                .value( "birthday", toLocalDate( player))
+                .value( "banned", player.getBanned( ))
+                .value( "experience", player.getExperience( ))
+                .value( "level", player.getLevel( ))
+                .value( "untilNextLevel", player.getUntilNextLevel( ))
+                .value( "version", 0L)
+                .map( ( row, metadata) -> row.get( "id", Long.class))
+                .one( )
+                .map( id -> {
+                    player.setId( id);
+                    player.setVersion( 0L);
+                    return player;
+                });
+    }
+
+    //   Все поля сразу, если версия в БД всё ещё expectedVersion (версия увеличивается).
+    // 0 изменённых строк - игрока удалили или изменили одновременно с этим запросом.
+    public Mono< Integer> update( Player player, long expectedVersion) {
+        return databaseClient.execute( "UPDATE player SET name = :name, title = :title, race = :race, profession = :profession,"
+                        + " birthday = :birthday, banned = :banned, experience = :experience, level = :level,"
+                        + " untilNextLevel = :untilNextLevel, version = version + 1"
+                        + " WHERE id = :id AND version = :version")
+                .bind( "name", player.getName( ))
+                .bind( "title", player.getTitle( ))
+                .bind( "race", player.getRace( ).name( ))
+                .bind( "profession", player.getProfession( ).name( ))
+                .bind( "birthday", toLocalDate( player))
+                .bind( "banned", player.getBanned( ))
+                .bind( "experience", player.getExperience( ))
+                .bind( "level", player.getLevel( ))
+                .bind( "untilNextLevel", player.getUntilNextLevel( ))
+                .bind( "id", player.getId( ))
+                .bind( "version", expectedVersion)
+                .fetch( )
+                .rowsUpdated( );
+    }
+
+    public Mono< Integer> deleteById( long id) {
+        return databaseClient.execute( "DELETE FROM player WHERE id = :id")
+                .bind( "id", id)
+                .fetch( )
+                .rowsUpdated( );
+    }
+
+    private static LocalDate toLocalDate( Player player) {
+        return new java.sql.Date( player.getBirthday( ).getTime( )).toLocalDate( );
+    }
+
+    private static Player toPlayer( Row row) {
+        String race = row.get( "race", String.class);
+        String profession = row.get( "profession", String.class);
+        LocalDate birthday = row.get( "birthday", LocalDate.class);
+        Player player = new Player(
+                row.get( "id", Long.class),
+                row.get( "name", String.class),
+                row.get( "title", String.class),
+                race == null ? null : Race.valueOf( race),
+                profession == null ? null : Profession.valueOf( profession),
+                row.get( "experience", Integer.class),
+                birthday == null ? null : java.sql.Date.valueOf( birthday),
+                row.get( "banned", Boolean.class));
+        player.setVersion( row.get( "version", Long.class));
+        return player;
+    }
+
+    // WHERE из полей PlayerFilter и значения его именованных параметров.
+    private static class Where {
+        private final StringBuilder sql = new StringBuilder( );
+        private final Map< String, Object> parameters = new LinkedHashMap<>( );
+
+        static Where of( PlayerFilter filter) {
+            Where where = new Where( );
+            boolean ignoreCase = Boolean.TRUE.equals( filter.getIgnoreCase( ));
+            where.like( "name", filter.getName( ), ignoreCase);
+            where.like( "title", filter.getTitle( ), ignoreCase);
+            if ( filter.getRace( ) != null) {
+                where.and( "race = :race", "race", Race.valueOf( filter.getRace( )).name( ));
+            }
+            if ( filter.getProfession( ) != null) {
+                where.and( "profession = :profession", "profession", Profession.valueOf( filter.getProfession( )).name( ));
+            }
+            if ( filter.getBanned( ) != null) {
+                where.and( "banned = :banned", "banned", filter.getBanned( ));
+            }
+            // Дата рождения сравнивается с моментом времени, как в PlayerSpecification (new Date( after)).
+            if ( filter.getAfter( ) != null) {
+                where.and( "birthday >= :after", "after", new Timestamp( filter.getAfter( )).toLocalDateTime( ));
+            }
+            if ( filter.getBefore( ) != null) {
+                where.and( "birthday <= :before", "before", new Timestamp( filter.getBefore( )).toLocalDateTime( ));
+            }
+            if ( filter.getMinExperience( ) != null) {
+                where.and( "experience >= :minExperience", "minExperience", filter.getMinExperience( ));
+            }
+            if ( filter.getMaxExperience( ) != null) {
+                where.and( "experience <= :maxExperience", "maxExperience", filter.getMaxExperience( ));
+            }
+            if ( filter.getMinLevel( ) != null) {
+                where.and( "level >= :minLevel", "minLevel", filter.getMinLevel( ));
+            }
+            if ( filter.getMaxLevel( ) != null) {
+                where.and( "level <= :maxLevel", "maxLevel", filter.getMaxLevel( ));
+            }
+            return where;
+        }
+
+        private void like( String column, String pattern, boolean ignoreCase) {
+            if ( pattern == null || pattern.isEmpty( )) {
+                return;
+            }
+            if ( ignoreCase) {
+                //   та же свёртка, что у PlayerSpecification: lower( ) и "ё" -> "е", "й" -> "и" в колонке и в образце
+                String value = "LOWER(" + column + ")";
+                for ( int i = 0; i < LikePattern.FOLD_FROM.length( ); i++) {
+                    value = "REPLACE(" + value + ", '" + LikePattern.FOLD_FROM.charAt( i) + "', '"
+                            + LikePattern.FOLD_TO.charAt( i) + "')";
+                }
+                and( value + " LIKE :" + column, column, "%" + LikePattern.fold( pattern) + "%");
+            } else {
+                and( column + " LIKE :" + column, column, "%" + pattern + "%");
+            }
+        }
+
+        private void and( String condition, String parameter, Object value) {
+            sql.append( sql.length( ) == 0 ? " WHERE " : " AND ").append( condition);
+            parameters.put( parameter, value);
+        }
+
+        DatabaseClient.GenericExecuteSpec bindTo( DatabaseClient.GenericExecuteSpec spec) {
+            for ( Map.Entry< String, Object> parameter : parameters.entrySet( )) {
+                spec = spec.bind( parameter.getKey( ), parameter.getValue( ));
+            }
+            return spec;
+        }
+    }
+}
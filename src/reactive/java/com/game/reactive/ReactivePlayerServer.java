@@ -0,0 +1,31 @@
+package com.game.reactive;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+//   Неблокирующий вариант API игроков на Reactor Netty: порт - reactive.port, БД - reactive.r2dbc.url.
+//   Сборка и запуск: mvn -Preactive package, затем java с target/classes и зависимостями профиля в classpath.
+public final class ReactivePlayerServer {
+
+    private ReactivePlayerServer() {
+    }
+
+    public static DisposableServer start(AnnotationConfigApplicationContext context, int port) {
+        HttpHandler handler = WebHttpHandlerBuilder.applicationContext(context).build();
+        return HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+    }
+
+    public static void main(String[] args) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ReactiveConfig.class);
+        context.registerShutdownHook();
+        DisposableServer server = start(context, context.getEnvironment().getProperty("reactive.port", Integer.class, 8081));
+        server.onDispose().block();
+    }
+}
@@ -0,0 +1,84 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.CompressionFilter;
+import com.game.config.CompressionStatistics;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+//   Сжатие страниц игроков через CompressionFilter: для каждого уровня сжатия и размера страницы - степень сжатия,
+// процессорное время на ответ (из статистики фильтра) и запросов в секунду. По этим числам подбирается compression.minSize:
+// ниже порога сжатие экономит меньше байт, чем стоит процессорного времени.
+//   В обычный прогон тестов не входит, запуск: mvn -B test -Dtest=CompressionBenchmark
+public class CompressionBenchmark {
+
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    @Test
+    public void pages() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        for (int level : new int[]{1, 6, 9}) {
+            for (int pageSize : new int[]{1, 3, 10, 100, 1000}) {
+                byte[] page = mapper.writeValueAsBytes(page(pageSize));
+                CompressionFilter filter = new CompressionFilter(true, 0, level, new String[]{"application/json"}, 4);
+                FilterChain chain = (request, response) -> {
+                    response.setContentType("application/json");
+                    response.getOutputStream().write(page);
+                };
+
+                long requests = 0;
+                long started = System.nanoTime();
+                long elapsed;
+                do {
+                    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/players");
+                    request.addHeader("Accept-Encoding", "gzip");
+                    filter.doFilter(request, new MockHttpServletResponse(), chain);
+                    requests++;
+                    elapsed = System.nanoTime() - started;
+                } while (elapsed < MEASURE_NANOS);
+
+                long bytesIn = 0;
+                long bytesOut = 0;
+                double cpuMicros = 0;
+                CompressionStatistics statistics = filter.getStatistics();
+                for (CompressionStatistics.SizeBucket bucket : statistics.getSizes()) {
+                    if (bucket.getResponses() > 0) {
+                        bytesIn = bucket.getBytesIn() / bucket.getResponses();
+                        bytesOut = bucket.getBytesOut() / bucket.getResponses();
+                        cpuMicros = bucket.getMeanCpuMicros();
+                    }
+                }
+                System.out.printf("level %d, page %4d: %,8d -> %,7d bytes (%5.1f%%), %,8.1f us CPU per response, %,9.0f requests/s%n",
+                        level, pageSize, bytesIn, bytesOut, bytesOut * 100.0 / bytesIn, cpuMicros, requests * 1e9 / elapsed);
+            }
+        }
+    }
+
+    private List<Player> page(int size) {
+        Random random = new Random(size);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(new Player((long) i + 1, "Игрок" + i, "Рожденный в Бронксе",
+                    Race.values()[random.nextInt(Race.values().length)],
+                    Profession.values()[random.nextInt(Profession.values().length)],
+                    random.nextInt(Player.MAX_EXPERIENCE), new Date(988059600000L + random.nextInt(1_000_000) * 1000L),
+                    random.nextBoolean()));
+        }
+        return players;
+    }
+}
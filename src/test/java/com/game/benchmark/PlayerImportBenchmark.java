@@ -0,0 +1,121 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.MyWebAppInit;
+import com.game.config.WebConfig;
+import com.game.controller.utils.AsyncMockMvc;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Пропускная способность POST /rest/players/import против H2 (профиль dev): NDJSON, CSV и для сравнения
+// POST /rest/players/bulk с тем же числом игроков. В обычный прогон тестов не входит (surefire берёт только *Test),
+// запуск: mvn -B test -Dtest=PlayerImportBenchmark [-Dbenchmark.rows=200000] [-Dimport.chunkSize=5000]
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class PlayerImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final long BIRTHDAY = 988059600000L;
+
+    @Autowired
+    private WebApplicationContext context;
+    private AsyncMockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::playersReset);
+        mockMvc = new AsyncMockMvc(MockMvcBuilders.webAppContextSetup(context).build());
+    }
+
+    @Test
+    public void ndjson() throws Exception {
+        StringBuilder body = new StringBuilder();
+        Random random = new Random(1);
+        for (int i = 0; i < ROWS; i++) {
+            body.append("{\"name\":\"Игрок").append(i % 1_000_000)
+                    .append("\",\"title\":\"Титул\",\"race\":\"").append(Race.values()[random.nextInt(Race.values().length)])
+                    .append("\",\"profession\":\"").append(Profession.values()[random.nextInt(Profession.values().length)])
+                    .append("\",\"birthday\":").append(BIRTHDAY)
+                    .append(",\"experience\":").append(random.nextInt(10_000_000))
+                    .append(",\"banned\":").append(random.nextInt(10) == 0)
+                    .append("}\n");
+        }
+        measure("import ndjson", "/rest/players/import?format=ndjson", body.toString());
+    }
+
+    @Test
+    public void csv() throws Exception {
+        StringBuilder body = new StringBuilder("name,title,race,profession,birthday,banned,experience\r\n");
+        Random random = new Random(1);
+        for (int i = 0; i < ROWS; i++) {
+            body.append("Игрок").append(i % 1_000_000)
+                    .append(",Титул,").append(Race.values()[random.nextInt(Race.values().length)])
+                    .append(',').append(Profession.values()[random.nextInt(Profession.values().length)])
+                    .append(',').append(BIRTHDAY)
+                    .append(',').append(random.nextInt(10) == 0)
+                    .append(',').append(random.nextInt(10_000_000))
+                    .append("\r\n");
+        }
+        measure("import csv", "/rest/players/import?format=csv", body.toString());
+    }
+
+    // Для сравнения: тот же объём через POST /rest/players/bulk (массив целиком в памяти).
+    @Test
+    public void bulk() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        Random random = new Random(1);
+        for (int i = 0; i < ROWS; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"Игрок").append(i % 1_000_000)
+                    .append("\",\"title\":\"Титул\",\"race\":\"").append(Race.values()[random.nextInt(Race.values().length)])
+                    .append("\",\"profession\":\"").append(Profession.values()[random.nextInt(Profession.values().length)])
+                    .append("\",\"birthday\":").append(BIRTHDAY)
+                    .append(",\"experience\":").append(random.nextInt(10_000_000))
+                    .append(",\"banned\":").append(random.nextInt(10) == 0)
+                    .append("}");
+        }
+        body.append("]");
+        measure("bulk json", "/rest/players/bulk", body.toString());
+    }
+
+    private void measure(String name, String url, String body) throws Exception {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        long started = System.nanoTime();
+        String response = mockMvc.perform(post(url)
+                .contentType(url.endsWith("bulk") ? "application/json" : "application/octet-stream")
+                .content(bytes))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        JsonNode result = new ObjectMapper().readTree(response);
+        assertEquals(ROWS, result.has("imported") ? result.get("imported").asInt() : result.get("inserted").asInt());
+        System.out.printf("%-12s %,d rows, %,d KiB: %.2f s, %,.0f rows/s%n",
+                name, ROWS, bytes.length / 1024, seconds, ROWS / seconds);
+    }
+}
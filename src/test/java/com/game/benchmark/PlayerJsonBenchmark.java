@@ -0,0 +1,117 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.game.config.PlayerJsonHttpMessageConverter;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+//   Запись страницы игроков в ответ: Jackson-конвертер из WebConfig против PlayerJsonHttpMessageConverter.
+// Тело пишется в поток, который ничего не хранит, поэтому меряется только сериализация.
+//   Для каждого размера страницы - запросов в секунду и байт, выделенных на один запрос (ThreadMXBean HotSpot).
+//   В обычный прогон тестов не входит, запуск: mvn -B test -Dtest=PlayerJsonBenchmark
+public class PlayerJsonBenchmark {
+
+    private static final Type PLAYER_LIST = new ParameterizedTypeReference<List<Player>>() {
+    }.getType();
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    @Test
+    public void pages() throws Exception {
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter();
+        jackson.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        jackson.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        PlayerJsonHttpMessageConverter converter = new PlayerJsonHttpMessageConverter(jackson.getObjectMapper());
+
+        for (int pageSize : new int[]{3, 100, 1000}) {
+            List<Player> page = page(pageSize);
+            measure("jackson", jackson, page);
+            measure("player-json", converter, page);
+        }
+    }
+
+    private void measure(String name, GenericHttpMessageConverter<Object> converter, List<Player> page) throws Exception {
+        DiscardingMessage message = new DiscardingMessage();
+        // Прогрев.
+        for (long started = System.nanoTime(); System.nanoTime() - started < MEASURE_NANOS; ) {
+            converter.write(page, PLAYER_LIST, MediaType.APPLICATION_JSON, message);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        message.bytes = 0;
+        long requests = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                message.headers.clear();
+                converter.write(page, PLAYER_LIST, MediaType.APPLICATION_JSON, message);
+            }
+            requests += 100;
+            elapsed = System.nanoTime() - started;
+        } while (elapsed < MEASURE_NANOS);
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        System.out.printf("%-12s page %4d: %,10.0f requests/s, %,8.1f MB/s, %,9d bytes allocated per request%n",
+                name, page.size(), requests * 1e9 / elapsed, message.bytes * 1e3 / elapsed, allocated / requests);
+    }
+
+    private List<Player> page(int size) {
+        Random random = new Random(size);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Player player = new Player((long) i + 1, "Игрок" + i, "Рожденный в Бронксе",
+                    Race.values()[random.nextInt(Race.values().length)],
+                    Profession.values()[random.nextInt(Profession.values().length)],
+                    random.nextInt(Player.MAX_EXPERIENCE), new Date(988059600000L + random.nextInt(1_000_000) * 1000L),
+                    random.nextBoolean());
+            players.add(player);
+        }
+        return players;
+    }
+
+    private static class DiscardingMessage implements HttpOutputMessage {
+        final HttpHeaders headers = new HttpHeaders();
+        long bytes;
+
+        private final OutputStream body = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes += len;
+            }
+        };
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.PlayerJsonHttpMessageConverter;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+//   Размер ответа GET /rest/players и время его сериализации на сервере для JSON, Smile и CBOR
+// (конвертеры настроены, как в WebConfig) на типичных размерах страницы.
+//   В обычный прогон тестов не входит, запуск: mvn -B test -Dtest=PlayerWireFormatBenchmark
+public class PlayerWireFormatBenchmark {
+
+    private static final Type PLAYER_LIST = new ParameterizedTypeReference<List<Player>>() {
+    }.getType();
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    @Test
+    public void pages() throws Exception {
+        MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter();
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter();
+        MappingJackson2CborHttpMessageConverter cbor = new MappingJackson2CborHttpMessageConverter();
+        onlyFields(json.getObjectMapper());
+        onlyFields(smile.getObjectMapper());
+        onlyFields(cbor.getObjectMapper());
+        PlayerJsonHttpMessageConverter playerJson = new PlayerJsonHttpMessageConverter(json.getObjectMapper());
+
+        for (int pageSize : new int[]{3, 20, 100, 1000}) {
+            List<Player> page = page(pageSize);
+            measure("json", playerJson, MediaType.APPLICATION_JSON, page);
+            measure("smile", smile, new MediaType("application", "x-jackson-smile"), page);
+            measure("cbor", cbor, new MediaType("application", "cbor"), page);
+        }
+    }
+
+    private void measure(String name, GenericHttpMessageConverter<Object> converter, MediaType mediaType,
+                         List<Player> page) throws Exception {
+        int size = write(converter, mediaType, page);
+        for (long started = System.nanoTime(); System.nanoTime() - started < MEASURE_NANOS; ) {
+            write(converter, mediaType, page);
+        }
+        long requests = 0;
+        long started = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                write(converter, mediaType, page);
+            }
+            requests += 100;
+            elapsed = System.nanoTime() - started;
+        } while (elapsed < MEASURE_NANOS);
+
+        System.out.printf("%-6s page %4d: %,8d bytes (%,5d per player), %,9.2f us per response%n",
+                name, page.size(), size, size / page.size(), elapsed / 1e3 / requests);
+    }
+
+    private int write(GenericHttpMessageConverter<Object> converter, MediaType mediaType, List<Player> page) throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(page, PLAYER_LIST, mediaType, message);
+        return message.getBodyAsBytes().length;
+    }
+
+    private static void onlyFields(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    private List<Player> page(int size) {
+        Random random = new Random(size);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(new Player((long) i + 1, "Игрок" + i, "Рожденный в Бронксе",
+                    Race.values()[random.nextInt(Race.values().length)],
+                    Profession.values()[random.nextInt(Profession.values().length)],
+                    random.nextInt(Player.MAX_EXPERIENCE), new Date(988059600000L + random.nextInt(1_000_000) * 1000L),
+                    random.nextBoolean()));
+        }
+        return players;
+    }
+}
@@ -0,0 +1,188 @@
+package com.game.benchmark;
+
+import com.game.config.MyWebAppInit;
+import com.game.config.VirtualThreads;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.SpringServletContainerInitializer;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//   PlayerController под нагрузкой в двух режимах: обычном (потоки Tomcat и пулы RequestExecutor) и с виртуальными
+// потоками (async.virtualThreads=true, и Tomcat тоже обрабатывает соединения в виртуальных потоках). При каждом числе
+// одновременных клиентов - запросов в секунду, задержки p50 / p99, отказы (не 200), ошибки и пик потоков ОС.
+//   Очереди и таймауты увеличены, чтобы лишние клиенты ждали, а не получали 503: в обоих режимах одновременных
+// обращений к БД не больше pool.maximumPoolSize, разница - в том, сколько потоков ОС для этого нужно.
+//   Виртуальные потоки есть только в JDK 21+, на более старой JDK меряется только обычный режим (и клиенты там -
+// обычные потоки, они входят в пик). Где виртуальный поток держит поток ОС (pinning), покажет -Djdk.tracePinnedThreads=full.
+//   В обычный прогон тестов не входит, запуск: mvn -B test -Dtest=VirtualThreadsBenchmark [-Dclients=1000,10000] [-Dseconds=10]
+public class VirtualThreadsBenchmark {
+
+    private static final long MEASURE_NANOS = Long.getLong("seconds", 10) * 1_000_000_000L;
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void platformVersusVirtualThreads() throws Exception {
+        int[] clientCounts = Arrays.stream(System.getProperty("clients", "1000,10000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        System.setProperty("spring.profiles.active", "dev");
+        System.setProperty("async.reads.queueCapacity", "20000");
+        System.setProperty("async.writes.queueCapacity", "20000");
+        System.setProperty("async.timeoutMillis", "60000");
+        System.setProperty("pool.connectionTimeoutMillis", "60000");
+        // Иначе HttpURLConnection держит открытыми только 5 соединений с сервером и остальные переоткрывает.
+        System.setProperty("http.maxConnections", "20000");
+
+        run(false, clientCounts);
+        if (VirtualThreads.isSupported()) {
+            run(true, clientCounts);
+        } else {
+            System.out.println("virtual: skipped, needs JDK 21+ (running on " + System.getProperty("java.version") + ")");
+        }
+    }
+
+    private void run(boolean virtualThreads, int[] clientCounts) throws Exception {
+        System.setProperty("async.virtualThreads", String.valueOf(virtualThreads));
+        ExecutorService connectorExecutor = virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("http-virtual-") : null;
+        Tomcat tomcat = startTomcat(connectorExecutor);
+        try {
+            String baseUrl = "http://localhost:" + tomcat.getConnector().getLocalPort();
+            for (int clients : clientCounts) {
+                load(baseUrl, clients, WARMUP_NANOS);
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                threads.resetPeakThreadCount();
+                Result result = load(baseUrl, clients, MEASURE_NANOS);
+                report(virtualThreads ? "virtual" : "platform", clients, result, threads.getPeakThreadCount());
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+            if (connectorExecutor != null) {
+                connectorExecutor.shutdown();
+            }
+        }
+    }
+
+    private Tomcat startTomcat(ExecutorService connectorExecutor) throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(folder.newFolder().getAbsolutePath());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxConnections", "20000");
+        tomcat.getConnector().setProperty("acceptCount", "10000");
+        if (connectorExecutor != null) {
+            tomcat.getConnector().getProtocolHandler().setExecutor(connectorExecutor);
+        }
+        StandardContext context = (StandardContext) tomcat.addContext("", folder.newFolder().getAbsolutePath());
+        // Tomcat чистит эти кэши через рефлексию, которую JDK 9+ без --add-opens не разрешает.
+        context.setClearReferencesObjectStreamClassCaches(false);
+        context.setClearReferencesRmiTargets(false);
+        context.addServletContainerInitializer(new SpringServletContainerInitializer(),
+                Collections.singleton(MyWebAppInit.class));
+        tomcat.start();
+        return tomcat;
+    }
+
+    // Каждый клиент шлёт запросы один за другим, пока не истечёт время.
+    private static Result load(String baseUrl, int clients, long nanos) throws Exception {
+        Result result = new Result();
+        long deadline = System.nanoTime() + nanos;
+        ThreadFactory threadFactory = VirtualThreads.isSupported() ? VirtualThreads.factory("client-") : Thread::new;
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            threads.add(threadFactory.newThread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        try {
+                            result.record(get(baseUrl + uri()), System.nanoTime() - started);
+                        } catch (Exception e) {
+                            result.errors.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        long started = System.nanoTime();
+        threads.forEach(Thread::start);
+        done.await();
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    private static int get(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        // Тело дочитывается до конца, чтобы соединение вернулось в keep-alive кэш.
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) {
+                StreamUtils.drain(body);
+            }
+        }
+        return status;
+    }
+
+    private static String uri() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (random.nextInt(3)) {
+            case 0:
+                return "/rest/players?pageSize=10&order=LEVEL&pageNumber=" + random.nextInt(4);
+            case 1:
+                return "/rest/players/" + (1 + random.nextInt(40));
+            default:
+                return "/rest/players/count?minLevel=" + random.nextInt(40);
+        }
+    }
+
+    private static void report(String mode, int clients, Result result, int peakThreads) {
+        long[] latencies = result.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-8s %,6d clients: %,9.0f requests/s, p50 %,8.2f ms, p99 %,9.2f ms, non-200 %,d, errors %,d, peak OS threads %,d%n",
+                mode, clients, latencies.length * 1e9 / result.elapsedNanos,
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                result.failed.sum(), result.errors.sum(), peakThreads);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1_000_000.0;
+    }
+
+    private static class Result {
+        final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        final LongAdder failed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        long elapsedNanos;
+
+        void record(int status, long nanos) {
+            if (status != 200) {
+                failed.increment();
+            }
+            latencies.add(nanos);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.game.controller;
 import com.game.config.AppConfig;
 import com.game.config.MyWebAppInit;
 import com.game.config.WebConfig;
+import com.game.controller.utils.AsyncMockMvc;
+import com.game.service.PlayerChangeListener;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +14,6 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
-import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -24,21 +25,28 @@ import org.springframework.web.context.WebApplicationContext;
 public abstract class AbstractTest {
 
     WebApplicationContext context;
-    MockMvc mockMvc;
+    AsyncMockMvc mockMvc;
 
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
     }
 
+    //   @Sql перезаливает таблицу мимо PlayerService, поэтому кэши и прочие производные данные
+    // нужно сбросить вручную перед каждым тестом.
+    @Before
+    public void resetPlayerChangeListeners() {
+        context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::playersReset);
+    }
+
     @Before
     public void setup() {
-        mockMvc = MockMvcBuilders
+        mockMvc = new AsyncMockMvc(MockMvcBuilders
                 .webAppContextSetup(context)
                 .addFilter(((request, response, chain) -> {
                     response.setCharacterEncoding("UTF-8");
                     chain.doFilter(request, response);
                 }))
-                .build();
+                .build());
     }
 }
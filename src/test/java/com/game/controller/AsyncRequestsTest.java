@@ -0,0 +1,182 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.RequestExecutor;
+import com.game.config.RequestExecutorStatistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Для записей - один поток и очередь на два запроса, чтобы их было легко занять.
+@TestPropertySource(properties = {"async.writes.threads=1", "async.writes.queueCapacity=2"})
+public class AsyncRequestsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void requestsRunOnExecutors() throws Exception {
+        JsonNode before = executor("player-reads");
+        String[] thread = new String[1];
+        CountDownLatch done = new CountDownLatch(1);
+        context.getBean("playerReadExecutor", RequestExecutor.class).submit(() -> {
+            thread[0] = Thread.currentThread().getName();
+            done.countDown();
+            return null;
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        MockMvc raw = MockMvcBuilders.webAppContextSetup(context).build();
+        MvcResult result = raw.perform(get("/rest/players/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        raw.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        JsonNode after = executor("player-reads");
+        assertEquals(2, after.get("submitted").asLong() - before.get("submitted").asLong());
+        assertTrue("Поток пула, а не контейнера: " + thread[0], thread[0].startsWith("player-reads-"));
+        assertEquals("Ожидание в очереди учтено для каждого запроса", 2, waited(after) - waited(before));
+    }
+
+    //test2
+    @Test
+    public void fullQueueAndTimeoutAre503() throws Exception {
+        RequestExecutor writes = context.getBean("playerWriteExecutor", RequestExecutor.class);
+        JsonNode before = executor("player-writes");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writes.submit(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // Единственный поток занят - изменение ждёт в очереди, пока не истечёт таймаут.
+        MockMvc raw = MockMvcBuilders.webAppContextSetup(context).build();
+        MvcResult queued = raw.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Опоздавший\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        writes.submit(() -> null);
+        assertEquals("Глубина очереди видна в метриках", 2, executor("player-writes").get("queued").asInt());
+
+        mockMvc.perform(post("/rest/players/bulk/ban").param("minExperience", "0"))
+                .andExpect(status().isServiceUnavailable());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) queued.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        raw.perform(asyncDispatch(queued))
+                .andExpect(status().isServiceUnavailable());
+
+        release.countDown();
+        JsonNode after = executor("player-writes");
+        for (int i = 0; i < 100 && after.get("queued").asInt() > 0; i++) {
+            Thread.sleep(50);
+            after = executor("player-writes");
+        }
+        assertEquals(1, after.get("rejected").asLong() - before.get("rejected").asLong());
+        assertEquals(1, after.get("timedOut").asLong() - before.get("timedOut").asLong());
+        assertEquals("Запрос с истёкшим таймаутом убран из очереди и не выполнялся",
+                1, after.get("skipped").asLong() - before.get("skipped").asLong());
+        String name = mapper.readTree(mockMvc.perform(get("/rest/players/1"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8)).get("name").asText();
+        assertNotEquals("Опоздавший", name);
+    }
+
+    //test3
+    @Test
+    public void timeoutOfRunningRequestIsNotSkipped() throws Exception {
+        RequestExecutor executor = new RequestExecutor("player-test", true, false, 1, 1, 10000);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+            DeferredResult<Object> running = executor.submit(() -> {
+                started.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } finally {
+                    done.countDown();
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            timeOut(running);
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            RequestExecutorStatistics statistics = executor.getStatistics();
+            assertEquals(1, statistics.getTimedOut());
+            assertEquals("Начатый запрос выполнялся и не считается пропущенным", 0, statistics.getSkipped());
+            assertEquals(503, ((ResponseEntity<?>) running.getResult()).getStatusCodeValue());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Как если бы истёк таймаут асинхронного запроса в контейнере.
+    static void timeOut(DeferredResult<?> result) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        asyncManager.startDeferredResultProcessing(result);
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+    }
+
+    private static long waited(JsonNode executor) {
+        long waited = 0;
+        for (JsonNode bucket : executor.get("waitHistogram")) {
+            waited += bucket.asLong();
+        }
+        return waited;
+    }
+
+    private JsonNode executor(String name) throws Exception {
+        JsonNode executors = mapper.readTree(mockMvc.perform(get("/rest/metrics/executors"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        for (JsonNode executor : executors) {
+            if (executor.get("name").asText().equals(name)) {
+                return executor;
+            }
+        }
+        throw new AssertionError(name);
+    }
+}
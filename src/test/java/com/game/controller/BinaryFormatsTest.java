@@ -0,0 +1,90 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsTest extends AbstractTest {
+
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String CBOR = "application/cbor";
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    //test1
+    @Test
+    public void responsesInEveryFormat() throws Exception {
+        String[] urls = {"/rest/players?pageSize=20&order=EXPERIENCE", "/rest/players/1", "/rest/players/count?race=ELF",
+                "/rest/players/search?race=DWARF&pageSize=2"};
+        for (String url : urls) {
+            MockHttpServletResponse jsonResponse = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            assertEquals("JSON остаётся форматом по умолчанию: " + url, MediaType.APPLICATION_JSON_VALUE, jsonResponse.getContentType());
+            JsonNode expected = json.readTree(jsonResponse.getContentAsByteArray());
+
+            assertEquals(url, expected, read(smile, SMILE, get(url).header(HttpHeaders.ACCEPT, SMILE)));
+            assertEquals(url, expected, read(cbor, CBOR, get(url).header(HttpHeaders.ACCEPT, CBOR)));
+            assertEquals(url, expected, json.readTree(mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "*/*"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray()));
+        }
+    }
+
+    //test2
+    @Test
+    public void requestBodiesInEveryFormat() throws Exception {
+        ObjectNode player = (ObjectNode) json.readTree(TestsHelper.NORMAL_JSON);
+
+        JsonNode created = read(smile, SMILE, post("/rest/players")
+                .contentType(SMILE)
+                .header(HttpHeaders.ACCEPT, SMILE)
+                .content(smile.writeValueAsBytes(player)));
+        assertEquals(41, created.get("id").asLong());
+        assertEquals("Амарылис", created.get("name").asText());
+
+        player.put("name", "Прозелит");
+        JsonNode updated = read(cbor, CBOR, post("/rest/players/41")
+                .contentType(CBOR)
+                .header(HttpHeaders.ACCEPT, CBOR)
+                .content(cbor.writeValueAsBytes(player)));
+        assertEquals("Прозелит", updated.get("name").asText());
+
+        // Смешанный запрос: тело CBOR, ответ JSON.
+        String response = mockMvc.perform(post("/rest/players/bulk")
+                .contentType(CBOR)
+                .content(cbor.writeValueAsBytes(json.createArrayNode().add(player))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(1, json.readTree(response).get("inserted").asInt());
+
+        mockMvc.perform(post("/rest/players")
+                .contentType(SMILE)
+                .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode read(ObjectMapper mapper, String contentType, RequestBuilder request) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue(response.getContentType().startsWith(contentType));
+        return mapper.readTree(response.getContentAsByteArray());
+    }
+}
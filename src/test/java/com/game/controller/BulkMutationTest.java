@@ -0,0 +1,122 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkMutationTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void emptyFilterIsRejected() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk/ban")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/bulk/unban").param("name", "")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/bulk/experience").param("amount", "10")).andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/rest/players/bulk")).andExpect(status().isBadRequest());
+        assertEquals(40, count(""));
+    }
+
+    //test2
+    @Test
+    public void banAndUnbanByFilter() throws Exception {
+        long dwarfs = count("race=DWARF");
+        long bannedDwarfs = count("race=DWARF&banned=true");
+        long banned = count("banned=true");
+        assertTrue(bannedDwarfs < dwarfs);
+
+        assertEquals(dwarfs, perform(post("/rest/players/bulk/ban").param("race", "DWARF")));
+        assertEquals("После бана по фильтру все гномы забанены.", dwarfs, count("race=DWARF&banned=true"));
+        assertEquals("Остальные игроки не затронуты.", banned - bannedDwarfs + dwarfs, count("banned=true"));
+
+        assertEquals(dwarfs, perform(post("/rest/players/bulk/unban").param("race", "DWARF")));
+        assertEquals(0, count("race=DWARF&banned=true"));
+        assertEquals(banned - bannedDwarfs, count("banned=true"));
+    }
+
+    //test3
+    @Test
+    public void addExperienceRecalculatesLevelsInSql() throws Exception {
+        Map<Long, Integer> before = experienceById("race=TROLL");
+
+        assertEquals(before.size(), perform(post("/rest/players/bulk/experience")
+                .param("race", "TROLL")
+                .param("amount", "123457")));
+
+        for (Map.Entry<Long, Integer> entry : before.entrySet()) {
+            assertPlayerExperience(entry.getKey(), entry.getValue() + 123457);
+        }
+
+        // Выход за границы диапазона опыта обрезается.
+        perform(post("/rest/players/bulk/experience").param("race", "TROLL").param("amount", "10000000"));
+        perform(post("/rest/players/bulk/experience").param("race", "HOBBIT").param("amount", "-10000000"));
+        for (Long id : before.keySet()) {
+            assertPlayerExperience(id, 10_000_000);
+        }
+        for (Long id : experienceById("race=HOBBIT").keySet()) {
+            assertPlayerExperience(id, 0);
+        }
+
+        mockMvc.perform(post("/rest/players/bulk/experience").param("race", "TROLL").param("amount", "10000001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void deleteByFilter() throws Exception {
+        Map<Long, Integer> orcs = experienceById("race=ORC&profession=WARLOCK");
+        assertTrue(orcs.size() > 0);
+
+        assertEquals(orcs.size(), perform(delete("/rest/players/bulk").param("race", "ORC").param("profession", "WARLOCK")));
+        assertEquals(0, count("race=ORC&profession=WARLOCK"));
+        assertEquals(40 - orcs.size(), count(""));
+        for (Long id : orcs.keySet()) {
+            mockMvc.perform(get("/rest/players/" + id)).andExpect(status().isNotFound());
+        }
+    }
+
+    private void assertPlayerExperience(long id, int experience) throws Exception {
+        JsonNode player = mapper.readTree(mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        int level = (int) ((Math.sqrt(2500 + 200.0 * experience) - 50) / 100);
+        assertEquals("experience игрока " + id, experience, player.get("experience").asInt());
+        assertEquals("level игрока " + id, level, player.get("level").asInt());
+        assertEquals("untilNextLevel игрока " + id, 50 * (level + 1) * (level + 2) - experience, player.get("untilNextLevel").asInt());
+    }
+
+    private Map<Long, Integer> experienceById(String query) throws Exception {
+        JsonNode players = mapper.readTree(mockMvc.perform(get("/rest/players?pageSize=100&" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        Map<Long, Integer> result = new HashMap<>();
+        for (JsonNode player : players) {
+            result.put(player.get("id").asLong(), player.get("experience").asInt());
+        }
+        return result;
+    }
+
+    private long perform(MockHttpServletRequestBuilder request) throws Exception {
+        return Long.parseLong(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private long count(String query) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/rest/players/count?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,160 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import com.game.service.ColumnarPlayerQueryEngine;
+import com.game.service.JpaPlayerQueryEngine;
+import com.game.service.PlayerChangeListener;
+import com.game.service.PlayerFilter;
+import com.game.service.PlayerQueryEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Сравнение индекса в памяти с запросами к H2 на одних и тех же случайных фильтрах и сортировках.
+//   Параллельный просмотр включён для любого размера, куски - по 64 строки.
+@ActiveProfiles("columnar")
+@TestPropertySource(properties = {"columnar.parallelThreshold=0", "columnar.scanChunkRows=64",
+        "cache.search.enabled=false"})
+public class ColumnarQueryEngineTest extends AbstractTest {
+
+    private static final long YEAR_2000 = 946_684_800_000L;
+    private static final long DAY = 86_400_000L;
+    private static final String[] NAME_PATTERNS = {"а", "о", "ар", "Ни", "ни", "e", "%", "_", "а_а", "и%н", "\\_", "x",
+            "Е", "ё", "Й", "и", "é", "É"};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random = new Random(20201018);
+
+    @Autowired
+    private PlayerQueryEngine engine;
+    @Autowired
+    private PlayerRepository playerRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private JpaPlayerQueryEngine jpa;
+
+    @Before
+    public void createJpaEngine() {
+        jpa = new JpaPlayerQueryEngine(playerRepository);
+    }
+
+    //test1
+    @Test
+    public void columnarEngineIsUsedInProfile() {
+        assertTrue("В профиле columnar поиск должен идти через индекс в памяти.",
+                engine instanceof ColumnarPlayerQueryEngine);
+    }
+
+    //test2
+    @Test
+    public void sameResultsAsJpaOnRandomQueries() throws Exception {
+        compareRandomQueries(300);
+
+        // Изменения через сервис доходят до индекса событиями.
+        insertRandomPlayers(300);
+        compareRandomQueries(300);
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Переименован\", \"race\": \"GIANT\", \"experience\": 123456, \"banned\": true}"))
+                .andExpect(status().isOk());
+        for (int id = 1; id <= 40; id += 3) {
+            mockMvc.perform(delete("/rest/players/" + id)).andExpect(status().isOk());
+        }
+        compareRandomQueries(300);
+
+        // Изменение мимо сервиса: индекс перечитывает строки, о которых сообщил playersChanged.
+        jdbcTemplate.update("UPDATE player SET experience = 5000, level = 9, banned = true WHERE id IN (2, 3)");
+        jdbcTemplate.update("DELETE FROM player WHERE id = 5");
+        ((PlayerChangeListener) engine).playersChanged(Arrays.asList(2L, 3L, 5L));
+        compareRandomQueries(300);
+    }
+
+    private void compareRandomQueries(int queries) throws Exception {
+        for (int i = 0; i < queries; i++) {
+            PlayerFilter filter = randomFilter();
+            Pageable pageable = randomPageable();
+            String description = mapper.writeValueAsString(filter) + " " + pageable;
+
+            assertEquals("count: " + description, jpa.count(filter), engine.count(filter));
+            assertEquals("findPage: " + description,
+                    mapper.writeValueAsString(jpa.findPage(filter, pageable)),
+                    mapper.writeValueAsString(engine.findPage(filter, pageable)));
+        }
+    }
+
+    private PlayerFilter randomFilter() {
+        Integer minExperience = random.nextInt(3) == 0 ? random.nextInt(200_000) : null;
+        Integer minLevel = random.nextInt(4) == 0 ? random.nextInt(40) : null;
+        Long after = random.nextInt(3) == 0 ? YEAR_2000 + (long) (random.nextDouble() * 12 * 365 * DAY) : null;
+        PlayerFilter filter = PlayerFilter.of(
+                random.nextInt(3) == 0 ? NAME_PATTERNS[random.nextInt(NAME_PATTERNS.length)] : null,
+                random.nextInt(5) == 0 ? NAME_PATTERNS[random.nextInt(NAME_PATTERNS.length)] : null,
+                random.nextInt(3) == 0 ? Race.values()[random.nextInt(Race.values().length)].name() : null,
+                random.nextInt(3) == 0 ? Profession.values()[random.nextInt(Profession.values().length)].name() : null,
+                random.nextInt(3) == 0 ? random.nextBoolean() : null,
+                after,
+                random.nextInt(3) == 0 ? (after == null ? YEAR_2000 : after) + (long) (random.nextDouble() * 6 * 365 * DAY) : null,
+                minExperience,
+                random.nextInt(3) == 0 ? (minExperience == null ? 0 : minExperience) + random.nextInt(800_000) : null,
+                minLevel,
+                random.nextInt(4) == 0 ? (minLevel == null ? 0 : minLevel) + random.nextInt(30) : null);
+        filter.setIgnoreCase(random.nextInt(3) == 0 ? Boolean.TRUE : null);
+        return filter;
+    }
+
+    private Pageable randomPageable() {
+        PlayerOrder order = PlayerOrder.values()[random.nextInt(PlayerOrder.values().length)];
+        Sort sort = order == PlayerOrder.ID ?
+                Sort.by(order.getFieldName()) :
+                Sort.by(order.getFieldName()).and(Sort.by(PlayerOrder.ID.getFieldName()));
+        if (random.nextInt(6) == 0) {
+            sort = Sort.by(Sort.Direction.DESC, order.getFieldName()).and(Sort.by(PlayerOrder.ID.getFieldName()));
+        }
+        return PageRequest.of(random.nextInt(4), 1 + random.nextInt(30), sort);
+    }
+
+    private void insertRandomPlayers(int count) throws Exception {
+        String letters = "абвгдеёжзийклмнопрстуфхцчшщэюяАБВГДЕЁЙНОabcdeéÉNOXZ_% ";
+        ArrayNode players = mapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = 1 + random.nextInt(11); j > 0; j--) {
+                name.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            ObjectNode player = players.addObject();
+            player.put("name", name.toString().trim().isEmpty() ? "x" : name.toString());
+            player.put("title", "Титул " + random.nextInt(100));
+            player.put("race", Race.values()[random.nextInt(Race.values().length)].name());
+            player.put("profession", Profession.values()[random.nextInt(Profession.values().length)].name());
+            player.put("birthday", YEAR_2000 + (long) (random.nextDouble() * 15 * 365 * DAY));
+            player.put("experience", random.nextInt(1_000_000));
+            player.put("banned", random.nextBoolean());
+        }
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(players)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,180 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.CompressionFilter;
+import com.game.controller.utils.AsyncMockMvc;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Порог в 1 КБ: один игрок (~200 байт) не сжимается, страница из 40 - сжимается.
+// CSV в списке типов нет, NDJSON есть - выгрузка сжимается вместе со сбросами каждые 5 строк.
+@TestPropertySource(properties = {"compression.minSize=1024", "compression.mimeTypes=application/json,application/x-ndjson",
+        "export.flushEveryRows=5"})
+public class CompressionTest extends AbstractTest {
+
+    private static final String PAGE = "/rest/players?pageSize=40";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private AsyncMockMvc compressingMvc;
+
+    @Before
+    public void setupCompression() {
+        compressingMvc = new AsyncMockMvc(MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .addFilter(context.getBean(CompressionFilter.class))
+                .build());
+    }
+
+    //test1
+    @Test
+    public void largeResponsesCompressed() throws Exception {
+        byte[] plain = compressingMvc.perform(get(PAGE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertTrue("Без Accept-Encoding страница должна быть больше порога", plain.length > 1024);
+
+        MockHttpServletResponse gzip = compressingMvc.perform(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Accept-Encoding", gzip.getHeader(HttpHeaders.VARY));
+        assertTrue("Сжатый ответ меньше исходного", gzip.getContentAsByteArray().length < plain.length / 2);
+        assertArrayEquals(plain, read(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))));
+
+        MockHttpServletResponse deflate = compressingMvc.perform(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0.5, deflate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("deflate", deflate.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(plain, read(new InflaterInputStream(new ByteArrayInputStream(deflate.getContentAsByteArray()))));
+
+        MockHttpServletResponse any = compressingMvc.perform(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "*"))
+                .andReturn().getResponse();
+        assertEquals("gzip", any.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        for (String acceptEncoding : new String[]{"identity", "gzip;q=0", "br"}) {
+            MockHttpServletResponse none = compressingMvc.perform(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                    .andReturn().getResponse();
+            assertNull(acceptEncoding, none.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertArrayEquals(acceptEncoding, plain, none.getContentAsByteArray());
+        }
+    }
+
+    //test2
+    @Test
+    public void smallAndOtherResponsesNotCompressed() throws Exception {
+        JsonNode before = statistics();
+
+        MockHttpServletResponse small = compressingMvc.perform(get("/rest/players/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull(small.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Несжатый ответ - с Content-Length", small.getContentAsByteArray().length, small.getContentLength());
+        assertEquals("Ниус", mapper.readTree(small.getContentAsString()).get("name").asText());
+
+        MockHttpServletResponse csv = compressingMvc.perform(get("/rest/players/export?format=csv")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull(csv.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(csv.getContentAsString().startsWith("id,name,"));
+
+        compressingMvc.perform(get("/rest/players/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, small.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+
+        JsonNode after = statistics();
+        assertEquals(1, after.get("skippedBelowMinSize").asLong() - before.get("skippedBelowMinSize").asLong());
+        assertEquals(1, after.get("skippedByContentType").asLong() - before.get("skippedByContentType").asLong());
+    }
+
+    //test3
+    @Test
+    public void streamingExportCompressed() throws Exception {
+        byte[] plain = compressingMvc.perform(get("/rest/players/export?format=ndjson"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode before = statistics();
+
+        MockHttpServletResponse gzip = compressingMvc.perform(get("/rest/players/export?format=ndjson")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(plain, read(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))));
+
+        JsonNode after = statistics();
+        assertEquals(1, after.get("gzipResponses").asLong() - before.get("gzipResponses").asLong());
+        long bytesIn = 0;
+        long bytesOut = 0;
+        for (int i = 0; i < after.get("sizes").size(); i++) {
+            bytesIn += after.get("sizes").get(i).get("bytesIn").asLong() - before.get("sizes").get(i).get("bytesIn").asLong();
+            bytesOut += after.get("sizes").get(i).get("bytesOut").asLong() - before.get("sizes").get(i).get("bytesOut").asLong();
+        }
+        assertEquals("В статистике - размер до сжатия", plain.length, bytesIn);
+        assertEquals("и после", gzip.getContentAsByteArray().length, bytesOut);
+    }
+
+    //test4
+    @Test
+    public void strongETagWeakenedWhenCompressed() throws Exception {
+        AsyncMockMvc taggingMvc = new AsyncMockMvc(MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(context.getBean(CompressionFilter.class))
+                .addFilter(((request, response, chain) -> {
+                    // Второй (ASYNC) проход ответ уже не трогает.
+                    if (!((HttpServletResponse) response).containsHeader(HttpHeaders.ETAG)) {
+                        ((HttpServletResponse) response).setHeader(HttpHeaders.ETAG, "\"export\"");
+                    }
+                    chain.doFilter(request, response);
+                }))
+                .build());
+
+        MockHttpServletResponse plain = taggingMvc.perform(get("/rest/players/export?format=ndjson"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("Несжатый ответ - с тем же ETag", "\"export\"", plain.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse gzip = taggingMvc.perform(get("/rest/players/export?format=ndjson")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Байты сжатого ответа другие - ETag слабый", "W/\"export\"", gzip.getHeader(HttpHeaders.ETAG));
+    }
+
+    private JsonNode statistics() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/metrics/compression"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        try (InputStream stream = in) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreatePlayersBulkTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void createPlayersBulkEmptyArrayTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void createPlayersBulkReportsInvalidItemsTest() throws Exception {
+        String body = "[" +
+                TestsHelper.NORMAL_JSON + "," +
+                TestsHelper.NORMAL_JSON.replace("Амарылис", "") + "," +
+                TestsHelper.BANNED_TRUE_JSON + "," +
+                TestsHelper.TOO_BIG_EXPERIENCE_JSON +
+                "]";
+
+        String content = mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = new ObjectMapper().readTree(content);
+        assertEquals(2, result.get("inserted").asInt());
+        assertEquals(2, result.get("failed").asInt());
+
+        JsonNode items = result.get("items");
+        assertEquals(41, items.get(0).get("id").asLong());
+        assertTrue(items.get(1).get("id").isNull());
+        assertTrue(items.get(1).get("error").asText().contains("name"));
+        assertEquals(42, items.get(2).get("id").asLong());
+        assertTrue(items.get(3).get("error").asText().contains("experience"));
+
+        String player = mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode created = new ObjectMapper().readTree(player);
+        assertEquals("Амарылис", created.get("name").asText());
+        assertEquals(35, created.get("level").asInt());
+        assertEquals(2614, created.get("untilNextLevel").asInt());
+        assertTrue(created.get("banned").asBoolean());
+    }
+}
@@ -0,0 +1,135 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ETagTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void playerNotModifiedUntilChanged() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andReturn().getResponse();
+        assertTrue("Версия в тело ответа не попадает", !mapper.readTree(response.getContentAsString()).has("version"));
+
+        // If-None-Match сравнивается слабо: "0" и W/"0" - одна версия.
+        response = mockMvc.perform(get("/rest/players/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andReturn().getResponse();
+        assertEquals("Ответ 304 без тела", 0, response.getContentLength());
+
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Нэус\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+        mockMvc.perform(get("/rest/players/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        // Частичное и массовое изменения тоже увеличивают версию.
+        mockMvc.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Новый титул\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/rest/players/bulk/experience").param("name", "Нэус").param("amount", "10"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1").header(HttpHeaders.IF_NONE_MATCH, "W/\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"3\""));
+    }
+
+    //test2
+    @Test
+    public void listsNotModifiedUntilChanged() throws Exception {
+        String[] urls = {"/rest/players?pageSize=5&order=LEVEL", "/rest/players?pageSize=5&cursor=",
+                "/rest/players/search?pageSize=5"};
+        for (String url : urls) {
+            String eTag = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertTrue("Слабый ETag у списка: " + url, eTag.startsWith("W/\""));
+            mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+            // Другая страница - другой ETag.
+            assertNotEquals(url, eTag, mockMvc.perform(get(url.replace("pageSize=5", "pageSize=6")))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        }
+
+        String[] eTags = new String[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            eTags[i] = mockMvc.perform(get(urls[i])).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        }
+        // Бан всех игроков меняет версии каждого из них, а значит, и ETag-и всех страниц.
+        mockMvc.perform(post("/rest/players/bulk/ban").param("minExperience", "0"))
+                .andExpect(status().isOk());
+        for (int i = 0; i < urls.length; i++) {
+            mockMvc.perform(get(urls[i]).header(HttpHeaders.IF_NONE_MATCH, eTags[i]))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    //test3
+    @Test
+    public void updateWithIfMatch() throws Exception {
+        String eTag = mockMvc.perform(get("/rest/players/2"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/rest/players/2")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        // Второй клиент с тем же (устаревшим) ETag-ом ничего не меняет.
+        mockMvc.perform(post("/rest/players/2")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(post("/rest/players/2")
+                .header(HttpHeaders.IF_MATCH, "\"0\", W/\"list\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+        String name = mapper.readTree(mockMvc.perform(get("/rest/players/2"))
+                .andReturn().getResponse().getContentAsString()).get("name").asText();
+        assertEquals("Изменение с устаревшим ETag не применилось", "Первый", name);
+
+        mockMvc.perform(post("/rest/players/2")
+                .header(HttpHeaders.IF_MATCH, "\"7\", W/\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Второй\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"2\""));
+        mockMvc.perform(post("/rest/players/2")
+                .header(HttpHeaders.IF_MATCH, "*")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Третий\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"3\""));
+        mockMvc.perform(post("/rest/players/415")
+                .header(HttpHeaders.IF_MATCH, "*")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Третий\"}"))
+                .andExpect(status().isNotFound());
+    }
+}
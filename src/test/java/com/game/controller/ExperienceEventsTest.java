@@ -0,0 +1,193 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.ExperienceEvent;
+import com.game.service.ExperienceEventBuffer;
+import com.game.controller.utils.FailingUpdateTrigger;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerChangePublisher;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Плановая запись буфера отключена (раз в час), тесты вызывают flush( ) сами.
+@TestPropertySource(properties = {"experience.buffer.flushIntervalMillis=3600000", "experience.buffer.maxPlayers=3"})
+public class ExperienceEventsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ExperienceEventBuffer buffer;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlayerRepository playerRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private PlayerChangePublisher playerChangePublisher;
+
+    // Буфер общий для всех тестов контекста - ничего не должно перейти в следующий тест.
+    @After
+    public void flushBuffer() {
+        buffer.flush();
+    }
+
+    //test1
+    @Test
+    public void invalidEventsAreRejected() throws Exception {
+        postEvents("[]").andExpect(status().isBadRequest());
+        postEvents("[{\"playerId\": 1, \"amount\": 10}, {\"amount\": 10}]").andExpect(status().isBadRequest());
+        postEvents("[{\"playerId\": 1, \"amount\": 0}]").andExpect(status().isBadRequest());
+        postEvents("[{\"playerId\": 1, \"amount\": -5}]").andExpect(status().isBadRequest());
+        postEvents("[{\"playerId\": 1, \"amount\": 10000001}]").andExpect(status().isBadRequest());
+        assertEquals("После ошибки проверки ни одно событие не должно попасть в буфер.",
+                0, buffer.getStatistics().getPendingPlayers());
+    }
+
+    //test2
+    @Test
+    public void eventsForOnePlayerAreCoalesced() throws Exception {
+        int experience1 = getPlayer(1).get("experience").asInt();
+        int experience2 = getPlayer(2).get("experience").asInt();
+        long flushedBefore = buffer.getStatistics().getFlushedPlayers();
+
+        MvcResult result = postEvents("[{\"playerId\": 1, \"amount\": 100}, {\"playerId\": 2, \"amount\": 50}," +
+                " {\"playerId\": 1, \"amount\": 200}, {\"playerId\": 1, \"amount\": 300}]")
+                .andExpect(status().isAccepted())
+                .andReturn();
+        assertEquals("4", result.getResponse().getContentAsString());
+        assertEquals("Начисления одному игроку складываются в одну запись.", 2, buffer.getStatistics().getPendingPlayers());
+        assertEquals("До записи буфера опыт в БД не меняется.", experience1, getPlayer(1).get("experience").asInt());
+
+        buffer.flush();
+
+        assertEquals(0, buffer.getStatistics().getPendingPlayers());
+        assertEquals("Один UPDATE на игрока, а не на событие.", flushedBefore + 2, buffer.getStatistics().getFlushedPlayers());
+        assertPlayerExperience(1, experience1 + 600);
+        assertPlayerExperience(2, experience2 + 50);
+    }
+
+    //test3
+    @Test
+    public void experienceIsClampedAndUnknownPlayersAreSkipped() throws Exception {
+        postEvents("[{\"playerId\": 3, \"amount\": 10000000}, {\"playerId\": 3, \"amount\": 10000000}," +
+                " {\"playerId\": 999, \"amount\": 10}]")
+                .andExpect(status().isAccepted());
+        buffer.flush();
+
+        assertPlayerExperience(3, 10_000_000);
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE id = 999", Integer.class));
+    }
+
+    //test4
+    @Test
+    public void fullBufferAcceptsOnlyKnownPlayers() throws Exception {
+        int experience4 = getPlayer(4).get("experience").asInt();
+        int experience5 = getPlayer(5).get("experience").asInt();
+
+        MvcResult result = postEvents("[{\"playerId\": 1, \"amount\": 1}, {\"playerId\": 2, \"amount\": 1}," +
+                " {\"playerId\": 3, \"amount\": 1}, {\"playerId\": 1, \"amount\": 1}, {\"playerId\": 4, \"amount\": 1}," +
+                " {\"playerId\": 5, \"amount\": 1}]")
+                .andExpect(status().isServiceUnavailable())
+                .andReturn();
+        assertEquals("Принимается начало списка до первого игрока, которому нет места.",
+                "4", result.getResponse().getContentAsString());
+        assertEquals("3600", result.getResponse().getHeader("Retry-After"));
+        assertEquals(3, buffer.getStatistics().getPendingPlayers());
+
+        // Уже известному игроку опыт добавляется и в полный буфер.
+        postEvents("[{\"playerId\": 2, \"amount\": 1}]").andExpect(status().isAccepted());
+
+        buffer.flush();
+        postEvents("[{\"playerId\": 4, \"amount\": 1}, {\"playerId\": 5, \"amount\": 1}]").andExpect(status().isAccepted());
+        buffer.flush();
+        assertPlayerExperience(4, experience4 + 1);
+        assertPlayerExperience(5, experience5 + 1);
+    }
+
+    //test5
+    @Test
+    public void closeFlushesAndStopsAccepting() throws Exception {
+        int experience7 = getPlayer(7).get("experience").asInt();
+        ExperienceEventBuffer own = new ExperienceEventBuffer(jdbcTemplate, playerRepository, transactionManager, playerChangePublisher,
+                10, 100, 3_600_000);
+
+        assertEquals(2, own.offer(Arrays.asList(new ExperienceEvent(7L, 5), new ExperienceEvent(7L, 7))));
+        own.close();
+
+        assertPlayerExperience(7, experience7 + 12);
+        assertEquals("Закрытый буфер новых событий не принимает.",
+                0, own.offer(Collections.singletonList(new ExperienceEvent(7L, 1))));
+    }
+
+    //test6
+    @Test
+    public void failingRowDoesNotHoldBackOthers() throws Exception {
+        int[] experience = new int[6];
+        for (int id = 1; id <= 5; id++) {
+            experience[id] = getPlayer(id).get("experience").asInt();
+        }
+        ExperienceEventBuffer own = new ExperienceEventBuffer(jdbcTemplate, playerRepository, transactionManager,
+                playerChangePublisher, 10, 2, 3_600_000);
+        FailingUpdateTrigger.failingId = 2;
+        jdbcTemplate.execute("CREATE TRIGGER fail_update BEFORE UPDATE ON player FOR EACH ROW CALL \""
+                + FailingUpdateTrigger.class.getName() + "\"");
+        try {
+            assertEquals(5, own.offer(Arrays.asList(new ExperienceEvent(1L, 10), new ExperienceEvent(2L, 10),
+                    new ExperienceEvent(3L, 10), new ExperienceEvent(4L, 10), new ExperienceEvent(5L, 10))));
+            try {
+                own.flush();
+                fail("Ошибка записи должна дойти до планировщика");
+            } catch (DataAccessException expected) {
+                // Планировщик пишет её в журнал.
+            }
+        } finally {
+            jdbcTemplate.execute("DROP TRIGGER fail_update");
+        }
+
+        assertEquals("Строка, которая не записывается и отдельно, отброшена.", 1, own.getStatistics().getDroppedPlayers());
+        assertEquals(0, own.getStatistics().getPendingPlayers());
+        assertPlayerExperience(2, experience[2]);
+        for (int id : new int[]{1, 3, 4, 5}) {
+            assertPlayerExperience(id, experience[id] + 10);
+        }
+    }
+
+    private ResultActions postEvents(String json) throws Exception {
+        return mockMvc.perform(post("/rest/players/experience-events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+    }
+
+    private void assertPlayerExperience(long id, int experience) throws Exception {
+        JsonNode player = getPlayer(id);
+        int level = (int) ((Math.sqrt(2500 + 200.0 * experience) - 50) / 100);
+        assertEquals("experience игрока " + id, experience, player.get("experience").asInt());
+        assertEquals("level игрока " + id, level, player.get("level").asInt());
+        assertEquals("untilNextLevel игрока " + id, 50 * (level + 1) * (level + 2) - experience, player.get("untilNextLevel").asInt());
+    }
+
+    private JsonNode getPlayer(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
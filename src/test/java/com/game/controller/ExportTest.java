@@ -0,0 +1,136 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Маленькие fetchSize и flushEveryRows, чтобы выгрузка шла через много порций курсора и сбросов ответа.
+@TestPropertySource(properties = {"export.fetchSize=7", "export.flushEveryRows=5"})
+public class ExportTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void ndjsonMatchesPlayersList() throws Exception {
+        String[][] queries = {
+                {},
+                {"order", "EXPERIENCE"},
+                {"race", "DWARF", "order", "NAME"},
+                {"name", "а", "banned", "false", "order", "BIRTHDAY"},
+        };
+        for (String[] query : queries) {
+            MockHttpServletResponse response = mockMvc.perform(withParams(get("/rest/players/export"), query))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            assertEquals("application/x-ndjson", response.getContentType());
+
+            JsonNode expected = mapper.readTree(mockMvc.perform(withParams(get("/rest/players"), query).param("pageSize", "100"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            List<String> lines = lines(response.getContentAsString());
+            assertEquals("Выгрузка " + String.join(",", query), expected.size(), lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals("Строка " + i + " выгрузки " + String.join(",", query), expected.get(i), mapper.readTree(lines.get(i)));
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void csvEscapesFields() throws Exception {
+        // В БД хранится только дата, поэтому день рождения - полночь в часовом поясе JVM.
+        long birthday = LocalDate.of(2001, 4, 24).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        ObjectNode player = mapper.createObjectNode();
+        player.put("name", "Ли,\"Хо\"");
+        player.put("title", "Первый\nВторой");
+        player.put("race", "ELF");
+        player.put("profession", "CLERIC");
+        player.put("birthday", birthday);
+        player.put("experience", 1000);
+        long id = mapper.readTree(mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(player)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/export").param("format", "csv").param("race", "ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        String csv = response.getContentAsString();
+
+        assertTrue(csv.startsWith("id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel\r\n"));
+        assertTrue("Кавычки удваиваются, поля с запятой и переводом строки берутся в кавычки.",
+                csv.contains("\r\n" + id + ",\"Ли,\"\"Хо\"\"\",\"Первый\nВторой\",ELF,CLERIC," + birthday + ",false,1000,4,500\r\n"));
+        long elves = Long.parseLong(mockMvc.perform(get("/rest/players/count").param("race", "ELF"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Заголовок и по строке на игрока (одна строка с переводом внутри поля).",
+                elves + 2, csv.split("\r\n").length + 1);
+    }
+
+    //test3
+    @Test
+    public void largeExport() throws Exception {
+        ArrayNode players = mapper.createArrayNode();
+        for (int i = 0; i < 3000; i++) {
+            ObjectNode player = players.addObject();
+            player.put("name", "Игрок" + i);
+            player.put("title", "Титул");
+            player.put("race", "HUMAN");
+            player.put("profession", "WARRIOR");
+            player.put("birthday", 988059600000L);
+            player.put("experience", i);
+        }
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(players)))
+                .andExpect(status().isOk());
+
+        List<String> lines = lines(mockMvc.perform(get("/rest/players/export").param("order", "EXPERIENCE"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(3040, lines.size());
+        int previous = -1;
+        for (String line : lines) {
+            int experience = mapper.readTree(line).get("experience").asInt();
+            assertTrue(experience >= previous);
+            previous = experience;
+        }
+    }
+
+    //test4
+    @Test
+    public void unknownFormat() throws Exception {
+        mockMvc.perform(get("/rest/players/export").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    private List<String> lines(String ndjson) {
+        assertTrue("Каждая строка NDJSON заканчивается переводом строки.", ndjson.isEmpty() || ndjson.endsWith("\n"));
+        return ndjson.isEmpty() ? Arrays.asList() : Arrays.asList(ndjson.split("\n"));
+    }
+
+    private MockHttpServletRequestBuilder withParams(MockHttpServletRequestBuilder request, String[] params) {
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FacetsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //test1
+    @Test
+    public void facetsWithoutFilter() throws Exception {
+        JsonNode facets = facets(get("/rest/players/facets"));
+
+        assertEquals(40, facets.get("total").asLong());
+        assertEquals(5, facets.get("race").get("DWARF").asLong());
+        assertEquals(5, facets.get("race").get("TROLL").asLong());
+        assertEquals(3, facets.get("race").get("HOBBIT").asLong());
+        assertEquals(2, facets.get("profession").get("DRUID").asLong());
+        assertEquals("Значения без игроков тоже перечислены.", Race.values().length, facets.get("race").size());
+        assertEquals(Profession.values().length, facets.get("profession").size());
+
+        assertHistogram(facets.get("level"), "level", 10, "1 = 1");
+        assertHistogram(facets.get("experience"), "experience", 100000, "1 = 1");
+    }
+
+    //test2
+    @Test
+    public void facetsMatchCountPerOption() throws Exception {
+        String[][] filters = {
+                {"name", "а"},
+                {"minLevel", "10", "banned", "false"},
+                {"race", "ELF", "maxExperience", "500000"},
+                {"title", "и", "after", "1104537600000"},
+        };
+        for (String[] filter : filters) {
+            JsonNode facets = facets(withParams(get("/rest/players/facets"), filter));
+            String description = String.join(",", filter);
+
+            assertEquals(description, count(filter), facets.get("total").asLong());
+            for (Race race : Race.values()) {
+                assertEquals(description + " race=" + race,
+                        count(filter, "race", race.name()), facets.get("race").get(race.name()).asLong());
+            }
+            for (Profession profession : Profession.values()) {
+                assertEquals(description + " profession=" + profession,
+                        count(filter, "profession", profession.name()), facets.get("profession").get(profession.name()).asLong());
+            }
+            for (String banned : new String[]{"true", "false"}) {
+                assertEquals(description + " banned=" + banned,
+                        count(filter, "banned", banned), facets.get("banned").get(banned).asLong());
+            }
+            long levels = 0;
+            for (JsonNode bucket : facets.get("level")) {
+                assertEquals(description + " level " + bucket,
+                        count(filter, "minLevel", bucket.get("from").asText(), "maxLevel", bucket.get("to").asText()),
+                        bucket.get("count").asLong());
+                levels += bucket.get("count").asLong();
+            }
+            assertEquals(facets.get("total").asLong(), levels);
+        }
+    }
+
+    //test3
+    @Test
+    public void customBucketSizes() throws Exception {
+        JsonNode facets = facets(get("/rest/players/facets")
+                .param("race", "DWARF")
+                .param("levelBucketSize", "3")
+                .param("experienceBucketSize", "25000"));
+        assertHistogram(facets.get("level"), "level", 3, "race = 'DWARF'");
+        assertHistogram(facets.get("experience"), "experience", 25000, "race = 'DWARF'");
+
+        mockMvc.perform(get("/rest/players/facets").param("levelBucketSize", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players/facets").param("experienceBucketSize", "100")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players/facets").param("race", "GNOME")).andExpect(status().isBadRequest());
+    }
+
+    // Корзины идут подряд, и в каждой столько игроков, сколько насчитает БД.
+    private void assertHistogram(JsonNode histogram, String column, int bucketSize, String condition) {
+        Integer expectedFirst = jdbcTemplate.queryForObject("SELECT MIN(" + column + ") FROM player WHERE " + condition, Integer.class) / bucketSize * bucketSize;
+        assertEquals(column + ": первая корзина", (int) expectedFirst, histogram.get(0).get("from").asInt());
+        int from = expectedFirst;
+        long total = 0;
+        for (JsonNode bucket : histogram) {
+            assertEquals(from, bucket.get("from").asInt());
+            assertEquals(from + bucketSize - 1, bucket.get("to").asInt());
+            Long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE " + condition +
+                    " AND " + column + " BETWEEN ? AND ?", Long.class, from, from + bucketSize - 1);
+            assertEquals(column + " от " + from, (long) expected, bucket.get("count").asLong());
+            total += expected;
+            from += bucketSize;
+        }
+        Map<String, Object> all = jdbcTemplate.queryForMap("SELECT COUNT(*) AS c, MAX(" + column + ") AS m FROM player WHERE " + condition);
+        assertEquals(column + ": сумма по корзинам", ((Number) all.get("c")).longValue(), total);
+        assertEquals(column + ": последняя корзина", ((Number) all.get("m")).intValue() / bucketSize * bucketSize + bucketSize, from);
+    }
+
+    private JsonNode facets(MockHttpServletRequestBuilder request) throws Exception {
+        return mapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    // Число игроков под фильтром и дополнительным условием extra одновременно (через GET /rest/players/count).
+    private long count(String[] filter, String... extra) throws Exception {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String[] pairs : new String[][]{filter, extra}) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                String name = pairs[i];
+                String value = pairs[i + 1];
+                String previous = params.get(name);
+                if (previous == null) {
+                    params.put(name, value);
+                } else if (name.startsWith("min")) {
+                    params.put(name, String.valueOf(Math.max(Long.parseLong(previous), Long.parseLong(value))));
+                } else if (name.startsWith("max")) {
+                    params.put(name, String.valueOf(Math.min(Long.parseLong(previous), Long.parseLong(value))));
+                } else if (!previous.equals(value)) {
+                    return 0;
+                }
+            }
+        }
+        MockHttpServletRequestBuilder request = get("/rest/players/count");
+        params.forEach(request::param);
+        return Long.parseLong(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private MockHttpServletRequestBuilder withParams(MockHttpServletRequestBuilder request, String[] params) {
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetAllKeysetTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void keysetPagesMatchOffsetPagesForEveryOrder() throws Exception {
+        for (PlayerOrder order : PlayerOrder.values()) {
+            String filter = "banned=false&order=" + order.name();
+            List<PlayerInfoTest> byOffset = walkByOffset(filter, 4);
+            List<PlayerInfoTest> byKeyset = walkByKeyset(filter, 4);
+
+            assertEquals("Keyset-выдача для order=" + order + " должна совпадать с постраничной.", byOffset, byKeyset);
+        }
+    }
+
+    //test2
+    @Test
+    public void keysetLastPageHasNoNextCursor() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players?race=DWARF&pageSize=100&cursor="))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertNull(response.getHeader(PlayerController.NEXT_CURSOR_HEADER));
+        assertEquals(5, read(response).size());
+    }
+
+    //test3
+    @Test
+    public void keysetWithMalformedCursorTest() throws Exception {
+        mockMvc.perform(get("/rest/players?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void keysetWithCursorOfAnotherOrderTest() throws Exception {
+        String next = mockMvc.perform(get("/rest/players?order=LEVEL&cursor="))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(PlayerController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/players?order=NAME&cursor=" + next))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<PlayerInfoTest> walkByOffset(String filter, int pageSize) throws Exception {
+        List<PlayerInfoTest> result = new ArrayList<>();
+        for (int pageNumber = 0; ; pageNumber++) {
+            List<PlayerInfoTest> page = read(mockMvc.perform(get("/rest/players?" + filter
+                    + "&pageSize=" + pageSize + "&pageNumber=" + pageNumber))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse());
+            result.addAll(page);
+            if (page.size() < pageSize) {
+                return result;
+            }
+        }
+    }
+
+    private List<PlayerInfoTest> walkByKeyset(String filter, int pageSize) throws Exception {
+        List<PlayerInfoTest> result = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get("/rest/players?" + filter
+                    + "&pageSize=" + pageSize + "&cursor=" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            result.addAll(read(response));
+            cursor = response.getHeader(PlayerController.NEXT_CURSOR_HEADER);
+        }
+        return result;
+    }
+
+    private List<PlayerInfoTest> read(MockHttpServletResponse response) throws Exception {
+        return mapper.readValue(response.getContentAsString(), new TypeReference<List<PlayerInfoTest>>() {
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerImportResult;
+import com.game.service.PlayerRecordSource;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//   Маленький chunkSize, чтобы импорт шёл многими пакетами.
+@TestPropertySource(properties = {"import.chunkSize=3", "import.maxReportedErrors=2"})
+public class ImportTest extends AbstractTest {
+
+    // В БД хранится только дата, поэтому день рождения - полночь в часовом поясе JVM.
+    private static final long BIRTHDAY = LocalDate.of(2001, 4, 24).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private PlayerService playerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //test1
+    @Test
+    public void ndjsonReportsRejectedRecords() throws Exception {
+        String body = player("Первый", 1000) + "\n" +
+                player("", 1000) + "\n" +
+                "\n" +
+                "{не json\n" +
+                player("Второй", 2000) + "\n" +
+                player("Третий", Player.MAX_EXPERIENCE + 1) + "\n" +
+                player("Четвёртый", 3000) + "\n" +
+                player("Пятый", 500);
+
+        JsonNode result = importPlayers("ndjson", null, body, 200);
+        assertEquals(4, result.get("imported").asLong());
+        assertEquals(3, result.get("rejected").asLong());
+        assertEquals("Пустая строка записью не считается.", 7, result.get("committedRecords").asLong());
+        assertTrue(result.get("complete").asBoolean());
+
+        JsonNode rejected = result.get("rejectedRecords");
+        assertEquals("В отчёте не больше import.maxReportedErrors записей.", 2, rejected.size());
+        assertEquals(2, rejected.get(0).get("record").asLong());
+        assertTrue(rejected.get(0).get("error").asText().contains("name"));
+        assertEquals(3, rejected.get(1).get("record").asLong());
+
+        Map<String, Object> second = jdbcTemplate.queryForMap("SELECT * FROM player WHERE name = 'Второй'");
+        assertEquals(5, second.get("level"));
+        assertEquals(100, second.get("untilNextLevel"));
+        assertEquals(false, second.get("banned"));
+        assertEquals(44L, count());
+    }
+
+    //test2
+    @Test
+    public void csvExportImportsBack() throws Exception {
+        mockMvc.perform(post("/rest/players/")
+                .contentType("application/json")
+                .content(player("Ли,\"Хо\"", 1000).replace("\"Титул\"", "\"Первый\\nВторой\"")))
+                .andExpect(status().isOk());
+        String csv = mockMvc.perform(get("/rest/players/export").param("format", "csv").param("race", "ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long elves = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE race = 'ELF'", Long.class);
+
+        JsonNode result = importPlayers("csv", null, csv, 200);
+        assertEquals(elves, result.get("imported").asLong());
+        assertEquals(0, result.get("rejected").asLong());
+        assertEquals("Каждый эльф теперь в двух экземплярах с теми же полями.", 0L, (long) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM player" +
+                        " WHERE race = 'ELF' GROUP BY name, title, profession, birthday, banned, experience, level, untilNextLevel" +
+                        " HAVING COUNT(*) <> 2)", Long.class));
+        assertEquals(1L, (long) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM player WHERE name = 'Ли,\"Хо\"' AND title = 'Первый\nВторой' AND id > 41", Long.class));
+
+        // Колонки по заголовку в любом порядке, banned необязателен.
+        result = importPlayers("csv", null, "experience,name,race,profession,title,birthday\r\n" +
+                "100,Шестой,DWARF,WARRIOR,,\r\n" +
+                "100,Седьмой,DWARF,WARRIOR,,1,2\r\n" +
+                "100,Восьмой,DWARF,WARRIOR,\"\"," + BIRTHDAY + "\r\n", 200);
+        assertEquals(1, result.get("imported").asLong());
+        assertTrue(result.get("rejectedRecords").get(0).get("error").asText().contains("null"));
+        assertTrue(result.get("rejectedRecords").get(1).get("error").asText().contains("fields"));
+    }
+
+    //test3
+    @Test
+    public void resumeAfterFailure() throws Exception {
+        // Источник обрывается на восьмой записи: закоммичены два пакета по 3, седьмая запись откатилась вместе с пакетом.
+        PlayerImportResult failed = playerService.importPlayers(new GeneratedSource(10, 7), 0);
+        assertFalse(failed.isComplete());
+        assertEquals("Connection reset", failed.getError());
+        assertEquals(6, failed.getCommittedRecords());
+        assertEquals(6, failed.getImported());
+        assertEquals(46L, count());
+
+        PlayerImportResult resumed = playerService.importPlayers(new GeneratedSource(10, -1), failed.getCommittedRecords());
+        assertTrue(resumed.isComplete());
+        assertEquals(6, resumed.getSkipped());
+        assertEquals(4, resumed.getImported());
+        assertEquals(10, resumed.getCommittedRecords());
+        assertEquals("Каждая запись импортирована ровно один раз.", 10L, (long) jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT name) FROM player WHERE name LIKE 'Импорт%'", Long.class));
+        assertEquals(50L, count());
+    }
+
+    //test4
+    @Test
+    public void badRequests() throws Exception {
+        importPlayers("xml", null, player("Первый", 1000), 400);
+        importPlayers("ndjson", "-1", player("Первый", 1000), 400);
+        importPlayers("csv", null, "name,title\r\nПервый,Титул\r\n", 400);
+        importPlayers("csv", null, "", 400);
+
+        JsonNode result = importPlayers("ndjson", "5", player("Первый", 1000), 200);
+        assertEquals(1, result.get("skipped").asLong());
+        assertEquals(0, result.get("imported").asLong());
+        assertEquals(40L, count());
+    }
+
+    private JsonNode importPlayers(String format, String skip, String body, int expectedStatus) throws Exception {
+        String content = mockMvc.perform(post("/rest/players/import")
+                .param("format", format)
+                .param("skip", skip == null ? "0" : skip)
+                .contentType("application/octet-stream")
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+        return content.isEmpty() ? null : mapper.readTree(content);
+    }
+
+    private String player(String name, int experience) throws Exception {
+        return "{\"name\": " + mapper.writeValueAsString(name) + ", \"title\": \"Титул\", \"race\": \"ELF\"," +
+                " \"profession\": \"CLERIC\", \"birthday\": " + BIRTHDAY + ", \"experience\": " + experience + "}";
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player", Long.class);
+    }
+
+    // Игроки "Импорт0", "Импорт1", ...; на записи с номером failAt (с 0) источник бросает IOException.
+    private static class GeneratedSource implements PlayerRecordSource<Integer> {
+        private final int size;
+        private final int failAt;
+        private int next;
+
+        GeneratedSource(int size, int failAt) {
+            this.size = size;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public Integer next() throws IOException {
+            if (next == failAt) {
+                throw new IOException("Connection reset");
+            }
+            return next < size ? next++ : null;
+        }
+
+        @Override
+        public Player toPlayer(Integer record) {
+            Player player = new Player();
+            player.setName("Импорт" + record);
+            player.setTitle("Титул");
+            player.setRace(Race.HUMAN);
+            player.setProfession(Profession.WARRIOR);
+            player.setBirthday(new Date(BIRTHDAY));
+            player.setExperience(record * 100);
+            return player;
+        }
+    }
+}
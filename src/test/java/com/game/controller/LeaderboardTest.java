@@ -0,0 +1,165 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.ExperienceEventBuffer;
+import com.game.service.Leaderboard;
+import com.game.service.LeaderboardEntry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LeaderboardTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random = new Random(20201101);
+
+    @Autowired
+    private Leaderboard leaderboard;
+    @Autowired
+    private ExperienceEventBuffer experienceEventBuffer;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //test1
+    @Test
+    public void boardsMatchDatabaseOrder() throws Exception {
+        compareAllBoards();
+    }
+
+    //test2
+    @Test
+    public void boardsFollowWrites() throws Exception {
+        // Много одинакового опыта - порядок при равенстве решает id.
+        ArrayNode players = mapper.createArrayNode();
+        for (int i = 0; i < 200; i++) {
+            ObjectNode player = players.addObject();
+            player.put("name", "Игрок" + i);
+            player.put("title", "Титул");
+            player.put("race", Race.values()[random.nextInt(Race.values().length)].name());
+            player.put("profession", Profession.values()[random.nextInt(Profession.values().length)].name());
+            player.put("birthday", 988059600000L);
+            player.put("experience", 1000 * random.nextInt(20));
+            player.put("banned", random.nextInt(4) == 0);
+        }
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(players)))
+                .andExpect(status().isOk());
+        compareAllBoards();
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"race\": \"GIANT\", \"experience\": 5000, \"banned\": true}"))
+                .andExpect(status().isOk());
+        for (int id = 1; id <= 40; id += 4) {
+            mockMvc.perform(delete("/rest/players/" + id)).andExpect(status().isOk());
+        }
+        compareAllBoards();
+
+        // playersExperienceChanged (запись буфера начислений) и playersReset (массовые операции).
+        mockMvc.perform(post("/rest/players/experience-events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"playerId\": 2, \"amount\": 777}, {\"playerId\": 50, \"amount\": 3000}]"))
+                .andExpect(status().isAccepted());
+        experienceEventBuffer.flush();
+        compareAllBoards();
+
+        mockMvc.perform(post("/rest/players/bulk/ban").param("race", "ELF")).andExpect(status().isOk());
+        compareAllBoards();
+    }
+
+    //test3
+    @Test
+    public void pagesAndErrors() throws Exception {
+        List<Long> expected = expectedIds("1 = 1");
+        assertEquals(expected.subList(2, 7), ids(mockMvc.perform(get("/rest/leaderboard").param("from", "3").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn()));
+        assertEquals(0, ids(mockMvc.perform(get("/rest/leaderboard").param("from", "41"))
+                .andExpect(status().isOk())
+                .andReturn()).size());
+
+        mockMvc.perform(get("/rest/leaderboard").param("from", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/leaderboard").param("size", "1001")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/leaderboard").param("race", "DWARF").param("profession", "WARRIOR"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/leaderboard").param("race", "GNOME")).andExpect(status().isBadRequest());
+
+        // Игрок 1 - хоббит, его нет в таблице гномов.
+        mockMvc.perform(get("/rest/leaderboard/players/1").param("race", "DWARF")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/leaderboard/players/415")).andExpect(status().isNotFound());
+        JsonNode entry = mapper.readTree(mockMvc.perform(get("/rest/leaderboard/players/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(expected.indexOf(1L) + 1, entry.get("rank").asLong());
+        assertEquals("Ниус", entry.get("name").asText());
+    }
+
+    private void compareAllBoards() throws Exception {
+        compareBoard(null, null);
+        for (Race race : Race.values()) {
+            compareBoard(race, null);
+        }
+        for (Profession profession : Profession.values()) {
+            compareBoard(null, profession);
+        }
+        assertNull(leaderboard.find(415, null, null, false));
+    }
+
+    private void compareBoard(Race race, Profession profession) throws Exception {
+        String board = race != null ? "race = '" + race + "'" : profession != null ? "profession = '" + profession + "'" : "1 = 1";
+        for (boolean excludeBanned : new boolean[]{false, true}) {
+            String condition = board + (excludeBanned ? " AND banned = false" : "");
+            List<Long> expected = expectedIds(condition);
+
+            MockHttpServletRequestBuilder request = get("/rest/leaderboard")
+                    .param("excludeBanned", String.valueOf(excludeBanned))
+                    .param("size", "1000");
+            if (race != null) {
+                request.param("race", race.name());
+            }
+            if (profession != null) {
+                request.param("profession", profession.name());
+            }
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            assertEquals("Таблица " + condition, expected, ids(result));
+            assertEquals(String.valueOf(expected.size()), result.getResponse().getHeader(LeaderboardController.TOTAL_COUNT_HEADER));
+
+            for (int rank = 0; rank < expected.size(); rank++) {
+                LeaderboardEntry entry = leaderboard.find(expected.get(rank), race, profession, excludeBanned);
+                assertEquals("Место игрока " + expected.get(rank) + " в таблице " + condition, rank + 1, entry.getRank());
+            }
+        }
+    }
+
+    private List<Long> expectedIds(String condition) {
+        return jdbcTemplate.queryForList("SELECT id FROM player WHERE " + condition + " ORDER BY experience DESC, id", Long.class);
+    }
+
+    private List<Long> ids(MvcResult result) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode entry : mapper.readTree(result.getResponse().getContentAsString())) {
+            ids.add(entry.get("id").asLong());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.game.service.PlayerChangePublisher;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class NgramSearchTest extends AbstractTest {
+
+    private static final String[] PATTERNS = {"Э", "э", "а", "ан", "ара", "Воин", "оин", "эль", "а_а", "и%н", "%", "_", "Бэлан", "щщщ"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlayerChangePublisher playerChangePublisher;
+
+    //test1
+    @Test
+    public void caseSensitiveSearchMatchesLike() throws Exception {
+        for (String pattern : PATTERNS) {
+            assertEquals("name LIKE '%" + pattern + "%'",
+                    jdbcCount("name LIKE ?", "%" + pattern + "%"), count("name", pattern, false));
+            assertEquals("title LIKE '%" + pattern + "%'",
+                    jdbcCount("title LIKE ?", "%" + pattern + "%"), count("title", pattern, false));
+        }
+    }
+
+    //test2
+    @Test
+    public void ignoreCaseSearchMatchesLowerLike() throws Exception {
+        for (String pattern : PATTERNS) {
+            assertEquals("LOWER(name) LIKE '%" + pattern + "%'",
+                    jdbcCount("LOWER(name) LIKE LOWER(?)", "%" + pattern + "%"), count("name", pattern, true));
+        }
+    }
+
+    //test3
+    @Test
+    public void ignoreCaseSearchFoldsDiacritics() throws Exception {
+        assertEquals("С учётом регистра 'ё' и 'е' - разные буквы.", 1, count("title", "эльфенок", false));
+        assertEquals("Без учёта регистра 'Эльфёнок' и 'эльфенок' совпадают.", 2, count("title", "эльфенок", true));
+        assertEquals(2, count("title", "ЭЛЬФЁНОК", true));
+
+        // Прочая диакритика не сворачивается - одинаково в SQL и в памяти (см. LikePattern.FOLD_FROM).
+        ObjectNode player = new ObjectMapper().createObjectNode();
+        player.put("name", "Café");
+        player.put("title", "Бариста");
+        player.put("race", "HUMAN");
+        player.put("profession", "CLERIC");
+        player.put("birthday", 988059600000L);
+        player.put("experience", 1000);
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(player.toString()))
+                .andExpect(status().isOk());
+        assertEquals(1, count("name", "CAFÉ", true));
+        assertEquals(0, count("name", "cafe", true));
+        assertEquals(jdbcCount("LOWER(name) LIKE LOWER(?)", "%cafe%"), count("name", "cafe", true));
+    }
+
+    //test4
+    @Test
+    public void indexFollowsWrites() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode player = mapper.createObjectNode();
+        player.put("name", "Алёна");
+        player.put("title", "Новенькая");
+        player.put("race", "ELF");
+        player.put("profession", "CLERIC");
+        player.put("birthday", 988059600000L);
+        player.put("experience", 1000);
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(player)))
+                .andExpect(status().isOk());
+        assertEquals(1, count("name", "алена", true));
+        assertEquals(1, count("title", "Новен", false));
+
+        mockMvc.perform(post("/rest/players/41")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Оксана\"}"))
+                .andExpect(status().isOk());
+        assertEquals(0, count("name", "алена", true));
+        assertEquals(1, count("name", "ксан", false));
+
+        mockMvc.perform(delete("/rest/players/41")).andExpect(status().isOk());
+        assertEquals(0, count("name", "ксан", false));
+    }
+
+    //test5
+    @Test
+    public void rowsChangedBehindIndexStillCheckedByLike() throws Exception {
+        assertEquals(1, count("name", "Бэлан", true));
+        // Имя поменяли мимо приложения: индекс об этом не знает, но LIKE в БД отсекает строку.
+        jdbcTemplate.update("UPDATE player SET name = 'Оксана' WHERE name = 'Бэлан'");
+        assertEquals(0, count("name", "бэла", true));
+        assertEquals(0, count("name", "Бэл", false));
+    }
+
+    //test6
+    @Test
+    public void rowRenamedIntoMatchIsFoundOnceReported() throws Exception {
+        assertEquals(0, count("name", "ксан", true));
+        long id = jdbcTemplate.queryForObject("SELECT id FROM player WHERE name = 'Бэлан'", Long.class);
+        jdbcTemplate.update("UPDATE player SET name = 'Оксана' WHERE id = ?", id);
+        // Индекс с одним писателем: о записи мимо приложения сообщают через PlayerChangePublisher.
+        playerChangePublisher.changed(Collections.singletonList(id));
+        assertEquals(1, count("name", "ксан", true));
+        assertEquals(1, count("name", "Окс", false));
+    }
+
+    private long count(String field, String pattern, boolean ignoreCase) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/rest/players/count")
+                .param(field, pattern)
+                .param("ignoreCase", String.valueOf(ignoreCase)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private long jdbcCount(String condition, String pattern) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE " + condition, Long.class, pattern);
+    }
+}
@@ -0,0 +1,122 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PatchPlayerTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void patchPlayerIdZeroTest() throws Exception {
+        mockMvc.perform(patch("/rest/players/0")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Имя\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void patchPlayerNotExistTest() throws Exception {
+        mockMvc.perform(patch("/rest/players/415")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Имя\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/rest/players/415")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void patchPlayerInvalidFieldsTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(1);
+
+        mockMvc.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Abcdefghijklmnopqrstuvwxyz12345\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 10000001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": -1}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals("После ошибки проверки игрок не должен изменяться", expected, getPlayer(1));
+    }
+
+    //test4
+    @Test
+    public void patchPlayerEmptyBodyTest() throws Exception {
+        PlayerInfoTest expected = testsHelper.getPlayerInfosById(17);
+
+        mockMvc.perform(patch("/rest/players/17")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isNoContent());
+
+        assertEquals("При запросе PATCH /rest/players/{id} с пустым телом запроса, игрок не должен изменяться", expected, getPlayer(17));
+    }
+
+    //test5
+    @Test
+    public void patchPlayerExperienceTest() throws Exception {
+        PlayerInfoTest playerInfoTest = testsHelper.getPlayerInfosById(14);
+        PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, "TestName", playerInfoTest.title, playerInfoTest.race, playerInfoTest.profession,
+                playerInfoTest.birthday, false, 2500, 6, 300);
+
+        mockMvc.perform(patch("/rest/players/14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"TestName\", \"banned\": false, \"experience\": 2500, \"level\": 99}"))
+                .andExpect(status().isNoContent());
+
+        assertEquals("При запросе PATCH /rest/players/{id} меняются только переданные поля, уровень пересчитывается по опыту", expected, getPlayer(14));
+    }
+
+    //test6
+    @Test
+    public void patchPlayerKeepsLevelsWithoutExperienceTest() throws Exception {
+        PlayerInfoTest playerInfoTest = testsHelper.getPlayerInfosById(32);
+        // В БД хранится только дата, поэтому день рождения - полночь в часовом поясе JVM.
+        long newBirthday = LocalDate.of(2007, 5, 7).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, playerInfoTest.name, "TestName", Race.DWARF, Profession.ROGUE, newBirthday,
+                playerInfoTest.banned, playerInfoTest.experience, playerInfoTest.level, playerInfoTest.untilNextLevel);
+
+        mockMvc.perform(patch("/rest/players/32")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON_2, "TestName", Race.DWARF, Profession.ROGUE, newBirthday)))
+                .andExpect(status().isNoContent());
+
+        assertEquals("При запросе PATCH /rest/players/{id} без experience уровень не меняется", expected, getPlayer(32));
+    }
+
+    private PlayerInfoTest getPlayer(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, PlayerInfoTest.class);
+    }
+}
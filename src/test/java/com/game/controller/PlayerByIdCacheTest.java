@@ -0,0 +1,80 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerByIdCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        long hits = cacheStatistics().get("hits").asLong();
+        long misses = cacheStatistics().get("misses").asLong();
+
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+
+        assertEquals("Из БД игрок должен читаться один раз.", misses + 1, cacheStatistics().get("misses").asLong());
+        assertEquals(hits + 2, cacheStatistics().get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void missingPlayerIsCachedAndReplacedByInsert() throws Exception {
+        mockMvc.perform(get("/rest/players/41")).andExpect(status().isNotFound());
+        long hits = cacheStatistics().get("hits").asLong();
+        mockMvc.perform(get("/rest/players/41")).andExpect(status().isNotFound());
+        assertEquals("Отсутствие игрока тоже должно кэшироваться.", hits + 1, cacheStatistics().get("hits").asLong());
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/41")).andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void writesAreVisibleThroughCache() throws Exception {
+        name(1);
+
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое имя\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Чтение после записи должно вернуть новое имя.", "Новое имя", name(1));
+
+        mockMvc.perform(delete("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isNotFound());
+    }
+
+    private String name(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("name").asText();
+    }
+
+    private JsonNode cacheStatistics() throws Exception {
+        JsonNode caches = mapper.readTree(mockMvc.perform(get("/rest/metrics/caches"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        for (JsonNode cache : caches) {
+            if ("playerById".equals(cache.get("cacheName").asText())) {
+                return cache;
+            }
+        }
+        throw new AssertionError("Нет статистики кэша playerById.");
+    }
+}
@@ -0,0 +1,167 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.PlayerJsonHttpMessageConverter;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerJsonConverterTest extends AbstractTest {
+
+    private static final Type PLAYER_LIST = new ParameterizedTypeReference<List<Player>>() {
+    }.getType();
+    private static final String[] SAMPLES = {
+            "", "Ниус", "a\"b", "back\\slash", "tab\tnew\nline\r", "\b\f\u0000\u001f\u007f", "/<>&'",
+            "😀 эмодзи", "ю  ￿", "€", "a,b"
+    };
+
+    private final Random random = new Random(20201218);
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+    @Autowired
+    private PlayerService playerService;
+
+    //test1
+    @Test
+    public void sameBytesAsJackson() throws Exception {
+        MappingJackson2HttpMessageConverter jackson = jacksonConverter();
+        PlayerJsonHttpMessageConverter converter = new PlayerJsonHttpMessageConverter(jackson.getObjectMapper());
+
+        for (int i = 0; i < 2000; i++) {
+            Player player = randomPlayer(i % 3 == 0);
+            assertArrayEquals("Игрок " + player, write(jackson, player, Player.class), write(converter, player, Player.class));
+        }
+        for (int size : new int[]{0, 1, 2, 17, 500}) {
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                players.add(randomPlayer(i % 5 == 0));
+            }
+            assertArrayEquals("Список из " + size, write(jackson, players, PLAYER_LIST), write(converter, players, PLAYER_LIST));
+        }
+        List<Player> withNull = Arrays.asList(randomPlayer(false), null);
+        assertArrayEquals(write(jackson, withNull, PLAYER_LIST), write(converter, withNull, PLAYER_LIST));
+    }
+
+    //test2
+    @Test
+    public void writesPlayerResponsesOnly() throws Exception {
+        HttpMessageConverter<?> first = handlerAdapter.getMessageConverters().get(0);
+        assertTrue(first instanceof PlayerJsonHttpMessageConverter);
+        PlayerJsonHttpMessageConverter converter = (PlayerJsonHttpMessageConverter) first;
+
+        assertTrue(converter.canWrite(PLAYER_LIST, ArrayList.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(Player.class, Player.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(Player.class, Player.class, null));
+        assertFalse(converter.canWrite(Player.class, Player.class, MediaType.APPLICATION_XML));
+        assertFalse(converter.canWrite(new ParameterizedTypeReference<List<Long>>() {
+        }.getType(), ArrayList.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Object.class, ArrayList.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(Player.class, null, MediaType.APPLICATION_JSON));
+        try {
+            converter.read(Player.class, null, new MockHttpInputMessage("{}".getBytes(StandardCharsets.UTF_8)));
+            fail("Чтение - не дело этого конвертера");
+        } catch (HttpMessageNotReadableException expected) {
+            // DefaultHandlerExceptionResolver отвечает на него 400.
+        }
+    }
+
+    //test3
+    @Test
+    public void endpointsMatchJackson() throws Exception {
+        ObjectMapper jackson = jacksonConverter().getObjectMapper();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("application/json", response.getContentType());
+        assertArrayEquals(jackson.writeValueAsBytes(playerService.findById(1L)), response.getContentAsByteArray());
+
+        // Список сверяется с тем, что Jackson напишет для разобранного им же ответа: поля Player проходят туда и обратно без потерь.
+        byte[] list = mockMvc.perform(get("/rest/players").param("pageSize", "40"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        List<Player> players = jackson.readValue(list, new TypeReference<List<Player>>() {
+        });
+        assertEquals(40, players.size());
+        assertArrayEquals(jackson.writerFor(new TypeReference<List<Player>>() {
+        }).writeValueAsBytes(players), list);
+    }
+
+    private MappingJackson2HttpMessageConverter jacksonConverter() {
+        for (HttpMessageConverter<?> converter : handlerAdapter.getMessageConverters()) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                return (MappingJackson2HttpMessageConverter) converter;
+            }
+        }
+        throw new AssertionError("Jackson converter is not registered");
+    }
+
+    private byte[] write(HttpMessageConverter<?> converter, Object value, Type type) throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        if (converter instanceof MappingJackson2HttpMessageConverter) {
+            ((MappingJackson2HttpMessageConverter) converter).write(value, type, MediaType.APPLICATION_JSON, message);
+        } else {
+            ((PlayerJsonHttpMessageConverter) converter).write(value, type, MediaType.APPLICATION_JSON, message);
+        }
+        return message.getBodyAsBytes();
+    }
+
+    // Игрок с произвольными полями; withNulls - часть полей null (как в теле, которое вернули с 400).
+    private Player randomPlayer(boolean withNulls) {
+        Player player = new Player();
+        player.setId(withNulls && random.nextBoolean() ? null : random.nextLong() >>> random.nextInt(64));
+        player.setRace(withNulls && random.nextBoolean() ? null : Race.values()[random.nextInt(Race.values().length)]);
+        player.setProfession(withNulls && random.nextBoolean() ? null : Profession.values()[random.nextInt(Profession.values().length)]);
+        player.setBanned(withNulls && random.nextBoolean() ? null : random.nextBoolean());
+        if (!withNulls || random.nextBoolean()) {
+            player.setName(randomString(12));
+        }
+        if (!withNulls || random.nextBoolean()) {
+            player.setTitle(randomString(30));
+        }
+        if (!withNulls || random.nextBoolean()) {
+            player.setExperience(random.nextInt(Player.MAX_EXPERIENCE + 1));
+            player.setBirthday(new Date(946684800000L + (long) (random.nextDouble() * 999 * 365 * 86400000L)));
+        }
+        return player;
+    }
+
+    private String randomString(int maxLength) {
+        StringBuilder value = new StringBuilder(SAMPLES[random.nextInt(SAMPLES.length)]);
+        while (value.length() == 0 || value.length() < maxLength && random.nextInt(4) != 0) {
+            value.append(random.nextInt(3) == 0 ? (char) random.nextInt(0x80) : (char) (0x400 + random.nextInt(0x60)));
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength).replaceAll("[\\ud800-\\udbff]$", "") :
+                value.toString();
+    }
+}
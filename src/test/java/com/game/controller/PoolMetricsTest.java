@@ -0,0 +1,38 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PoolMetricsTest extends AbstractTest {
+
+    @Test
+    public void getPoolStatisticsAfterRequests() throws Exception {
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/2")).andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/metrics/pools")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode pools = new ObjectMapper().readTree(content);
+        assertEquals("Должен быть один пул соединений.", 1, pools.size());
+        JsonNode primary = pools.get(0);
+        assertEquals("primary", primary.get("poolName").asText());
+        assertTrue("Соединения должны выдаваться из пула.", primary.get("acquireCount").asLong() >= 2);
+        assertEquals("После запросов соединения должны вернуться в пул.", 0, primary.get("active").asInt());
+
+        long inHistogram = 0;
+        for (JsonNode bucket : primary.get("acquireHistogram")) {
+            inHistogram += bucket.asLong();
+        }
+        assertEquals(primary.get("acquireCount").asLong(), inHistogram);
+    }
+}
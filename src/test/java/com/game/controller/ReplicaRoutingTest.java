@@ -0,0 +1,66 @@
+package com.game.controller;
+
+import com.game.config.ClientContextFilter;
+import com.game.controller.utils.AsyncMockMvc;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Реплики здесь - отдельные H2-базы, в которые записи не попадают.
+// Поэтому по результату чтения видно, откуда оно было сделано (кэши для этого отключены).
+@TestPropertySource(properties = {"db.dev.replicas=2", "db.replicas.readYourWritesMillis=60000",
+        "cache.search.enabled=false", "cache.byId.enabled=false"})
+public class ReplicaRoutingTest extends AbstractTest {
+
+    @Before
+    @Override
+    public void setup() {
+        mockMvc = new AsyncMockMvc(MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .addFilter(new ClientContextFilter())
+                .build());
+    }
+
+    @Test
+    public void readsGoToReplicasExceptForRecentWriter() throws Exception {
+        mockMvc.perform(post("/rest/players/")
+                .header(ClientContextFilter.CLIENT_ID_HEADER, "writer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        // Клиент, который только что писал, читает из основной БД.
+        mockMvc.perform(get("/rest/players/41")
+                .header(ClientContextFilter.CLIENT_ID_HEADER, "writer"))
+                .andExpect(status().isOk());
+        assertEquals(41, count("writer"));
+
+        // Остальные клиенты читают с реплик, которые этой записи не видели.
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(get("/rest/players/41")
+                    .header(ClientContextFilter.CLIENT_ID_HEADER, "reader"))
+                    .andExpect(status().isNotFound());
+            assertEquals(40, count("reader"));
+        }
+    }
+
+    private int count(String clientId) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/count")
+                .header(ClientContextFilter.CLIENT_ID_HEADER, clientId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(content);
+    }
+}
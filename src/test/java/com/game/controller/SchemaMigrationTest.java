@@ -0,0 +1,56 @@
+package com.game.controller;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaMigrationTest extends AbstractTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    //test1
+    @Test
+    public void allMigrationsAppliedOnStartup() {
+        assertEquals("Не должно остаться неприменённых миграций.", 0, flyway.info().pending().length);
+
+        MigrationInfo current = flyway.info().current();
+        assertNotNull(current);
+        assertTrue("Индексы (V2) должны быть применены.", current.getVersion().compareTo(MigrationVersion.fromVersion("2")) >= 0);
+    }
+
+    //test2
+    @Test
+    public void levelFilterNarrowedByExperienceIndex() {
+        //   Тестовые данные (test.sql) пересоздают таблицу без индексов, поэтому план проверяется на отдельной базе,
+        // собранной только миграциями. Условия - как у PlayerSpecification для race=ELF&minLevel=10&maxLevel=20.
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT id FROM player"
+                + " WHERE race = 'ELF' AND level >= 10 AND experience >= 5500 AND level <= 20 AND experience <= 23099", String.class);
+        jdbcTemplate.execute("SHUTDOWN");
+
+        // Условия, по которым читается индекс, H2 пишет в комментарии после таблицы.
+        String index = plan.substring(plan.indexOf("/*") + 2, plan.indexOf("*/")).trim();
+        assertTrue("Фильтр по race и уровню должен читать индекс (race, experience): " + plan,
+                index.startsWith("PUBLIC.IDX_PLAYER_RACE_EXPERIENCE:"));
+        assertTrue("и по диапазону experience, а не по одной race: " + plan,
+                index.contains("RACE = 'ELF'") && index.contains("EXPERIENCE >= 5500") && index.contains("EXPERIENCE <= 23099"));
+    }
+}
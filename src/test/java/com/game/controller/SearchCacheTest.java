@@ -0,0 +1,103 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.ExperienceEventBuffer;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SearchCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ExperienceEventBuffer experienceEventBuffer;
+
+    //test1
+    @Test
+    public void repeatedSearchIsServedFromCache() throws Exception {
+        long hits = cacheStatistics().get("hits").asLong();
+
+        assertEquals(5, count("race=DWARF"));
+        assertEquals(5, count("race=DWARF"));
+        assertEquals(5, count("race=DWARF&name="));
+
+        assertEquals(hits + 2, cacheStatistics().get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void writesInvalidateOnlyAffectedResults() throws Exception {
+        assertEquals(5, count("race=DWARF"));
+        assertEquals(5, count("race=TROLL"));
+        long invalidations = cacheStatistics().get("invalidations").asLong();
+
+        // Новый гном (DWARF) меняет результат для race=DWARF, но не для race=TROLL.
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.BANNED_TRUE_JSON))
+                .andExpect(status().isOk());
+        assertEquals(invalidations + 1, cacheStatistics().get("invalidations").asLong());
+        assertEquals(6, count("race=DWARF"));
+        assertEquals(5, count("race=TROLL"));
+
+        // Перевод гнома в троли меняет оба результата.
+        mockMvc.perform(post("/rest/players/41")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"race\": \"TROLL\"}"))
+                .andExpect(status().isOk());
+        assertEquals(5, count("race=DWARF"));
+        assertEquals(6, count("race=TROLL"));
+
+        mockMvc.perform(delete("/rest/players/41"))
+                .andExpect(status().isOk());
+        assertEquals(5, count("race=TROLL"));
+    }
+
+    //test3
+    @Test
+    public void experienceEventsInvalidateOnlyAffectedResults() throws Exception {
+        assertEquals(5, count("race=DWARF"));
+        long hobbits = count("race=HOBBIT");
+        long experienced = count("minExperience=60000");
+        long invalidations = cacheStatistics().get("invalidations").asLong();
+
+        // Игрок 1 - хоббит с опытом 58347: начисление меняет race=HOBBIT и minExperience=60000, но не race=DWARF.
+        mockMvc.perform(post("/rest/players/experience-events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"playerId\": 1, \"amount\": 5000}]"))
+                .andExpect(status().isAccepted());
+        experienceEventBuffer.flush();
+
+        assertEquals(invalidations + 2, cacheStatistics().get("invalidations").asLong());
+        assertEquals(5, count("race=DWARF"));
+        assertEquals(hobbits, count("race=HOBBIT"));
+        assertEquals(experienced + 1, count("minExperience=60000"));
+    }
+
+    private long count(String query) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/rest/players/count?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode cacheStatistics() throws Exception {
+        JsonNode caches = mapper.readTree(mockMvc.perform(get("/rest/metrics/caches"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        for (JsonNode cache : caches) {
+            if ("playerSearch".equals(cache.get("cacheName").asText())) {
+                return cache;
+            }
+        }
+        throw new AssertionError("Нет статистики кэша playerSearch.");
+    }
+}
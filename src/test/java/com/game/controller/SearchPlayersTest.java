@@ -0,0 +1,79 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SearchPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void searchWithoutFiltersReturnsFirstPageAndTotal() throws Exception {
+        JsonNode result = search("");
+
+        assertEquals(testsHelper.getAllPlayers().size(), result.get("total").asInt());
+        assertEquals(0, result.get("pageNumber").asInt());
+        assertEquals(3, result.get("pageSize").asInt());
+        assertEquals(3, result.get("items").size());
+        assertEquals(1, result.get("items").get(0).get("id").asInt());
+    }
+
+    //test2
+    @Test
+    public void searchWithFiltersMatchesListAndCount() throws Exception {
+        String filter = "race=ELF&minLevel=30&pageSize=2&pageNumber=1&order=LEVEL";
+        JsonNode result = search(filter);
+
+        int expectedTotal = testsHelper.getPlayerInfosByMinLevel(30,
+                testsHelper.getPlayerInfosByRace(Race.ELF,
+                        testsHelper.getAllPlayers())).size();
+        assertEquals(expectedTotal, result.get("total").asInt());
+
+        JsonNode list = mapper.readTree(mockMvc.perform(get("/rest/players?" + filter))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(list, result.get("items"));
+    }
+
+    //test3
+    @Test
+    public void searchLastShortPageCountsTotalWithoutCountQuery() throws Exception {
+        JsonNode result = search("race=HOBBIT&pageSize=2&pageNumber=1");
+
+        int expectedTotal = testsHelper.getPlayerInfosByRace(Race.HOBBIT,
+                testsHelper.getAllPlayers()).size();
+        assertEquals(expectedTotal, result.get("total").asInt());
+        assertEquals(expectedTotal - 2, result.get("items").size());
+    }
+
+    //test4
+    @Test
+    public void searchWithKnownTotalReturnsItAsIs() throws Exception {
+        JsonNode result = search("pageNumber=2&total=40");
+
+        assertEquals(40, result.get("total").asInt());
+        assertEquals(7, result.get("items").get(0).get("id").asInt());
+    }
+
+    //test5
+    @Test
+    public void searchWithWrongPageSizeTest() throws Exception {
+        mockMvc.perform(get("/rest/players/search?pageSize=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode search(String query) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/search?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,139 @@
+package com.game.controller;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.CachingResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StaticResourcesTest extends AbstractTest {
+
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+    private static final File WEBAPP = new File("src/main/webapp");
+    private static final File PRECOMPRESSED = new File("target/precompressed");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //test1
+    @Test
+    public void versionedUrlsCachedForever() throws Exception {
+        String url = encodeUrl("/resources/scripts.js");
+        assertTrue("В адресе - md5 содержимого: " + url, url.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+
+        byte[] content = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(Files.readAllBytes(new File(WEBAPP, "resources/scripts.js").toPath()), content);
+
+        mockMvc.perform(get("/resources/scripts-0123456789abcdef0123456789abcdef.js"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void precompressedVariantServed() throws Exception {
+        // Каталог как в собранном war: исходный файл и его .gz из target/precompressed рядом.
+        File resources = folder.newFolder("resources");
+        String path = "bootstrap-4.3.1-dist/css/bootstrap.min.css";
+        File gzip = new File(PRECOMPRESSED, "resources/" + path + ".gz");
+        assertTrue("Сжатые копии создаются при сборке (mvn process-resources)", gzip.isFile());
+        byte[] original = Files.readAllBytes(new File(WEBAPP, "resources/" + path).toPath());
+        assertArrayEquals(original, read(new GZIPInputStream(new FileInputStream(gzip))));
+        FileCopyUtils.copy(new File(WEBAPP, "resources/" + path), new File(resources, "bootstrap.min.css"));
+        FileCopyUtils.copy(gzip, new File(resources, "bootstrap.min.css.gz"));
+
+        ResourceHttpRequestHandler handler = handlerFor(resources);
+        String versioned = encodeUrl("/resources/" + path).substring("/resources/bootstrap-4.3.1-dist/css/".length());
+
+        MockHttpServletResponse compressed = serve(handler, versioned, "gzip, deflate");
+        assertEquals("gzip", compressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(IMMUTABLE, compressed.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("text/css", compressed.getContentType());
+        assertArrayEquals(Files.readAllBytes(gzip.toPath()), compressed.getContentAsByteArray());
+
+        MockHttpServletResponse plain = serve(handler, versioned, null);
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(original, plain.getContentAsByteArray());
+    }
+
+    // Адрес, который получит <c:url> в index.jsp: encodeURL вызывается после обработки запроса, как при выводе JSP.
+    private String encodeUrl(String url) throws Exception {
+        AtomicReference<String> encoded = new AtomicReference<>();
+        MockMvc encodingMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilters(new ResourceUrlEncodingFilter(), (request, response, chain) -> {
+                    chain.doFilter(request, response);
+                    encoded.set(((HttpServletResponse) response).encodeURL(url));
+                })
+                .build();
+        encodingMvc.perform(get("/")).andExpect(status().isOk());
+        return encoded.get();
+    }
+
+    // Обработчик с теми же настройками, что у /resources/** из WebConfig, но с другим каталогом.
+    // Кэширующий резолвер пропускается, чтобы не подмешивать файлы из src/main/webapp, найденные другими тестами.
+    private ResourceHttpRequestHandler handlerFor(File location) throws Exception {
+        SimpleUrlHandlerMapping mapping = context.getBean("resourceHandlerMapping", SimpleUrlHandlerMapping.class);
+        ResourceHttpRequestHandler configured = (ResourceHttpRequestHandler) mapping.getUrlMap().get("/resources/**");
+
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        handler.setLocations(Collections.singletonList(new FileSystemResource(location.getPath() + "/")));
+        handler.setResourceResolvers(configured.getResourceResolvers().stream()
+                .filter(resolver -> !(resolver instanceof CachingResourceResolver))
+                .collect(Collectors.toList()));
+        handler.setCacheControl(configured.getCacheControl());
+        handler.setServletContext(context.getServletContext());
+        handler.afterPropertiesSet();
+        return handler;
+    }
+
+    private static MockHttpServletResponse serve(ResourceHttpRequestHandler handler, String path, String acceptEncoding)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/" + path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, path);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        assertEquals(path, 200, response.getStatus());
+        return response;
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        try (InputStream stream = in) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}
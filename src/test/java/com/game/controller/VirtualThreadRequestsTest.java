@@ -0,0 +1,112 @@
+package com.game.controller;
+
+import com.game.config.ClientContext;
+import com.game.config.RequestExecutor;
+import com.game.config.RequestExecutorStatistics;
+import com.game.config.VirtualThreads;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+// Режим async.virtualThreads: на JDK 21+ - test2 и test3, на более старых - test1.
+public class VirtualThreadRequestsTest {
+
+    //test1
+    @Test
+    public void unsupportedJdkFailsAtStartup() {
+        assumeFalse(VirtualThreads.isSupported());
+        try {
+            new RequestExecutor("player-reads", true, true, 0, 10, 1000);
+            fail("На JDK без виртуальных потоков режим не должен молча работать на обычных");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("JDK 21"));
+        }
+    }
+
+    //test2
+    @Test
+    public void tasksRunOnVirtualThreadsUpToCapacity() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        RequestExecutor executor = new RequestExecutor("player-reads", true, true, 0, 2, 10000);
+        try {
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            boolean[] virtual = new boolean[2];
+            String[] clientIds = new String[2];
+            ClientContext.setClientId("client-1");
+            for (int i = 0; i < 2; i++) {
+                int index = i;
+                executor.submit(() -> {
+                    virtual[index] = VirtualThreads.isVirtual(Thread.currentThread());
+                    clientIds[index] = ClientContext.getClientId();
+                    started.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                });
+            }
+            ClientContext.clear();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue("Каждая задача - в виртуальном потоке", virtual[0] && virtual[1]);
+            assertEquals("client-1", clientIds[0]);
+
+            DeferredResult<Object> rejected = executor.submit(() -> "лишний");
+            assertEquals("Сверх queueCapacity задач в работе - сразу 503",
+                    503, ((ResponseEntity<?>) rejected.getResult()).getStatusCodeValue());
+            RequestExecutorStatistics statistics = executor.getStatistics();
+            assertTrue(statistics.isVirtualThreads());
+            assertEquals(2, statistics.getActive());
+            assertEquals(0, statistics.getQueued());
+            assertEquals(1, statistics.getRejected());
+
+            release.countDown();
+            for (int i = 0; i < 100 && executor.getStatistics().getActive() > 0; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals("Место освободилось", 0, executor.getStatistics().getActive());
+            DeferredResult<Object> accepted = executor.submit(() -> "снова");
+            for (int i = 0; i < 100 && !accepted.hasResult(); i++) {
+                Thread.sleep(50);
+            }
+            assertEquals("снова", accepted.getResult());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //test3
+    @Test
+    public void timeoutOfRunningTaskReleasesCapacityOnce() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        RequestExecutor executor = new RequestExecutor("player-reads", true, true, 0, 2, 10000);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            DeferredResult<Object> running = executor.submit(() -> {
+                started.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            AsyncRequestsTest.timeOut(running);
+            assertEquals("Начатая задача держит место до конца", 1, executor.getStatistics().getActive());
+            release.countDown();
+            for (int i = 0; i < 100 && executor.getStatistics().getActive() > 0; i++) {
+                Thread.sleep(50);
+            }
+            RequestExecutorStatistics statistics = executor.getStatistics();
+            assertEquals("Место освобождено ровно один раз", 0, statistics.getActive());
+            assertEquals(1, statistics.getTimedOut());
+            assertEquals(0, statistics.getSkipped());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
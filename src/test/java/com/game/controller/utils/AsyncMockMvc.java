@@ -0,0 +1,27 @@
+package com.game.controller.utils;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+//   MockMvc, который дожидается асинхронных ответов (DeferredResult в PlayerController):
+// сам MockMvc возвращает результат, как только поток контейнера освободился, - ещё без статуса и тела.
+public class AsyncMockMvc {
+    private final MockMvc mockMvc;
+
+    public AsyncMockMvc(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    public ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        ResultActions actions = mockMvc.perform(requestBuilder);
+        MvcResult result = actions.andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            return mockMvc.perform(asyncDispatch(result));
+        }
+        return actions;
+    }
+}
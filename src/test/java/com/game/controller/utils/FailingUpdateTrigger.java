@@ -0,0 +1,32 @@
+package com.game.controller.utils;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+//   Триггер H2 BEFORE UPDATE на player: UPDATE строки с id = failingId всегда падает,
+// как строка, которую БД не принимает из-за её данных.
+public class FailingUpdateTrigger implements Trigger {
+    public static volatile long failingId;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) {
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (((Number) oldRow[0]).longValue() == failingId) {
+            throw new SQLException("Строка " + failingId + " не записывается");
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+}